@@ -9,11 +9,49 @@ repositories {
     mavenCentral()
 }
 
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
 dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter-params:5.8.2")
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.8.2")
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 tasks.getByName<Test>("test") {
-    useJUnitPlatform()
-}
\ No newline at end of file
+    useJUnitPlatform {
+        excludeTags("scaling")
+    }
+}
+
+tasks.register<Test>("scalingTest") {
+    description = "Runs every stage on generated programs of increasing size; " +
+            "set the sizes with -Dscaling.lines=<list>."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("scaling")
+    }
+    maxHeapSize = "3g"
+    systemProperties(System.getProperties().filterKeys { it.toString().startsWith("scaling.") }.mapKeys { it.key.toString() })
+    testLogging.showStandardStreams = true
+    outputs.upToDateWhen { false }
+}
+
+tasks.register<JavaExec>("jmh") {
+    description = "Runs the JMH benchmarks; pass a filter with -Pjmh.includes=<regex> " +
+            "and profilers with -Pjmh.profilers=<list> (gc by default)."
+    group = "verification"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args(project.findProperty("jmh.includes") ?: ".*")
+    (project.findProperty("jmh.profilers") ?: "gc").toString().split(",").filter { it.isNotBlank() }.forEach {
+        args("-prof", it)
+    }
+}
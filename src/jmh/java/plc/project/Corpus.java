@@ -0,0 +1,47 @@
+package plc.project;
+
+/**
+ * The fixed programs every pipeline benchmark runs over, written to pass the
+ * {@link Analyzer} so all stages can run on the same source. The analyzer
+ * defines each method's return type in the global scope, which only allows a
+ * single method per source, so programs grow by repeating a block of
+ * statements inside {@code main}.
+ */
+final class Corpus {
+
+    /**
+     * Lines per repeated block, used to size the programs.
+     */
+    private static final int LINES = 13;
+
+    private Corpus() {}
+
+    static String get(String size) {
+        switch (size) {
+            case "small": return generate(1);
+            case "medium": return generate(1_000 / LINES);
+            case "huge": return generate(100_000 / LINES);
+            default: throw new IllegalArgumentException("Unknown corpus " + size + ".");
+        }
+    }
+
+    private static String generate(int blocks) {
+        StringBuilder builder = new StringBuilder("DEF main(): Integer DO\n");
+        for (int i = 0; i < blocks; i++) {
+            builder.append("    WHILE FALSE DO\n")
+                    .append("        LET x: Integer = ").append(i).append(";\n")
+                    .append("        LET d: Decimal = 1.5 * 2.25 - 0.5 / 4.0;\n")
+                    .append("        LET s: String = \"block ").append(i).append(":\\tx=\" + x;\n")
+                    .append("        x = x - 1 + 2 * 3;\n")
+                    .append("    END\n")
+                    .append("    IF ").append(i).append(" > 2 * 3 OR TRUE AND 'c' != 'd' DO\n")
+                    .append("        LET y: Integer = ").append(i).append(" + 2 * 3;\n")
+                    .append("    ELSE\n")
+                    .append("        LET z: String = \"else\";\n")
+                    .append("    END\n")
+                    .append("\n\n");
+        }
+        return builder.append("    RETURN 0;\nEND\n").toString();
+    }
+
+}
@@ -0,0 +1,180 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Measures the {@link Interpreter} on expression-heavy code, where the time
+ * goes to visiting many small nodes rather than to any one statement: a long
+ * expression over a variable, and a loop over such a body. The loop is kept
+ * short since each iteration of a {@code WHILE} nests another scope, which
+ * lookups by name walk through; {@link #resolvedLoop()} runs it with the
+ * variables resolved to frame slots by the {@link Resolver}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpreterBenchmark {
+
+    @Param({"100"})
+    public int iterations;
+
+    private Ast.Source ast;
+    private Ast.Source resolved;
+    private Ast.Expr expression;
+    private plc.project.Scope scope;
+
+    @Setup
+    public void setup() {
+        String source = "LET i: Integer = 0;\n" +
+                "LET sum: Integer = 0;\n" +
+                "DEF main(): Integer DO\n" +
+                "    WHILE i < " + iterations + " DO\n" +
+                "        sum = sum + (i * 3 - i / 2) * 2 - (sum - i) / 7;\n" +
+                "        IF sum > 1000000 OR sum < 0 - 1000000 DO sum = 0; END\n" +
+                "        i = i + 1;\n" +
+                "    END\n" +
+                "    RETURN sum;\n" +
+                "END\n";
+        ast = new Parser(new DfaLexer(source).lexBuffer()).parseSource();
+        resolved = new Parser(new DfaLexer(source).lexBuffer()).parseSource();
+        new Resolver().visit(resolved);
+
+        StringBuilder builder = new StringBuilder("0");
+        for (int i = 0; i < 1000; i++) {
+            builder.append(" + (i * ").append(i % 7 + 1).append(" - i / 2)");
+        }
+        expression = new Parser(new DfaLexer(builder.toString()).lexBuffer()).parseExpression();
+        scope = new plc.project.Scope(null);
+        scope.defineVariable("i", Environment.create(BigInteger.valueOf(17)));
+    }
+
+    @Benchmark
+    public Environment.PlcObject expression() {
+        return new Interpreter(scope).visit(expression);
+    }
+
+    /**
+     * Visits every node of the expression doing no work of its own, which
+     * isolates the cost of dispatch from the work of the interpreter.
+     */
+    @Benchmark
+    public Integer dispatch() {
+        return new Counter().visit(expression);
+    }
+
+    @Benchmark
+    public Environment.PlcObject loop() {
+        return new Interpreter(new plc.project.Scope(null)).visit(ast);
+    }
+
+    @Benchmark
+    public Environment.PlcObject resolvedLoop() {
+        return new Interpreter(new plc.project.Scope(null)).visit(resolved);
+    }
+
+    /**
+     * Counts the nodes of a tree, each being one plus the count of its
+     * children.
+     */
+    private static final class Counter implements Ast.Visitor<Integer> {
+
+        @Override
+        public Integer visit(Ast.Source ast) {
+            return 1 + count(ast.getFields()) + count(ast.getMethods());
+        }
+
+        @Override
+        public Integer visit(Ast.Field ast) {
+            return 1 + ast.getValue().map(this::visit).orElse(0);
+        }
+
+        @Override
+        public Integer visit(Ast.Method ast) {
+            return 1 + count(ast.getStatements());
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.Expression ast) {
+            return 1 + visit(ast.getExpression());
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.Declaration ast) {
+            return 1 + ast.getValue().map(this::visit).orElse(0);
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.Assignment ast) {
+            return 1 + visit(ast.getReceiver()) + visit(ast.getValue());
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.If ast) {
+            return 1 + visit(ast.getCondition()) + count(ast.getThenStatements()) + count(ast.getElseStatements());
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.For ast) {
+            return 1 + visit(ast.getValue()) + count(ast.getStatements());
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.While ast) {
+            return 1 + visit(ast.getCondition()) + count(ast.getStatements());
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.Return ast) {
+            return 1 + visit(ast.getValue());
+        }
+
+        @Override
+        public Integer visit(Ast.Expr.Literal ast) {
+            return 1;
+        }
+
+        @Override
+        public Integer visit(Ast.Expr.Group ast) {
+            return 1 + visit(ast.getExpression());
+        }
+
+        @Override
+        public Integer visit(Ast.Expr.Binary ast) {
+            return 1 + visit(ast.getLeft()) + visit(ast.getRight());
+        }
+
+        @Override
+        public Integer visit(Ast.Expr.Access ast) {
+            return 1;
+        }
+
+        @Override
+        public Integer visit(Ast.Expr.Function ast) {
+            return 1 + ast.getReceiver().map(this::visit).orElse(0) + count(ast.getArguments());
+        }
+
+        private int count(List<? extends Ast> nodes) {
+            int count = 0;
+            for (Ast node : nodes) {
+                count += visit(node);
+            }
+            return count;
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+
+/**
+ * Compares the regex-based {@link Lexer} against the table-driven
+ * {@link DfaLexer}, both into a token list and a {@link TokenBuffer}, and the
+ * {@link ParallelLexer}, on the same generated source. Relexing a single
+ * character insertion (or deletion) in the middle of the source with an {@link IncrementalLexer}
+ * is measured as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+
+    @Param({"1000", "100000"})
+    public int lines;
+
+    private String source;
+    private IncrementalLexer incremental;
+    private String[] edits;
+    private int offset;
+    private int edit = 0;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; builder.length() == 0 || i < lines; i += 5) {
+            builder.append("DEF method").append(i).append("(x: Integer): String DO\n")
+                    .append("    LET y: Decimal = -1.5 * x;\n")
+                    .append("    IF x <= 10 AND y != 0.0 DO print('c'); END\n")
+                    .append("    RETURN \"value:\\t.\" + x;\n")
+                    .append("END\n");
+        }
+        source = builder.toString();
+        incremental = new IncrementalLexer(source);
+        offset = source.indexOf("method", source.length() / 2);
+        edits = new String[] {source, source.substring(0, offset) + "M" + source.substring(offset)};
+    }
+
+    @Benchmark
+    public List<Token> regex() {
+        return new Lexer(source).lex();
+    }
+
+    @Benchmark
+    public List<Token> table() {
+        return new DfaLexer(source).lex();
+    }
+
+    @Benchmark
+    public TokenBuffer buffer() {
+        return new DfaLexer(source).lexBuffer();
+    }
+
+    @Benchmark
+    public TokenBuffer parallel() {
+        return new ParallelLexer(source).lexBuffer();
+    }
+
+    @Benchmark
+    public IncrementalLexer.Edit incremental() {
+        edit = 1 - edit;
+        return incremental.edit(edits[edit], offset, 1 - edit, edit);
+    }
+
+}
@@ -0,0 +1,109 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Measures each stage of the pipeline on its own, over the small, medium,
+ * and huge programs of the {@link Corpus}. Each stage starts from the output
+ * of the previous stages, which is prepared once in {@link #setup()}. Run
+ * with the GC profiler (the default for the {@code jmh} task) to report
+ * allocation rates alongside throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"small", "medium", "huge"})
+    public String corpus;
+
+    private String source;
+    private List<Token> tokens;
+    private TokenBuffer buffer;
+    private Ast.Source ast;
+    private AstCache cache;
+
+    @Setup
+    public void setup() throws IOException {
+        source = Corpus.get(corpus);
+        tokens = new Lexer(source).lex();
+        buffer = new DfaLexer(source).lexBuffer();
+        ast = new Parser(tokens).parseSource();
+        new Analyzer(new plc.project.Scope(null)).visit(ast);
+        cache = new AstCache(Files.createTempDirectory("ast-cache"));
+        cache.put(source, ast);
+    }
+
+    @Benchmark
+    public List<Token> lexer() {
+        return new Lexer(source).lex();
+    }
+
+    @Benchmark
+    public Ast.Source parser() {
+        return new Parser(tokens).parseSource();
+    }
+
+    @Benchmark
+    public FlatAst flatParser() {
+        return FlatAst.parse(buffer);
+    }
+
+    @Benchmark
+    public Analyzer analyzer() {
+        Analyzer analyzer = new Analyzer(new plc.project.Scope(null));
+        analyzer.visit(ast);
+        return analyzer;
+    }
+
+    /**
+     * The front end which a cache hit replaces, for comparison with {@link
+     * #cached()}.
+     */
+    @Benchmark
+    public Ast.Source frontEnd() {
+        Ast.Source ast = new Parser(new DfaLexer(source).lexBuffer()).parseSource();
+        new Analyzer(new plc.project.Scope(null)).visit(ast);
+        return ast;
+    }
+
+    /**
+     * Loads the analyzed AST from the cache, decoding every method body.
+     */
+    @Benchmark
+    public Ast.Source cached() throws IOException {
+        Ast.Source ast = cache.get(source);
+        ast.getMethods().forEach(Ast.Method::getStatements);
+        return ast;
+    }
+
+    @Benchmark
+    public Environment.PlcObject interpreter() {
+        return new Interpreter(new plc.project.Scope(null)).visit(ast);
+    }
+
+    @Benchmark
+    public Generator generator() {
+        Generator generator = new Generator(new PrintWriter(Writer.nullWriter()));
+        generator.visit(ast);
+        return generator;
+    }
+
+}
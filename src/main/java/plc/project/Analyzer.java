@@ -42,6 +42,8 @@ public final class Analyzer implements Ast.Visitor<Void> {
             if (!args) {
                 throw new RuntimeException("Error: Main");
             }
+
+            new Resolver().visit(ast);
         } catch (RuntimeException r) {
             throw new RuntimeException(r);
         }
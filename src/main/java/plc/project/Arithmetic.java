@@ -0,0 +1,106 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * The semantics of the binary operators on values, shared by the {@link
+ * Interpreter} and the {@link ConstantFolder} so a folded expression has the
+ * value it would have had when interpreted.
+ */
+final class Arithmetic {
+
+    private Arithmetic() {}
+
+    /**
+     * Applies {@code AND} or {@code OR} to the values of both operands, as the
+     * interpreter does once it has evaluated them.
+     */
+    static Boolean logical(String operator, Object left, Object right) {
+        if (!(left instanceof Boolean) || !(right instanceof Boolean)) {
+            throw new RuntimeException("Expected type " + Boolean.class.getName() + ".");
+        }
+        if (operator.equals("AND")) {
+            return left.equals(right) ? (Boolean) left : Boolean.FALSE;
+        }
+        return (Boolean) left || (Boolean) right;
+    }
+
+    /**
+     * Applies a comparison, equality, or arithmetic operator to the values of
+     * its operands, throwing a {@link RuntimeException} where the interpreter
+     * reports an error. A comparison of values which are not comparable with
+     * each other is an equality test.
+     */
+    @SuppressWarnings("unchecked")
+    static Object apply(String operator, Object left, Object right) {
+        switch (operator) {
+            case "<":
+            case "<=":
+            case ">":
+            case ">=":
+                if (left instanceof Comparable && left.getClass() == right.getClass()) {
+                    int compare = ((Comparable<Object>) left).compareTo(right);
+                    switch (operator) {
+                        case "<":
+                            return compare < 0;
+                        case "<=":
+                            return compare <= 0;
+                        case ">":
+                            return compare > 0;
+                        default:
+                            return compare >= 0;
+                    }
+                }
+                return left.equals(right);
+
+            case "==":
+                return left.equals(right);
+
+            case "!=":
+                return !left.equals(right);
+
+            case "+":
+                if (left instanceof String || right instanceof String) {
+                    return left.toString() + right.toString();
+                } else if (left instanceof BigInteger && right instanceof BigInteger) {
+                    return ((BigInteger) left).add((BigInteger) right);
+                } else if (left instanceof BigDecimal && right instanceof BigDecimal) {
+                    return ((BigDecimal) left).add((BigDecimal) right);
+                } else {
+                    throw new RuntimeException("Type Error: Addition");
+                }
+
+            case "-":
+            case "*":
+                if (left instanceof BigInteger && right instanceof BigInteger) {
+                    return operator.equals("*")
+                            ? ((BigInteger) left).multiply((BigInteger) right)
+                            : ((BigInteger) left).subtract((BigInteger) right);
+                } else if (left instanceof BigDecimal && right instanceof BigDecimal) {
+                    return operator.equals("*")
+                            ? ((BigDecimal) left).multiply((BigDecimal) right)
+                            : ((BigDecimal) left).subtract((BigDecimal) right);
+                } else {
+                    throw new RuntimeException("Type Error: Multiply Subtract");
+                }
+
+            case "/":
+                if ((left instanceof BigDecimal || left instanceof BigInteger) && left.getClass() == right.getClass()) {
+                    if (BigDecimal.ZERO.equals(right) || BigInteger.ZERO.equals(right)) {
+                        throw new RuntimeException("Edge Case: You can't divide by zero.");
+                    }
+                    return left instanceof BigDecimal
+                            ? ((BigDecimal) left).divide((BigDecimal) right, RoundingMode.HALF_EVEN)
+                            : ((BigInteger) left).divide((BigInteger) right);
+                } else {
+                    throw new RuntimeException("Type Error: Forward Bracket");
+                }
+
+            default:
+                throw new RuntimeException("Type Error");
+        }
+    }
+
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * See the Parser assignment specification for specific notes on each AST class
@@ -11,6 +12,24 @@ import java.util.Optional;
  */
 public abstract class Ast {
 
+    /**
+     * Calls the {@link Visitor} method for the type of this node, so
+     * dispatching costs a single virtual call for every type.
+     */
+    public abstract <T> T accept(Visitor<T> visitor);
+
+    /**
+     * Returns a property set by the analyzer, or {@code null} if the node was
+     * not analyzed (in which case the getter throws).
+     */
+    static <T> T resolved(Supplier<T> getter) {
+        try {
+            return getter.get();
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
     public static final class Source extends Ast {
 
         private final List<Field> fields;
@@ -29,6 +48,11 @@ public abstract class Ast {
             return methods;
         }
 
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
         @Override
         public boolean equals(Object obj) {
             return obj instanceof Source &&
@@ -52,6 +76,7 @@ public abstract class Ast {
         private final String typeName;
         private final Optional<Expr> value;
         private Environment.Variable variable = null;
+        private int slot = -1;
 
         public Field(String name, Optional<Expr> value) {
             this(name, "Any", value);
@@ -86,6 +111,23 @@ public abstract class Ast {
             this.variable = variable;
         }
 
+        /**
+         * Returns the slot of the field in its frame, as set by the {@link
+         * Resolver}, or {@code -1} if it was not resolved.
+         */
+        public int getSlot() {
+            return slot;
+        }
+
+        public void setSlot(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
         @Override
         public boolean equals(Object obj) {
             return obj instanceof Field &&
@@ -113,8 +155,10 @@ public abstract class Ast {
         private final List<String> parameters;
         private final List<String> parameterTypeNames;
         private final Optional<String> returnTypeName;
-        private final List<Stmt> statements;
+        private List<Stmt> statements;
+        private Supplier<List<Stmt>> body;
         private Environment.Function function = null;
+        private int frameSize = -1;
 
         public Method(String name, List<String> parameters, List<Stmt> statements) {
             this(name, parameters, new ArrayList<>(), Optional.of("Any"), statements);
@@ -131,6 +175,15 @@ public abstract class Ast {
             this.statements = statements;
         }
 
+        /**
+         * Creates a method whose statements are produced by {@code body} the
+         * first time they are requested, as done by a lazy {@link Parser}.
+         */
+        Method(String name, List<String> parameters, List<String> parameterTypeNames, Optional<String> returnTypeName, Supplier<List<Stmt>> body) {
+            this(name, parameters, parameterTypeNames, returnTypeName, (List<Stmt>) null);
+            this.body = body;
+        }
+
         public String getName() {
             return name;
         }
@@ -147,10 +200,27 @@ public abstract class Ast {
             return returnTypeName;
         }
 
+        /**
+         * Returns the statements of the method, parsing them first if the
+         * method was parsed lazily. A {@link ParseException} in the body is
+         * thrown here, and again on each later call.
+         */
         public List<Stmt> getStatements() {
+            if (statements == null) {
+                statements = body.get();
+                body = null;
+            }
             return statements;
         }
 
+        /**
+         * Returns {@code false} if the statements of a lazily parsed method
+         * have not been requested yet.
+         */
+        public boolean isParsed() {
+            return statements != null;
+        }
+
         public Environment.Function getFunction() {
             if (function == null) {
                 throw new IllegalStateException("function is uninitialized");
@@ -162,6 +232,24 @@ public abstract class Ast {
             this.function = function;
         }
 
+        /**
+         * Returns the number of slots in the frame of the method, starting
+         * with its parameters, as set by the {@link Resolver}, or {@code -1}
+         * if it was not resolved.
+         */
+        public int getFrameSize() {
+            return frameSize;
+        }
+
+        public void setFrameSize(int frameSize) {
+            this.frameSize = frameSize;
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
         @Override
         public boolean equals(Object obj) {
             return obj instanceof Method &&
@@ -169,7 +257,7 @@ public abstract class Ast {
                     parameters.equals(((Method) obj).parameters) &&
                     parameterTypeNames.equals(((Method) obj).parameterTypeNames) &&
                     returnTypeName.equals(((Method) obj).returnTypeName) &&
-                    statements.equals(((Method) obj).statements) &&
+                    getStatements().equals(((Method) obj).getStatements()) &&
                     Objects.equals(function, ((Method) obj).function);
         }
 
@@ -180,7 +268,7 @@ public abstract class Ast {
                     ", parameters=" + parameters +
                     ", parameterTypeNames=" + parameterTypeNames +
                     ", returnTypeName='" + returnTypeName + '\'' +
-                    ", statements=" + statements +
+                    ", statements=" + (body == null ? statements : "<unparsed>") +
                     ", function=" + function +
                     '}';
         }
@@ -189,6 +277,23 @@ public abstract class Ast {
 
     public static abstract class Stmt extends Ast {
 
+        private int[] released = new int[0];
+
+        /**
+         * Returns the slots of the method's frame which are dead when control
+         * reaches the statement, as set by the {@link Resolver} from the
+         * {@link Liveness} of the method, so the interpreter can clear them.
+         * None are released if the method was not resolved. Removing
+         * statements or reads of variables afterwards keeps this correct.
+         */
+        public int[] getReleased() {
+            return released;
+        }
+
+        public void setReleased(int[] released) {
+            this.released = released;
+        }
+
         public static final class Expression extends Stmt {
 
             private final Expr expression;
@@ -201,6 +306,11 @@ public abstract class Ast {
                 return expression;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Expression &&
@@ -222,6 +332,7 @@ public abstract class Ast {
             private final Optional<String> typeName;
             private final Optional<Expr> value;
             private Environment.Variable variable;
+            private int slot = -1;
 
             public Declaration(String name, Optional<Expr> value) {
                 this(name, Optional.empty(), value);
@@ -256,6 +367,23 @@ public abstract class Ast {
                 this.variable = variable;
             }
 
+            /**
+             * Returns the slot of the variable in its frame, as set by the
+             * {@link Resolver}, or {@code -1} if it was not resolved.
+             */
+            public int getSlot() {
+                return slot;
+            }
+
+            public void setSlot(int slot) {
+                this.slot = slot;
+            }
+
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Declaration &&
@@ -295,6 +423,11 @@ public abstract class Ast {
                 return value;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Assignment &&
@@ -337,6 +470,11 @@ public abstract class Ast {
                 return elseStatements;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof If &&
@@ -361,6 +499,7 @@ public abstract class Ast {
             private final String name;
             private final Expr value;
             private final List<Stmt> statements;
+            private int slot = -1;
 
             public For(String name, Expr value, List<Stmt> statements) {
                 this.name = name;
@@ -380,6 +519,23 @@ public abstract class Ast {
                 return statements;
             }
 
+            /**
+             * Returns the slot of the loop variable in its frame, as set by
+             * the {@link Resolver}, or {@code -1} if it was not resolved.
+             */
+            public int getSlot() {
+                return slot;
+            }
+
+            public void setSlot(int slot) {
+                this.slot = slot;
+            }
+
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof For &&
@@ -417,6 +573,11 @@ public abstract class Ast {
                 return statements;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof While &&
@@ -446,6 +607,11 @@ public abstract class Ast {
                 return value;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Return &&
@@ -492,6 +658,11 @@ public abstract class Ast {
                 this.type = type;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Literal &&
@@ -533,6 +704,12 @@ public abstract class Ast {
             public void setType(Environment.Type type) {
                 this.type = type;
             }
+
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Group &&
@@ -587,6 +764,11 @@ public abstract class Ast {
                 this.type = type;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Binary &&
@@ -613,6 +795,8 @@ public abstract class Ast {
             private final Optional<Expr> receiver;
             private final String name;
             private Environment.Variable variable = null;
+            private int depth = -1;
+            private int slot = -1;
 
             public Access(Optional<Expr> receiver, String name) {
                 this.receiver = receiver;
@@ -638,11 +822,38 @@ public abstract class Ast {
                 this.variable = variable;
             }
 
+            /**
+             * Returns the number of frames out from the innermost one to the
+             * frame of the variable, as set by the {@link Resolver}, or {@code
+             * -1} if it was not resolved.
+             */
+            public int getDepth() {
+                return depth;
+            }
+
+            /**
+             * Returns the slot of the variable in its frame, or {@code -1} if
+             * it was not resolved.
+             */
+            public int getSlot() {
+                return slot;
+            }
+
+            public void setAddress(int depth, int slot) {
+                this.depth = depth;
+                this.slot = slot;
+            }
+
             @Override
             public Environment.Type getType() {
                 return getVariable().getType();
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Access &&
@@ -703,6 +914,11 @@ public abstract class Ast {
                 return getFunction().getReturnType();
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Function &&
@@ -729,39 +945,7 @@ public abstract class Ast {
     public interface Visitor<T> {
 
         default T visit(Ast ast) {
-            if (ast instanceof Source) {
-                return visit((Source) ast);
-            } else if (ast instanceof Field) {
-                return visit((Field) ast);
-            } else if (ast instanceof Method) {
-                return visit((Method) ast);
-            } else if (ast instanceof Stmt.Expression) {
-                return visit((Stmt.Expression) ast);
-            } else if (ast instanceof Stmt.Declaration) {
-                return visit((Stmt.Declaration) ast);
-            } else if (ast instanceof Stmt.Assignment) {
-                return visit((Stmt.Assignment) ast);
-            } else if (ast instanceof Stmt.If) {
-                return visit((Stmt.If) ast);
-            } else if (ast instanceof Stmt.For) {
-                return visit((Stmt.For) ast);
-            } else if (ast instanceof Stmt.While) {
-                return visit((Stmt.While) ast);
-            } else if (ast instanceof Stmt.Return) {
-                return visit((Stmt.Return) ast);
-            } else if (ast instanceof Expr.Literal) {
-                return visit((Expr.Literal) ast);
-            } else if (ast instanceof Expr.Group) {
-                return visit((Expr.Group) ast);
-            } else if (ast instanceof Expr.Binary) {
-                return visit((Expr.Binary) ast);
-            } else if (ast instanceof Expr.Access) {
-                return visit((Expr.Access) ast);
-            } else if (ast instanceof Expr.Function) {
-                return visit((Expr.Function) ast);
-            } else {
-                throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
-            }
+            return ast.accept(this);
         }
 
         T visit(Source ast);
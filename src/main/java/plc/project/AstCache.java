@@ -0,0 +1,659 @@
+package plc.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * A directory of analyzed ASTs keyed by the SHA-256 hash of their source, so
+ * a job which runs an unchanged source can skip the {@link Lexer}, {@link
+ * Parser}, and {@link Analyzer} entirely.
+ *
+ * Each entry is a versioned binary encoding of the {@link Ast.Source}: a
+ * header (magic, {@link #VERSION}, the source hash, and a CRC-32 of the rest
+ * of the entry), a table of the
+ * distinct names and strings, and the nodes in preorder, including the types,
+ * variables, and functions set by the analyzer and the slots, addresses, and
+ * released slots set by the {@link Resolver} it runs. Entries are memory-mapped
+ * when read, and method bodies are length-prefixed so they are only decoded
+ * once {@link Ast.Method#getStatements()} is called. An entry from another
+ * version, whose checksum does not match, or which does not decode, is
+ * treated as a miss; the checksum is checked on every read, so a method body
+ * which is only decoded later cannot be corrupt.
+ *
+ * Resolved types are stored by name and looked up with {@link
+ * Environment#getType(String)}. Resolved functions are restored with a body
+ * returning {@link Environment#NIL}, as the analyzer defines them.
+ */
+public final class AstCache {
+
+    public static final int VERSION = 3;
+
+    private static final int MAGIC = 0x504C4341;
+    private static final int ABSENT = -1;
+
+    private static final int NIL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int INTEGER = 3;
+    private static final int DECIMAL = 4;
+    private static final int CHARACTER = 5;
+    private static final int STRING = 6;
+
+    private static final FlatAst.Kind[] KINDS = FlatAst.Kind.values();
+
+    private final Path directory;
+
+    public AstCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the path of the entry for the given source.
+     */
+    public Path getPath(String source) {
+        StringBuilder name = new StringBuilder();
+        for (byte b : hash(source)) {
+            name.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return directory.resolve(name.append(".ast").toString());
+    }
+
+    /**
+     * Returns the analyzed AST of the source from the cache, or lexes,
+     * parses, and analyzes the source and caches the result.
+     */
+    public Ast.Source load(String source) throws IOException {
+        Ast.Source ast = get(source);
+        if (ast == null) {
+            ast = new Parser(new DfaLexer(source).lexBuffer()).parseSource();
+            new Analyzer(new Scope(null)).visit(ast);
+            put(source, ast);
+        }
+        return ast;
+    }
+
+    /**
+     * Returns the cached AST of the source, or {@code null} if there is no
+     * usable entry.
+     */
+    public Ast.Source get(String source) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(getPath(source), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            byte[] hash = new byte[32];
+            buffer.get(hash);
+            if (!Arrays.equals(hash, hash(source))) {
+                return null;
+            }
+            int checksum = buffer.getInt();
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return null;
+            }
+            return read(buffer);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Caches the AST of the source, replacing any existing entry. The entry
+     * is written to a temporary file and moved into place, so readers never
+     * see a partial entry.
+     */
+    public void put(String source, Ast.Source ast) throws IOException {
+        Files.createDirectories(directory);
+        Path path = getPath(source);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.write(hash(source));
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            write(ast, new DataOutputStream(payload));
+            CRC32 crc = new CRC32();
+            crc.update(payload.toByteArray());
+            output.writeInt((int) crc.getValue());
+            payload.writeTo(output);
+            Files.write(temporary, bytes.toByteArray());
+            try {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static byte[] hash(String source) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Writes the string table followed by the nodes. The nodes are encoded
+     * first, collecting the strings they refer to.
+     */
+    private static void write(Ast.Source ast, DataOutputStream output) throws IOException {
+        Encoder encoder = new Encoder();
+        encoder.source(ast);
+        output.writeInt(encoder.strings.size());
+        for (String string : encoder.strings.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+        encoder.bytes.writeTo(output);
+    }
+
+    private static Ast.Source read(ByteBuffer buffer) {
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        Decoder decoder = new Decoder(buffer, strings);
+        Ast.Source source = decoder.source();
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException("Trailing bytes after AST.");
+        }
+        return source;
+    }
+
+    private static final class Encoder {
+
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private DataOutputStream output = new DataOutputStream(bytes);
+
+        private void source(Ast.Source ast) throws IOException {
+            output.writeInt(ast.getFields().size());
+            for (Ast.Field field : ast.getFields()) {
+                string(field.getName());
+                string(field.getTypeName());
+                expr(field.getValue());
+                variable(Ast.resolved(field::getVariable));
+                output.writeInt(field.getSlot());
+            }
+            output.writeInt(ast.getMethods().size());
+            for (Ast.Method method : ast.getMethods()) {
+                method(method);
+            }
+        }
+
+        /**
+         * Writes the header of a method, then its statements prefixed with
+         * their length in bytes so a reader can skip them.
+         */
+        private void method(Ast.Method ast) throws IOException {
+            string(ast.getName());
+            output.writeInt(ast.getParameters().size());
+            for (int i = 0; i < ast.getParameters().size(); i++) {
+                string(ast.getParameters().get(i));
+                string(ast.getParameterTypeNames().get(i));
+            }
+            string(ast.getReturnTypeName().orElse(null));
+            function(Ast.resolved(ast::getFunction));
+            output.writeInt(ast.getFrameSize());
+
+            ByteArrayOutputStream header = bytes;
+            DataOutputStream headerOutput = output;
+            bytes = new ByteArrayOutputStream();
+            output = new DataOutputStream(bytes);
+            statements(ast.getStatements());
+            headerOutput.writeInt(bytes.size());
+            bytes.writeTo(headerOutput);
+            bytes = header;
+            output = headerOutput;
+        }
+
+        private void statements(List<Ast.Stmt> statements) throws IOException {
+            output.writeInt(statements.size());
+            for (Ast.Stmt statement : statements) {
+                stmt(statement);
+            }
+        }
+
+        /**
+         * Writes the statement followed by its released slots.
+         */
+        private void stmt(Ast.Stmt ast) throws IOException {
+            if (ast instanceof Ast.Stmt.Expression) {
+                kind(FlatAst.Kind.EXPRESSION);
+                expr(((Ast.Stmt.Expression) ast).getExpression());
+            } else if (ast instanceof Ast.Stmt.Declaration) {
+                Ast.Stmt.Declaration declaration = (Ast.Stmt.Declaration) ast;
+                kind(FlatAst.Kind.DECLARATION);
+                string(declaration.getName());
+                string(declaration.getTypeName().orElse(null));
+                expr(declaration.getValue());
+                variable(Ast.resolved(declaration::getVariable));
+                output.writeInt(declaration.getSlot());
+            } else if (ast instanceof Ast.Stmt.Assignment) {
+                kind(FlatAst.Kind.ASSIGNMENT);
+                expr(((Ast.Stmt.Assignment) ast).getReceiver());
+                expr(((Ast.Stmt.Assignment) ast).getValue());
+            } else if (ast instanceof Ast.Stmt.If) {
+                kind(FlatAst.Kind.IF);
+                expr(((Ast.Stmt.If) ast).getCondition());
+                statements(((Ast.Stmt.If) ast).getThenStatements());
+                statements(((Ast.Stmt.If) ast).getElseStatements());
+            } else if (ast instanceof Ast.Stmt.For) {
+                kind(FlatAst.Kind.FOR);
+                string(((Ast.Stmt.For) ast).getName());
+                expr(((Ast.Stmt.For) ast).getValue());
+                statements(((Ast.Stmt.For) ast).getStatements());
+                output.writeInt(((Ast.Stmt.For) ast).getSlot());
+            } else if (ast instanceof Ast.Stmt.While) {
+                kind(FlatAst.Kind.WHILE);
+                expr(((Ast.Stmt.While) ast).getCondition());
+                statements(((Ast.Stmt.While) ast).getStatements());
+            } else if (ast instanceof Ast.Stmt.Return) {
+                kind(FlatAst.Kind.RETURN);
+                expr(((Ast.Stmt.Return) ast).getValue());
+            } else {
+                throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+            }
+            output.writeInt(ast.getReleased().length);
+            for (int slot : ast.getReleased()) {
+                output.writeInt(slot);
+            }
+        }
+
+        private void expr(Optional<Ast.Expr> ast) throws IOException {
+            if (ast.isPresent()) {
+                expr(ast.get());
+            } else {
+                output.writeByte(ABSENT);
+            }
+        }
+
+        private void expr(Ast.Expr ast) throws IOException {
+            if (ast instanceof Ast.Expr.Literal) {
+                kind(FlatAst.Kind.LITERAL);
+                literal(((Ast.Expr.Literal) ast).getLiteral());
+                type(Ast.resolved(ast::getType));
+            } else if (ast instanceof Ast.Expr.Group) {
+                kind(FlatAst.Kind.GROUP);
+                expr(((Ast.Expr.Group) ast).getExpression());
+                type(Ast.resolved(ast::getType));
+            } else if (ast instanceof Ast.Expr.Binary) {
+                kind(FlatAst.Kind.BINARY);
+                string(((Ast.Expr.Binary) ast).getOperator());
+                expr(((Ast.Expr.Binary) ast).getLeft());
+                expr(((Ast.Expr.Binary) ast).getRight());
+                type(Ast.resolved(ast::getType));
+            } else if (ast instanceof Ast.Expr.Access) {
+                kind(FlatAst.Kind.ACCESS);
+                expr(((Ast.Expr.Access) ast).getReceiver());
+                string(((Ast.Expr.Access) ast).getName());
+                variable(Ast.resolved(((Ast.Expr.Access) ast)::getVariable));
+                output.writeInt(((Ast.Expr.Access) ast).getDepth());
+                output.writeInt(((Ast.Expr.Access) ast).getSlot());
+            } else if (ast instanceof Ast.Expr.Function) {
+                Ast.Expr.Function function = (Ast.Expr.Function) ast;
+                kind(FlatAst.Kind.FUNCTION);
+                expr(function.getReceiver());
+                string(function.getName());
+                output.writeInt(function.getArguments().size());
+                for (Ast.Expr argument : function.getArguments()) {
+                    expr(argument);
+                }
+                function(Ast.resolved(function::getFunction));
+            } else {
+                throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+            }
+        }
+
+        private void literal(Object literal) throws IOException {
+            if (literal == null) {
+                output.writeByte(NIL);
+            } else if (literal instanceof Boolean) {
+                output.writeByte((Boolean) literal ? TRUE : FALSE);
+            } else if (literal instanceof BigInteger) {
+                output.writeByte(INTEGER);
+                bytes(((BigInteger) literal).toByteArray());
+            } else if (literal instanceof BigDecimal) {
+                output.writeByte(DECIMAL);
+                bytes(((BigDecimal) literal).unscaledValue().toByteArray());
+                output.writeInt(((BigDecimal) literal).scale());
+            } else if (literal instanceof Character) {
+                output.writeByte(CHARACTER);
+                output.writeChar((Character) literal);
+            } else if (literal instanceof String) {
+                output.writeByte(STRING);
+                string((String) literal);
+            } else {
+                throw new IllegalArgumentException("Unsupported literal " + literal + ".");
+            }
+        }
+
+        private void type(Environment.Type type) throws IOException {
+            string(type == null ? null : type.getName());
+        }
+
+        private void variable(Environment.Variable variable) throws IOException {
+            output.writeBoolean(variable != null);
+            if (variable != null) {
+                string(variable.getName());
+                string(variable.getJvmName());
+                type(variable.getType());
+            }
+        }
+
+        private void function(Environment.Function function) throws IOException {
+            output.writeBoolean(function != null);
+            if (function != null) {
+                string(function.getName());
+                string(function.getJvmName());
+                output.writeInt(function.getParameterTypes().size());
+                for (Environment.Type type : function.getParameterTypes()) {
+                    type(type);
+                }
+                type(function.getReturnType());
+            }
+        }
+
+        private void kind(FlatAst.Kind kind) throws IOException {
+            output.writeByte(kind.ordinal());
+        }
+
+        private void bytes(byte[] value) throws IOException {
+            output.writeInt(value.length);
+            output.write(value);
+        }
+
+        /**
+         * Writes the index of the string in the table, adding it if needed,
+         * or {@link #ABSENT} for {@code null}.
+         */
+        private void string(String string) throws IOException {
+            if (string == null) {
+                output.writeInt(ABSENT);
+            } else {
+                Integer index = strings.get(string);
+                if (index == null) {
+                    index = strings.size();
+                    strings.put(string, index);
+                }
+                output.writeInt(index);
+            }
+        }
+
+    }
+
+    private static final class Decoder {
+
+        private final ByteBuffer buffer;
+        private final String[] strings;
+
+        private Decoder(ByteBuffer buffer, String[] strings) {
+            this.buffer = buffer;
+            this.strings = strings;
+        }
+
+        private Ast.Source source() {
+            List<Ast.Field> fields = new ArrayList<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                Ast.Field field = new Ast.Field(string(), string(), optional());
+                variable(field::setVariable);
+                field.setSlot(buffer.getInt());
+                fields.add(field);
+            }
+            List<Ast.Method> methods = new ArrayList<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                methods.add(method());
+            }
+            return new Ast.Source(fields, methods);
+        }
+
+        /**
+         * Reads the header of a method and skips its statements, which are
+         * decoded from their own view of the buffer when requested.
+         */
+        private Ast.Method method() {
+            String name = string();
+            List<String> parameters = new ArrayList<>();
+            List<String> parameterTypeNames = new ArrayList<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                parameters.add(string());
+                parameterTypeNames.add(string());
+            }
+            Optional<String> returnTypeName = Optional.ofNullable(string());
+            Environment.Function function = function();
+            int frameSize = buffer.getInt();
+            int length = buffer.getInt();
+            ByteBuffer body = buffer.slice();
+            body.limit(length);
+            buffer.position(buffer.position() + length);
+            Ast.Method method = new Ast.Method(name, parameters, parameterTypeNames, returnTypeName, () -> new Decoder(body.duplicate(), strings).statements());
+            if (function != null) {
+                method.setFunction(function);
+            }
+            method.setFrameSize(frameSize);
+            return method;
+        }
+
+        private List<Ast.Stmt> statements() {
+            int count = buffer.getInt();
+            List<Ast.Stmt> statements = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                statements.add(stmt());
+            }
+            return statements;
+        }
+
+        private Ast.Stmt stmt() {
+            Ast.Stmt statement = statement();
+            int[] released = new int[buffer.getInt()];
+            for (int i = 0; i < released.length; i++) {
+                released[i] = buffer.getInt();
+            }
+            statement.setReleased(released);
+            return statement;
+        }
+
+        private Ast.Stmt statement() {
+            switch (kind()) {
+                case EXPRESSION:
+                    return new Ast.Stmt.Expression(expr());
+                case DECLARATION: {
+                    Ast.Stmt.Declaration declaration = new Ast.Stmt.Declaration(string(), Optional.ofNullable(string()), optional());
+                    variable(declaration::setVariable);
+                    declaration.setSlot(buffer.getInt());
+                    return declaration;
+                }
+                case ASSIGNMENT:
+                    return new Ast.Stmt.Assignment(expr(), expr());
+                case IF:
+                    return new Ast.Stmt.If(expr(), statements(), statements());
+                case FOR: {
+                    Ast.Stmt.For loop = new Ast.Stmt.For(string(), expr(), statements());
+                    loop.setSlot(buffer.getInt());
+                    return loop;
+                }
+                case WHILE:
+                    return new Ast.Stmt.While(expr(), statements());
+                case RETURN:
+                    return new Ast.Stmt.Return(expr());
+                default:
+                    throw new IllegalArgumentException("Expected a statement.");
+            }
+        }
+
+        private Optional<Ast.Expr> optional() {
+            if (buffer.get(buffer.position()) == ABSENT) {
+                buffer.get();
+                return Optional.empty();
+            }
+            return Optional.of(expr());
+        }
+
+        private Ast.Expr expr() {
+            switch (kind()) {
+                case LITERAL: {
+                    Ast.Expr.Literal literal = new Ast.Expr.Literal(literal());
+                    Environment.Type type = type();
+                    if (type != null) {
+                        literal.setType(type);
+                    }
+                    return literal;
+                }
+                case GROUP: {
+                    Ast.Expr.Group group = new Ast.Expr.Group(expr());
+                    Environment.Type type = type();
+                    if (type != null) {
+                        group.setType(type);
+                    }
+                    return group;
+                }
+                case BINARY: {
+                    Ast.Expr.Binary binary = new Ast.Expr.Binary(string(), expr(), expr());
+                    Environment.Type type = type();
+                    if (type != null) {
+                        binary.setType(type);
+                    }
+                    return binary;
+                }
+                case ACCESS: {
+                    Ast.Expr.Access access = new Ast.Expr.Access(optional(), string());
+                    variable(access::setVariable);
+                    access.setAddress(buffer.getInt(), buffer.getInt());
+                    return access;
+                }
+                case FUNCTION: {
+                    Optional<Ast.Expr> receiver = optional();
+                    String name = string();
+                    List<Ast.Expr> arguments = new ArrayList<>();
+                    for (int i = buffer.getInt(); i > 0; i--) {
+                        arguments.add(expr());
+                    }
+                    Ast.Expr.Function function = new Ast.Expr.Function(receiver, name, arguments);
+                    Environment.Function resolved = function();
+                    if (resolved != null) {
+                        function.setFunction(resolved);
+                    }
+                    return function;
+                }
+                default:
+                    throw new IllegalArgumentException("Expected an expression.");
+            }
+        }
+
+        private Object literal() {
+            switch (buffer.get()) {
+                case NIL:
+                    return null;
+                case TRUE:
+                    return true;
+                case FALSE:
+                    return false;
+                case INTEGER:
+                    return new BigInteger(bytes());
+                case DECIMAL:
+                    return new BigDecimal(new BigInteger(bytes()), buffer.getInt());
+                case CHARACTER:
+                    return buffer.getChar();
+                case STRING:
+                    return string();
+                default:
+                    throw new IllegalArgumentException("Unknown literal.");
+            }
+        }
+
+        private Environment.Type type() {
+            String name = string();
+            if (name == null) {
+                return null;
+            }
+            try {
+                return Environment.getType(name);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+        }
+
+        private void variable(Consumer<Environment.Variable> setter) {
+            if (buffer.get() != 0) {
+                setter.accept(new Environment.Variable(string(), string(), type(), Environment.NIL));
+            }
+        }
+
+        private Environment.Function function() {
+            if (buffer.get() == 0) {
+                return null;
+            }
+            String name = string();
+            String jvmName = string();
+            List<Environment.Type> parameterTypes = new ArrayList<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                parameterTypes.add(type());
+            }
+            return new Environment.Function(name, jvmName, parameterTypes, type(), args -> Environment.NIL);
+        }
+
+        private FlatAst.Kind kind() {
+            int kind = buffer.get();
+            if (kind < 0 || kind >= KINDS.length) {
+                throw new IllegalArgumentException("Unknown node kind " + kind + ".");
+            }
+            return KINDS[kind];
+        }
+
+        private byte[] bytes() {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        private String string() {
+            int index = buffer.getInt();
+            if (index == ABSENT) {
+                return null;
+            } else if (index < 0 || index >= strings.length) {
+                throw new IllegalArgumentException("Unknown string " + index + ".");
+            }
+            return strings[index];
+        }
+
+    }
+
+}
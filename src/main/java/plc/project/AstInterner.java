@@ -0,0 +1,129 @@
+package plc.project;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Hash-conses constant expressions, so every structurally identical literal,
+ * group, or binary expression built from literals is a single node, and
+ * equal literal values are a single object.
+ *
+ * Only constant expressions are shared, since the type the {@link Analyzer}
+ * sets on them depends only on their structure. Accesses and functions (and
+ * any expression containing them) resolve against the scope they appear in,
+ * so they are always new nodes. As interned nodes are shared, passes which
+ * rewrite the AST must build new nodes rather than modify them in place.
+ *
+ * Children are canonical before their parent is interned, so a node is found
+ * by the identity of its children and {@link #isInterned(Ast.Expr)} nodes can
+ * be compared with {@code ==}. An interner is not thread-safe, but may be
+ * shared by parsers on the same thread to share nodes between sources.
+ */
+public final class AstInterner {
+
+    private static final Object NIL = new Object();
+
+    private final Map<Object, Object> values = new HashMap<>();
+    private final Map<Object, Ast.Expr.Literal> literals = new HashMap<>();
+    private final Map<Ast.Expr, Ast.Expr.Group> groups = new IdentityHashMap<>();
+    private final Map<Key, Ast.Expr.Binary> binaries = new HashMap<>();
+    private final Set<Ast.Expr> interned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Returns the canonical instance of the literal value.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T value(T value) {
+        return value == null ? null : (T) values.computeIfAbsent(value, v -> v);
+    }
+
+    /**
+     * Returns the literal for the value.
+     */
+    public Ast.Expr.Literal literal(Object value) {
+        return literals.computeIfAbsent(value == null ? NIL : value(value), v -> {
+            Ast.Expr.Literal literal = new Ast.Expr.Literal(v == NIL ? null : v);
+            interned.add(literal);
+            return literal;
+        });
+    }
+
+    /**
+     * Returns the group of the expression, which is shared if the expression
+     * is interned.
+     */
+    public Ast.Expr.Group group(Ast.Expr expression) {
+        if (!isInterned(expression)) {
+            return new Ast.Expr.Group(expression);
+        }
+        return groups.computeIfAbsent(expression, e -> {
+            Ast.Expr.Group group = new Ast.Expr.Group(e);
+            interned.add(group);
+            return group;
+        });
+    }
+
+    /**
+     * Returns the binary expression, which is shared if both operands are
+     * interned.
+     */
+    public Ast.Expr.Binary binary(String operator, Ast.Expr left, Ast.Expr right) {
+        if (!isInterned(left) || !isInterned(right)) {
+            return new Ast.Expr.Binary(operator, left, right);
+        }
+        return binaries.computeIfAbsent(new Key(operator, left, right), k -> {
+            Ast.Expr.Binary binary = new Ast.Expr.Binary(operator, left, right);
+            interned.add(binary);
+            return binary;
+        });
+    }
+
+    /**
+     * Returns whether the expression is a canonical node of this interner.
+     */
+    public boolean isInterned(Ast.Expr expression) {
+        return interned.contains(expression);
+    }
+
+    /**
+     * Returns the number of distinct nodes interned.
+     */
+    public int size() {
+        return interned.size();
+    }
+
+    /**
+     * A binary expression by operator and the identity of its operands.
+     */
+    private static final class Key {
+
+        private final String operator;
+        private final Ast.Expr left;
+        private final Ast.Expr right;
+
+        private Key(String operator, Ast.Expr left, Ast.Expr right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key &&
+                    operator.equals(((Key) obj).operator) &&
+                    left == ((Key) obj).left &&
+                    right == ((Key) obj).right;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(operator, System.identityHashCode(left), System.identityHashCode(right));
+        }
+
+    }
+
+}
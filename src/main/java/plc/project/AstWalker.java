@@ -0,0 +1,337 @@
+package plc.project;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Walks an AST depth-first with an explicit stack, so the Java stack does not
+ * grow with the depth of the tree, calling {@link #enter(Ast)} before the
+ * children of each node and {@link #leave(Ast)} after them.
+ *
+ * {@link #leave(Ast)} returns the node to put in place of the one it was
+ * given, which makes the walker a rewriter as well. A node whose children were
+ * replaced is rebuilt with the new children, keeping the type, variable, or
+ * function set on it by the {@link Analyzer} and the address set by the
+ * {@link Resolver}, and every other node is left as is, so a walk which
+ * replaces nothing returns the same tree. Returning
+ * {@code null} removes a field, method, or statement, or empties an optional
+ * expression; it is an error for any other node.
+ *
+ * Method bodies which are parsed lazily are parsed when they are walked.
+ */
+public abstract class AstWalker {
+
+    private final Deque<Frame> stack = new ArrayDeque<>();
+
+    /**
+     * Called before the children of the node are walked. Returning {@code
+     * false} skips the children, but {@link #leave(Ast)} is still called.
+     */
+    protected boolean enter(Ast ast) {
+        return true;
+    }
+
+    /**
+     * Called after the children of the node were walked, with the node
+     * rebuilt if any child was replaced. Returns the replacement for the
+     * node, which is the node itself by default.
+     */
+    protected Ast leave(Ast ast) {
+        return ast;
+    }
+
+    /**
+     * Returns the node whose children are being walked, or {@code null} for
+     * the root. From {@link #enter(Ast)} and {@link #leave(Ast)} this is the
+     * parent of the given node, as it was before any of its children were
+     * replaced.
+     */
+    protected final Ast getParent() {
+        Frame frame = stack.peek();
+        return frame == null ? null : frame.ast;
+    }
+
+    /**
+     * Walks the tree, returning the replacement for the root.
+     */
+    public final Ast walk(Ast root) {
+        if (!stack.isEmpty()) {
+            throw new IllegalStateException("The walker is already walking a tree.");
+        }
+        try {
+            if (!push(root)) {
+                return leave(root);
+            }
+            Ast result = null;
+            while (!stack.isEmpty()) {
+                Frame frame = stack.peek();
+                if (frame.index < frame.children.size()) {
+                    Ast child = frame.children.get(frame.index);
+                    if (child == null) {
+                        frame.index++;
+                    } else if (!push(child)) {
+                        frame.replace(leave(child));
+                    }
+                } else {
+                    stack.pop();
+                    Ast replacement = leave(frame.changed ? rebuild(frame.ast, frame.results) : frame.ast);
+                    if (stack.isEmpty()) {
+                        result = replacement;
+                    } else {
+                        stack.peek().replace(replacement);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            stack.clear();
+        }
+    }
+
+    /**
+     * Walks the tree of a source, which must be replaced by a source.
+     */
+    public final Ast.Source walk(Ast.Source root) {
+        return cast(Ast.Source.class, walk((Ast) root));
+    }
+
+    /**
+     * Walks the tree of an expression, which must be replaced by an
+     * expression.
+     */
+    public final Ast.Expr walk(Ast.Expr root) {
+        return cast(Ast.Expr.class, walk((Ast) root));
+    }
+
+    /**
+     * Enters the node and pushes it if its children are to be walked,
+     * returning whether it was pushed.
+     */
+    private boolean push(Ast ast) {
+        if (enter(ast)) {
+            List<Ast> children = children(ast);
+            if (!children.isEmpty()) {
+                stack.push(new Frame(ast, children));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the children of the node in order, with {@code null} for an
+     * absent optional expression.
+     */
+    private static List<Ast> children(Ast ast) {
+        if (ast instanceof Ast.Source) {
+            List<Ast> children = new ArrayList<>(((Ast.Source) ast).getFields());
+            children.addAll(((Ast.Source) ast).getMethods());
+            return children;
+        } else if (ast instanceof Ast.Field) {
+            return Collections.singletonList(((Ast.Field) ast).getValue().orElse(null));
+        } else if (ast instanceof Ast.Method) {
+            return new ArrayList<>(((Ast.Method) ast).getStatements());
+        } else if (ast instanceof Ast.Stmt.Expression) {
+            return List.of(((Ast.Stmt.Expression) ast).getExpression());
+        } else if (ast instanceof Ast.Stmt.Declaration) {
+            return Collections.singletonList(((Ast.Stmt.Declaration) ast).getValue().orElse(null));
+        } else if (ast instanceof Ast.Stmt.Assignment) {
+            return List.of(((Ast.Stmt.Assignment) ast).getReceiver(), ((Ast.Stmt.Assignment) ast).getValue());
+        } else if (ast instanceof Ast.Stmt.If) {
+            List<Ast> children = new ArrayList<>();
+            children.add(((Ast.Stmt.If) ast).getCondition());
+            children.addAll(((Ast.Stmt.If) ast).getThenStatements());
+            children.addAll(((Ast.Stmt.If) ast).getElseStatements());
+            return children;
+        } else if (ast instanceof Ast.Stmt.For) {
+            List<Ast> children = new ArrayList<>();
+            children.add(((Ast.Stmt.For) ast).getValue());
+            children.addAll(((Ast.Stmt.For) ast).getStatements());
+            return children;
+        } else if (ast instanceof Ast.Stmt.While) {
+            List<Ast> children = new ArrayList<>();
+            children.add(((Ast.Stmt.While) ast).getCondition());
+            children.addAll(((Ast.Stmt.While) ast).getStatements());
+            return children;
+        } else if (ast instanceof Ast.Stmt.Return) {
+            return List.of(((Ast.Stmt.Return) ast).getValue());
+        } else if (ast instanceof Ast.Expr.Literal) {
+            return List.of();
+        } else if (ast instanceof Ast.Expr.Group) {
+            return List.of(((Ast.Expr.Group) ast).getExpression());
+        } else if (ast instanceof Ast.Expr.Binary) {
+            return List.of(((Ast.Expr.Binary) ast).getLeft(), ((Ast.Expr.Binary) ast).getRight());
+        } else if (ast instanceof Ast.Expr.Access) {
+            return Collections.singletonList(((Ast.Expr.Access) ast).getReceiver().orElse(null));
+        } else if (ast instanceof Ast.Expr.Function) {
+            List<Ast> children = new ArrayList<>();
+            children.add(((Ast.Expr.Function) ast).getReceiver().orElse(null));
+            children.addAll(((Ast.Expr.Function) ast).getArguments());
+            return children;
+        } else {
+            throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+        }
+    }
+
+    /**
+     * Returns a copy of the node with the given children, in the order of
+     * {@link #children(Ast)}, keeping any type, variable, function, address,
+     * or released slots set on the node.
+     */
+    private static Ast rebuild(Ast ast, Ast[] children) {
+        if (ast instanceof Ast.Source) {
+            int fields = ((Ast.Source) ast).getFields().size();
+            return new Ast.Source(
+                    list(Ast.Field.class, children, 0, fields),
+                    list(Ast.Method.class, children, fields, children.length)
+            );
+        } else if (ast instanceof Ast.Field) {
+            Ast.Field field = (Ast.Field) ast;
+            Ast.Field rebuilt = new Ast.Field(field.getName(), field.getTypeName(), optional(children[0]));
+            Environment.Variable variable = Ast.resolved(field::getVariable);
+            if (variable != null) {
+                rebuilt.setVariable(variable);
+            }
+            rebuilt.setSlot(field.getSlot());
+            return rebuilt;
+        } else if (ast instanceof Ast.Method) {
+            Ast.Method method = (Ast.Method) ast;
+            Ast.Method rebuilt = new Ast.Method(method.getName(), method.getParameters(), method.getParameterTypeNames(), method.getReturnTypeName(), list(Ast.Stmt.class, children, 0, children.length));
+            Environment.Function function = Ast.resolved(method::getFunction);
+            if (function != null) {
+                rebuilt.setFunction(function);
+            }
+            rebuilt.setFrameSize(method.getFrameSize());
+            return rebuilt;
+        } else if (ast instanceof Ast.Stmt.Expression) {
+            return released(ast, new Ast.Stmt.Expression(expr(children[0])));
+        } else if (ast instanceof Ast.Stmt.Declaration) {
+            Ast.Stmt.Declaration declaration = (Ast.Stmt.Declaration) ast;
+            Ast.Stmt.Declaration rebuilt = new Ast.Stmt.Declaration(declaration.getName(), declaration.getTypeName(), optional(children[0]));
+            Environment.Variable variable = Ast.resolved(declaration::getVariable);
+            if (variable != null) {
+                rebuilt.setVariable(variable);
+            }
+            rebuilt.setSlot(declaration.getSlot());
+            return released(ast, rebuilt);
+        } else if (ast instanceof Ast.Stmt.Assignment) {
+            return released(ast, new Ast.Stmt.Assignment(expr(children[0]), expr(children[1])));
+        } else if (ast instanceof Ast.Stmt.If) {
+            int then = 1 + ((Ast.Stmt.If) ast).getThenStatements().size();
+            return released(ast, new Ast.Stmt.If(expr(children[0]), list(Ast.Stmt.class, children, 1, then), list(Ast.Stmt.class, children, then, children.length)));
+        } else if (ast instanceof Ast.Stmt.For) {
+            Ast.Stmt.For rebuilt = new Ast.Stmt.For(((Ast.Stmt.For) ast).getName(), expr(children[0]), list(Ast.Stmt.class, children, 1, children.length));
+            rebuilt.setSlot(((Ast.Stmt.For) ast).getSlot());
+            return released(ast, rebuilt);
+        } else if (ast instanceof Ast.Stmt.While) {
+            return released(ast, new Ast.Stmt.While(expr(children[0]), list(Ast.Stmt.class, children, 1, children.length)));
+        } else if (ast instanceof Ast.Stmt.Return) {
+            return released(ast, new Ast.Stmt.Return(expr(children[0])));
+        } else if (ast instanceof Ast.Expr.Group) {
+            Ast.Expr.Group rebuilt = new Ast.Expr.Group(expr(children[0]));
+            Environment.Type type = Ast.resolved(((Ast.Expr.Group) ast)::getType);
+            if (type != null) {
+                rebuilt.setType(type);
+            }
+            return rebuilt;
+        } else if (ast instanceof Ast.Expr.Binary) {
+            Ast.Expr.Binary rebuilt = new Ast.Expr.Binary(((Ast.Expr.Binary) ast).getOperator(), expr(children[0]), expr(children[1]));
+            Environment.Type type = Ast.resolved(((Ast.Expr.Binary) ast)::getType);
+            if (type != null) {
+                rebuilt.setType(type);
+            }
+            return rebuilt;
+        } else if (ast instanceof Ast.Expr.Access) {
+            Ast.Expr.Access access = (Ast.Expr.Access) ast;
+            Ast.Expr.Access rebuilt = new Ast.Expr.Access(optional(children[0]), access.getName());
+            Environment.Variable variable = Ast.resolved(access::getVariable);
+            if (variable != null) {
+                rebuilt.setVariable(variable);
+            }
+            rebuilt.setAddress(access.getDepth(), access.getSlot());
+            return rebuilt;
+        } else if (ast instanceof Ast.Expr.Function) {
+            Ast.Expr.Function function = (Ast.Expr.Function) ast;
+            Ast.Expr.Function rebuilt = new Ast.Expr.Function(optional(children[0]), function.getName(), list(Ast.Expr.class, children, 1, children.length));
+            Environment.Function resolved = Ast.resolved(function::getFunction);
+            if (resolved != null) {
+                rebuilt.setFunction(resolved);
+            }
+            return rebuilt;
+        } else {
+            throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+        }
+    }
+
+    /**
+     * Gives the rebuilt statement the released slots of the one it replaces,
+     * which stay correct as rewriting only removes statements and reads.
+     */
+    static Ast.Stmt released(Ast original, Ast.Stmt rebuilt) {
+        rebuilt.setReleased(((Ast.Stmt) original).getReleased());
+        return rebuilt;
+    }
+
+    private static Ast.Expr expr(Ast ast) {
+        if (ast == null) {
+            throw new IllegalStateException("A required expression was removed.");
+        }
+        return cast(Ast.Expr.class, ast);
+    }
+
+    private static Optional<Ast.Expr> optional(Ast ast) {
+        return ast == null ? Optional.empty() : Optional.of(cast(Ast.Expr.class, ast));
+    }
+
+    /**
+     * Returns the children from {@code from} to {@code to} as a list,
+     * dropping those which were removed.
+     */
+    private static <T extends Ast> List<T> list(Class<T> type, Ast[] children, int from, int to) {
+        List<T> list = new ArrayList<>(to - from);
+        for (Ast child : Arrays.asList(children).subList(from, to)) {
+            if (child != null) {
+                list.add(cast(type, child));
+            }
+        }
+        return list;
+    }
+
+    private static <T extends Ast> T cast(Class<T> type, Ast ast) {
+        if (!type.isInstance(ast)) {
+            throw new IllegalStateException("Expected a replacement of type " + type.getName() + ", received " + (ast == null ? null : ast.getClass().getName()) + ".");
+        }
+        return type.cast(ast);
+    }
+
+    /**
+     * A node whose children are being walked, with the replacements of the
+     * children walked so far.
+     */
+    private static final class Frame {
+
+        private final Ast ast;
+        private final List<Ast> children;
+        private final Ast[] results;
+        private int index = 0;
+        private boolean changed = false;
+
+        private Frame(Ast ast, List<Ast> children) {
+            this.ast = ast;
+            this.children = children;
+            this.results = children.toArray(new Ast[0]);
+        }
+
+        private void replace(Ast replacement) {
+            changed |= replacement != results[index];
+            results[index++] = replacement;
+        }
+
+    }
+
+}
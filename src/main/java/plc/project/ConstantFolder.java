@@ -0,0 +1,178 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Folds constant expressions into literals, to be run between the {@link
+ * Analyzer} and the {@link Interpreter} or {@link Generator}.
+ *
+ * A binary expression whose operands are both (non-{@code NIL}) literals is
+ * replaced by a literal of its value, computed by {@link Arithmetic} exactly
+ * as the interpreter computes it, and a group of a literal by the literal.
+ * An expression which would throw when interpreted (such as a division by
+ * zero) is kept, so the error still happens at runtime. With a decimal
+ * operand only {@code < <= > >=} are folded: the interpreter computes
+ * decimals exactly, with equality and concatenation depending on their scale,
+ * while generated code computes with doubles, so folding anything else would
+ * change what the generated program does. For the same reason an integer
+ * operation is only folded while its operands and value fit in an {@code int},
+ * which generated code overflows where the interpreter does not.
+ *
+ * In a source resolved by the {@link Resolver} (as the analyzer does), a
+ * field whose value folds to a literal and which is never assigned is
+ * propagated: every access resolved to it is replaced by the literal, which
+ * lets later fields and expressions fold in turn.
+ *
+ * The AST is not modified; the folded tree shares every unchanged node with
+ * it. A folded literal has the type the analyzer gave the expression, if any.
+ */
+public final class ConstantFolder {
+
+    private static final Set<String> COMPARISONS = Set.of("<", "<=", ">", ">=");
+
+    /**
+     * Folds the constant expressions of the source and propagates its
+     * constant fields.
+     */
+    public Ast.Source fold(Ast.Source ast) {
+        Set<Integer> assigned = new HashSet<>();
+        new AstWalker() {
+
+            @Override
+            protected boolean enter(Ast ast) {
+                if (ast instanceof Ast.Stmt.Assignment && ((Ast.Stmt.Assignment) ast).getReceiver() instanceof Ast.Expr.Access) {
+                    Ast.Expr.Access receiver = (Ast.Expr.Access) ((Ast.Stmt.Assignment) ast).getReceiver();
+                    if (!receiver.getReceiver().isPresent() && receiver.getDepth() == 1) {
+                        assigned.add(receiver.getSlot());
+                    }
+                }
+                return !(ast instanceof Ast.Expr);
+            }
+
+        }.walk(ast);
+        return new Folder(assigned).walk(ast);
+    }
+
+    /**
+     * Folds the constant subexpressions of the expression.
+     */
+    public Ast.Expr fold(Ast.Expr ast) {
+        return new Folder(Set.of()).walk(ast);
+    }
+
+    /**
+     * Returns the value of the operator applied to the literals, or {@code
+     * null} if it is not folded.
+     */
+    private static Object evaluate(String operator, Object left, Object right) {
+        if (left == null || right == null) {
+            return null;
+        } else if ((left instanceof BigDecimal || right instanceof BigDecimal) && !COMPARISONS.contains(operator)) {
+            return null;
+        } else if (!fitsInt(left) || !fitsInt(right)) {
+            return null;
+        }
+        try {
+            if (operator.equals("AND") || operator.equals("OR")) {
+                return Arithmetic.logical(operator, left, right);
+            }
+            Object value = Arithmetic.apply(operator, left, right);
+            return fitsInt(value) ? value : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the value is not an integer, or is one in the range of
+     * an {@code int}.
+     */
+    private static boolean fitsInt(Object value) {
+        return !(value instanceof BigInteger) || ((BigInteger) value).bitLength() <= 31;
+    }
+
+    private static final class Folder extends AstWalker {
+
+        private final Set<Integer> assigned;
+        private final Map<Integer, Ast.Expr.Literal> constants = new HashMap<>();
+        private int fieldDepth = 0;
+
+        private Folder(Set<Integer> assigned) {
+            this.assigned = assigned;
+        }
+
+        @Override
+        protected boolean enter(Ast ast) {
+            if (ast instanceof Ast.Method) {
+                fieldDepth = 1;
+            }
+            return true;
+        }
+
+        @Override
+        protected Ast leave(Ast ast) {
+            if (ast instanceof Ast.Method) {
+                fieldDepth = 0;
+            } else if (ast instanceof Ast.Field) {
+                Ast.Field field = (Ast.Field) ast;
+                if (field.getSlot() >= 0 && !assigned.contains(field.getSlot()) && field.getValue().orElse(null) instanceof Ast.Expr.Literal) {
+                    constants.put(field.getSlot(), (Ast.Expr.Literal) field.getValue().get());
+                }
+            } else if (ast instanceof Ast.Expr.Access) {
+                Ast.Expr.Access access = (Ast.Expr.Access) ast;
+                if (!access.getReceiver().isPresent() && access.getDepth() == fieldDepth && constants.containsKey(access.getSlot())) {
+                    return propagate(constants.get(access.getSlot()), access);
+                }
+            } else if (ast instanceof Ast.Expr.Group) {
+                if (((Ast.Expr.Group) ast).getExpression() instanceof Ast.Expr.Literal) {
+                    return ((Ast.Expr.Group) ast).getExpression();
+                }
+            } else if (ast instanceof Ast.Expr.Binary) {
+                Ast.Expr.Binary binary = (Ast.Expr.Binary) ast;
+                if (binary.getLeft() instanceof Ast.Expr.Literal && binary.getRight() instanceof Ast.Expr.Literal) {
+                    Object value = evaluate(binary.getOperator(), ((Ast.Expr.Literal) binary.getLeft()).getLiteral(), ((Ast.Expr.Literal) binary.getRight()).getLiteral());
+                    if (value != null) {
+                        Ast.Expr.Literal literal = new Ast.Expr.Literal(value);
+                        literal.setType(Ast.resolved(binary::getType));
+                        return literal;
+                    }
+                }
+            }
+            return ast;
+        }
+
+        /**
+         * Returns the value of a field for an access to it. The analyzer does
+         * not visit fields, so if the access was analyzed the literal is
+         * copied with the type of its value.
+         */
+        private static Ast.Expr.Literal propagate(Ast.Expr.Literal literal, Ast.Expr.Access access) {
+            if (Ast.resolved(literal::getType) != null || Ast.resolved(access::getVariable) == null) {
+                return literal;
+            }
+            Ast.Expr.Literal typed = new Ast.Expr.Literal(literal.getLiteral());
+            Object value = literal.getLiteral();
+            if (value instanceof BigInteger) {
+                typed.setType(Environment.Type.INTEGER);
+            } else if (value instanceof BigDecimal) {
+                typed.setType(Environment.Type.DECIMAL);
+            } else if (value instanceof String) {
+                typed.setType(Environment.Type.STRING);
+            } else if (value instanceof Character) {
+                typed.setType(Environment.Type.CHARACTER);
+            } else if (value instanceof Boolean) {
+                typed.setType(Environment.Type.BOOLEAN);
+            } else {
+                typed.setType(Environment.Type.NIL);
+            }
+            return typed;
+        }
+
+    }
+
+}
@@ -0,0 +1,155 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The control flow between the statements of a method, with a node for each
+ * statement (nested ones included) and one for the exit of the method.
+ *
+ * A statement flows to the one after it in its block, and the last statement
+ * of a block to the statement after the block. An {@code IF} stands for its
+ * condition, flowing to the first statement of each branch, or past the
+ * {@code IF} for an empty one. A {@code WHILE} or {@code FOR} stands for the
+ * test of each iteration (and for a {@code FOR}, assigning the loop variable),
+ * flowing into the body and past the loop, with the end of the body flowing
+ * back to it. A {@code RETURN}, or falling off the end of the method, flows to
+ * the exit.
+ *
+ * Nodes are found by the identity of their statement, since equal statements
+ * may appear more than once.
+ */
+public final class ControlFlowGraph {
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<Ast.Stmt, Node> statements = new IdentityHashMap<>();
+    private final Node exit = new Node(null);
+    private final Node entry;
+
+    public ControlFlowGraph(Ast.Method method) {
+        create(method.getStatements());
+        nodes.add(exit);
+        connect(method.getStatements(), exit);
+        entry = first(method.getStatements(), exit);
+    }
+
+    /**
+     * Returns the nodes of the statements in the order they appear in the
+     * method, followed by the exit.
+     */
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public Node getEntry() {
+        return entry;
+    }
+
+    public Node getExit() {
+        return exit;
+    }
+
+    /**
+     * Returns the node of the statement, which must be a statement of the
+     * method.
+     */
+    public Node getNode(Ast.Stmt statement) {
+        Node node = statements.get(statement);
+        if (node == null) {
+            throw new IllegalArgumentException("The statement is not part of the method.");
+        }
+        return node;
+    }
+
+    private void create(List<Ast.Stmt> block) {
+        for (Ast.Stmt statement : block) {
+            Node node = new Node(statement);
+            nodes.add(node);
+            statements.put(statement, node);
+            if (statement instanceof Ast.Stmt.If) {
+                create(((Ast.Stmt.If) statement).getThenStatements());
+                create(((Ast.Stmt.If) statement).getElseStatements());
+            } else if (statement instanceof Ast.Stmt.While) {
+                create(((Ast.Stmt.While) statement).getStatements());
+            } else if (statement instanceof Ast.Stmt.For) {
+                create(((Ast.Stmt.For) statement).getStatements());
+            }
+        }
+    }
+
+    /**
+     * Adds the edges from the statements of the block, the last of which
+     * flows to {@code follow}.
+     */
+    private void connect(List<Ast.Stmt> block, Node follow) {
+        for (int i = 0; i < block.size(); i++) {
+            Ast.Stmt statement = block.get(i);
+            Node node = statements.get(statement);
+            Node next = i + 1 < block.size() ? statements.get(block.get(i + 1)) : follow;
+            if (statement instanceof Ast.Stmt.Return) {
+                node.edge(exit);
+            } else if (statement instanceof Ast.Stmt.If) {
+                Ast.Stmt.If branch = (Ast.Stmt.If) statement;
+                node.edge(first(branch.getThenStatements(), next));
+                node.edge(first(branch.getElseStatements(), next));
+                connect(branch.getThenStatements(), next);
+                connect(branch.getElseStatements(), next);
+            } else if (statement instanceof Ast.Stmt.While || statement instanceof Ast.Stmt.For) {
+                List<Ast.Stmt> body = statement instanceof Ast.Stmt.While
+                        ? ((Ast.Stmt.While) statement).getStatements()
+                        : ((Ast.Stmt.For) statement).getStatements();
+                node.edge(first(body, node));
+                node.edge(next);
+                connect(body, node);
+            } else {
+                node.edge(next);
+            }
+        }
+    }
+
+    private Node first(List<Ast.Stmt> block, Node follow) {
+        return block.isEmpty() ? follow : statements.get(block.get(0));
+    }
+
+    public static final class Node {
+
+        private final Ast.Stmt statement;
+        private final List<Node> successors = new ArrayList<>();
+        private final List<Node> predecessors = new ArrayList<>();
+
+        private Node(Ast.Stmt statement) {
+            this.statement = statement;
+        }
+
+        /**
+         * Returns the statement of the node, or {@code null} for the exit.
+         */
+        public Ast.Stmt getStatement() {
+            return statement;
+        }
+
+        public List<Node> getSuccessors() {
+            return successors;
+        }
+
+        public List<Node> getPredecessors() {
+            return predecessors;
+        }
+
+        private void edge(Node successor) {
+            if (!successors.contains(successor)) {
+                successors.add(successor);
+                successor.predecessors.add(this);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return statement == null ? "exit" : statement.getClass().getSimpleName();
+        }
+
+    }
+
+}
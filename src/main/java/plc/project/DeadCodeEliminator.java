@@ -0,0 +1,245 @@
+package plc.project;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes code which can never run, to be run after the {@link
+ * ConstantFolder} so conditions it folds are removed as well:
+ *
+ * <ul>
+ *     <li>statements after a {@code RETURN}, or after an {@code IF} whose
+ *     branches both end in one,</li>
+ *     <li>{@code IF} statements with a literal condition, which are replaced
+ *     by the branch taken, and {@code WHILE} loops with a literal {@code
+ *     FALSE} condition,</li>
+ *     <li>methods which cannot be called from {@code main/0} or from a field,
+ *     if the source has a {@code main/0}.</li>
+ * </ul>
+ *
+ * The statements of the branch taken are moved into the enclosing block,
+ * unless the branch declares variables, in which case it is kept as an
+ * {@code IF TRUE} so they stay in their own scope. Calls are matched by name
+ * and arity, and calls with a receiver are methods of objects, which are
+ * never removed.
+ *
+ * The AST is not modified, and {@link #getEliminated()} reports how many
+ * nodes (statements and expressions included) were removed.
+ */
+public final class DeadCodeEliminator {
+
+    private int eliminated = 0;
+
+    /**
+     * Returns the number of nodes removed by the last call to {@link
+     * #eliminate(Ast.Source)}.
+     */
+    public int getEliminated() {
+        return eliminated;
+    }
+
+    public Ast.Source eliminate(Ast.Source ast) {
+        eliminated = 0;
+        Ast.Source result = new AstWalker() {
+
+            @Override
+            protected Ast leave(Ast ast) {
+                if (ast instanceof Ast.Method) {
+                    Ast.Method method = (Ast.Method) ast;
+                    List<Ast.Stmt> statements = block(method.getStatements());
+                    if (statements == method.getStatements()) {
+                        return method;
+                    }
+                    Ast.Method rebuilt = new Ast.Method(method.getName(), method.getParameters(), method.getParameterTypeNames(), method.getReturnTypeName(), statements);
+                    Environment.Function function = Ast.resolved(method::getFunction);
+                    if (function != null) {
+                        rebuilt.setFunction(function);
+                    }
+                    rebuilt.setFrameSize(method.getFrameSize());
+                    return rebuilt;
+                } else if (ast instanceof Ast.Stmt.If) {
+                    Ast.Stmt.If branch = (Ast.Stmt.If) ast;
+                    List<Ast.Stmt> thenStatements = block(branch.getThenStatements());
+                    List<Ast.Stmt> elseStatements = block(branch.getElseStatements());
+                    if (thenStatements == branch.getThenStatements() && elseStatements == branch.getElseStatements()) {
+                        return branch;
+                    }
+                    return AstWalker.released(branch, new Ast.Stmt.If(branch.getCondition(), thenStatements, elseStatements));
+                } else if (ast instanceof Ast.Stmt.For) {
+                    Ast.Stmt.For loop = (Ast.Stmt.For) ast;
+                    List<Ast.Stmt> statements = block(loop.getStatements());
+                    if (statements == loop.getStatements()) {
+                        return loop;
+                    }
+                    Ast.Stmt.For rebuilt = new Ast.Stmt.For(loop.getName(), loop.getValue(), statements);
+                    rebuilt.setSlot(loop.getSlot());
+                    return AstWalker.released(loop, rebuilt);
+                } else if (ast instanceof Ast.Stmt.While) {
+                    Ast.Stmt.While loop = (Ast.Stmt.While) ast;
+                    List<Ast.Stmt> statements = block(loop.getStatements());
+                    return statements == loop.getStatements() ? loop : AstWalker.released(loop, new Ast.Stmt.While(loop.getCondition(), statements));
+                }
+                return ast;
+            }
+
+            @Override
+            protected boolean enter(Ast ast) {
+                return !(ast instanceof Ast.Expr);
+            }
+
+        }.walk(ast);
+        return methods(result);
+    }
+
+    /**
+     * Returns the statements of a block without those which can never run,
+     * or the same list if there are none.
+     */
+    private List<Ast.Stmt> block(List<Ast.Stmt> statements) {
+        List<Ast.Stmt> result = new ArrayList<>();
+        boolean changed = false;
+        for (int i = 0; i < statements.size(); i++) {
+            Ast.Stmt statement = statements.get(i);
+            Boolean condition = null;
+            if (statement instanceof Ast.Stmt.If) {
+                condition = literal(((Ast.Stmt.If) statement).getCondition());
+            } else if (statement instanceof Ast.Stmt.While && Boolean.FALSE.equals(literal(((Ast.Stmt.While) statement).getCondition()))) {
+                eliminated += count(statement);
+                changed = true;
+                continue;
+            }
+            if (condition != null) {
+                Ast.Stmt.If branch = (Ast.Stmt.If) statement;
+                List<Ast.Stmt> taken = condition ? branch.getThenStatements() : branch.getElseStatements();
+                List<Ast.Stmt> skipped = condition ? branch.getElseStatements() : branch.getThenStatements();
+                for (Ast.Stmt skip : skipped) {
+                    eliminated += count(skip);
+                }
+                if (taken.stream().anyMatch(s -> s instanceof Ast.Stmt.Declaration)) {
+                    if (condition) {
+                        result.add(skipped.isEmpty() ? branch : AstWalker.released(branch, new Ast.Stmt.If(branch.getCondition(), taken, List.of())));
+                    } else {
+                        Ast.Expr.Literal always = new Ast.Expr.Literal(true);
+                        if (Ast.resolved(branch.getCondition()::getType) != null) {
+                            always.setType(Environment.Type.BOOLEAN);
+                        }
+                        eliminated += count(branch.getCondition());
+                        result.add(AstWalker.released(branch, new Ast.Stmt.If(always, taken, List.of())));
+                    }
+                    changed |= !skipped.isEmpty() || !condition;
+                } else {
+                    eliminated += 1 + count(branch.getCondition());
+                    result.addAll(taken);
+                    changed = true;
+                }
+            } else {
+                result.add(statement);
+            }
+            if (!result.isEmpty() && terminates(result.get(result.size() - 1))) {
+                for (Ast.Stmt unreachable : statements.subList(i + 1, statements.size())) {
+                    eliminated += count(unreachable);
+                    changed = true;
+                }
+                break;
+            }
+        }
+        return changed ? result : statements;
+    }
+
+    /**
+     * Returns the source without the methods which cannot be called, or the
+     * same source if there are none.
+     */
+    private Ast.Source methods(Ast.Source ast) {
+        Map<String, Ast.Method> methods = new HashMap<>();
+        for (Ast.Method method : ast.getMethods()) {
+            methods.put(method.getName() + "/" + method.getParameters().size(), method);
+        }
+        if (!methods.containsKey("main/0")) {
+            return ast;
+        }
+        Set<Ast.Method> reachable = new LinkedHashSet<>();
+        Deque<Ast> pending = new ArrayDeque<>(ast.getFields());
+        pending.add(methods.get("main/0"));
+        while (!pending.isEmpty()) {
+            Ast next = pending.pop();
+            if (next instanceof Ast.Method && !reachable.add((Ast.Method) next)) {
+                continue;
+            }
+            new AstWalker() {
+
+                @Override
+                protected Ast leave(Ast ast) {
+                    if (ast instanceof Ast.Expr.Function && !((Ast.Expr.Function) ast).getReceiver().isPresent()) {
+                        Ast.Expr.Function function = (Ast.Expr.Function) ast;
+                        Ast.Method method = methods.get(function.getName() + "/" + function.getArguments().size());
+                        if (method != null && !reachable.contains(method)) {
+                            pending.add(method);
+                        }
+                    }
+                    return ast;
+                }
+
+            }.walk(next);
+        }
+        if (reachable.size() == ast.getMethods().size()) {
+            return ast;
+        }
+        List<Ast.Method> kept = new ArrayList<>();
+        for (Ast.Method method : ast.getMethods()) {
+            if (reachable.contains(method)) {
+                kept.add(method);
+            } else {
+                eliminated += count(method);
+            }
+        }
+        return new Ast.Source(ast.getFields(), kept);
+    }
+
+    /**
+     * Returns the value of a boolean literal, or {@code null} if the
+     * expression is not one.
+     */
+    private static Boolean literal(Ast.Expr expr) {
+        if (expr instanceof Ast.Expr.Literal && ((Ast.Expr.Literal) expr).getLiteral() instanceof Boolean) {
+            return (Boolean) ((Ast.Expr.Literal) expr).getLiteral();
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether the statement always returns, so nothing after it runs.
+     */
+    private static boolean terminates(Ast.Stmt statement) {
+        if (statement instanceof Ast.Stmt.Return) {
+            return true;
+        } else if (statement instanceof Ast.Stmt.If) {
+            List<Ast.Stmt> thenStatements = ((Ast.Stmt.If) statement).getThenStatements();
+            List<Ast.Stmt> elseStatements = ((Ast.Stmt.If) statement).getElseStatements();
+            return !thenStatements.isEmpty() && terminates(thenStatements.get(thenStatements.size() - 1)) &&
+                    !elseStatements.isEmpty() && terminates(elseStatements.get(elseStatements.size() - 1));
+        }
+        return false;
+    }
+
+    private static int count(Ast ast) {
+        int[] count = new int[1];
+        new AstWalker() {
+
+            @Override
+            protected Ast leave(Ast ast) {
+                count[0]++;
+                return ast;
+            }
+
+        }.walk(ast);
+        return count[0];
+    }
+
+}
@@ -0,0 +1,408 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * A table-driven alternative to {@link Lexer}. Instead of matching a regex
+ * against every character, each character is classified through a
+ * precomputed table and tokens are recognized by a direct-coded state machine
+ * that only ever looks at {@code char}s.
+ *
+ * The resulting token stream is identical to {@link Lexer#lex()}, including
+ * the message and index of any {@link ParseException}, so the two can be used
+ * interchangeably.
+ *
+ * Besides a {@link String}, the input may be a {@link Reader} or a {@link
+ * ReadableByteChannel}, which are read through a fixed-size buffer. Tokens can
+ * then be pulled one at a time through {@link #iterator()} (for example by
+ * {@link Parser#Parser(Iterator)}) so neither the source nor the token list
+ * has to be held in memory. Large files can instead be lexed straight from
+ * their UTF-8 bytes with {@link #map(Path)}, which keeps the source in the
+ * page cache rather than on the heap.
+ *
+ * Identifiers are interned into a {@link SymbolTable} and every keyword and
+ * operator is tagged with its {@link Token.Kind} while it is scanned, so later
+ * stages never need to compare literals.
+ */
+public final class DfaLexer {
+
+    private static final int WHITESPACE = 1;
+    private static final int IDENTIFIER_START = 2;
+    private static final int IDENTIFIER_PART = 4;
+    private static final int DIGIT = 8;
+    private static final int SIGN = 16;
+    private static final int COMPARISON = 32;
+    private static final int ESCAPE = 64;
+
+    /**
+     * Character classes for the ASCII range; everything else has no class.
+     * The whitespace class mirrors {@code [\b\r\n\t\s]} in {@link Lexer#lex()}.
+     */
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        for (char c : "\b\t\n\u000B\f\r ".toCharArray()) {
+            CLASSES[c] |= WHITESPACE;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            CLASSES[c] |= IDENTIFIER_START | IDENTIFIER_PART;
+            CLASSES[Character.toLowerCase(c)] |= IDENTIFIER_START | IDENTIFIER_PART;
+        }
+        CLASSES['_'] |= IDENTIFIER_START | IDENTIFIER_PART;
+        CLASSES['-'] |= IDENTIFIER_PART | SIGN;
+        CLASSES['+'] |= SIGN;
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] |= IDENTIFIER_PART | DIGIT;
+        }
+        for (char c : "!=<>".toCharArray()) {
+            CLASSES[c] |= COMPARISON;
+        }
+        for (char c : "bnrt'\"\\".toCharArray()) {
+            CLASSES[c] |= ESCAPE;
+        }
+    }
+
+    /**
+     * Kinds of single-character operators, indexed by character.
+     */
+    private static final Token.Kind[] OPERATORS = new Token.Kind[128];
+
+    static {
+        for (Token.Kind kind : Token.Kind.values()) {
+            if (kind.getType() == Token.Type.OPERATOR && kind.getLiteral() != null && kind.getLiteral().length() == 1) {
+                OPERATORS[kind.getLiteral().charAt(0)] = kind;
+            }
+        }
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final LexerInput input;
+    private final SymbolTable symbols;
+    private int start = 0;
+    private int index = 0;
+    private int symbol = -1;
+    private LineMap lines;
+
+    public DfaLexer(String input) {
+        this(input, new SymbolTable());
+    }
+
+    public DfaLexer(String input, SymbolTable symbols) {
+        this(new LexerInput.StringInput(input), symbols);
+    }
+
+    public DfaLexer(Reader reader) {
+        this(reader, BUFFER_SIZE);
+    }
+
+    public DfaLexer(ReadableByteChannel channel) {
+        this(Channels.newReader(channel, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lexes UTF-8 encoded bytes in place. Only non-ASCII characters, which
+     * are otherwise confined to literals, are decoded as they are read.
+     */
+    public DfaLexer(ByteBuffer utf8) {
+        this(new LexerInput.Utf8Input(utf8), new SymbolTable());
+    }
+
+    /**
+     * Returns a lexer over the memory-mapped contents of the given UTF-8
+     * file. Since the mapping is retained, {@link #lexBuffer()} is supported
+     * and literals are decoded from the mapping on demand.
+     */
+    public static DfaLexer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new DfaLexer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    DfaLexer(Reader reader, int bufferSize) {
+        this(new LexerInput.ReaderInput(reader, bufferSize), new SymbolTable());
+    }
+
+    DfaLexer(LexerInput input, SymbolTable symbols) {
+        this.input = input;
+        this.symbols = symbols;
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Returns the line map of the input, for reporting token and error
+     * positions as lines and columns. Streamed inputs are not retained, so
+     * they have no line map.
+     */
+    public LineMap getLineMap() {
+        if (!input.isRetained()) {
+            throw new IllegalStateException("A line map requires an in-memory source.");
+        }
+        if (lines == null) {
+            lines = new LineMap(input);
+        }
+        return lines;
+    }
+
+    /**
+     * Lexes the entire input, skipping whitespace between tokens.
+     */
+    public List<Token> lex() {
+        List<Token> tokens = new ArrayList<>();
+        for (Token token = next(); token != null; token = next()) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns an iterator lexing one token at a time. Since lexing happens
+     * on demand, {@link Iterator#hasNext()} may throw a {@link
+     * ParseException}.
+     */
+    public Iterator<Token> iterator() {
+        return new Iterator<Token>() {
+
+            private Token next = null;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    next = DfaLexer.this.next();
+                }
+                return next != null;
+            }
+
+            @Override
+            public Token next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Token token = next;
+                next = null;
+                return token;
+            }
+
+        };
+    }
+
+    /**
+     * Lexes the entire input into a {@link TokenBuffer}, which references the
+     * source instead of allocating a {@link Token} per token. This requires an
+     * in-memory source, not a {@link Reader} or channel.
+     */
+    public TokenBuffer lexBuffer() {
+        if (!input.isRetained()) {
+            throw new IllegalStateException("A token buffer requires an in-memory source.");
+        }
+        TokenBuffer buffer = new TokenBuffer(input, symbols);
+        for (Token.Kind kind = scan(); kind != null; kind = scan()) {
+            buffer.add(kind, start, index - start, symbol);
+        }
+        return buffer;
+    }
+
+    /**
+     * Lexes the tokens which start before {@code to} into the buffer, starting
+     * from {@code from}, which must not be inside a token. Returns the index
+     * where the next token starts, or the end of the input.
+     */
+    int lexRange(int from, int to, TokenBuffer buffer) {
+        index = skipWhitespace(from);
+        while (index < to && input.has(index)) {
+            start = index;
+            symbol = -1;
+            Token.Kind kind = lexToken();
+            buffer.add(kind, start, index - start, symbol);
+            index = skipWhitespace(index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the first index at or after {@code index} which is not
+     * whitespace, or the end of the input.
+     */
+    int skipWhitespace(int index) {
+        while (input.has(index) && is(input.get(index), WHITESPACE)) {
+            index++;
+        }
+        return index;
+    }
+
+    public Spliterator<Token> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    /**
+     * Skips whitespace and lexes the next token, returning {@code null} at
+     * the end of the input.
+     */
+    private Token next() {
+        Token.Kind kind = scan();
+        if (kind == null) {
+            return null;
+        } else if (symbol != -1) {
+            return new Token(kind, kind.getType(), symbols.getName(symbol), start);
+        } else if (kind.getLiteral() != null) {
+            return new Token(kind, kind.getType(), kind.getLiteral(), start);
+        } else if (kind == Token.Kind.CHARACTER || kind == Token.Kind.STRING) {
+            return new Token(kind, kind.getType(), input.substring(start, index), start, input.unescape(start + 1, index - 1));
+        } else {
+            return new Token(kind, kind.getType(), input.substring(start, index), start);
+        }
+    }
+
+    /**
+     * Skips whitespace and scans the next token, leaving it between {@link
+     * #start} and {@link #index}, and identifiers interned as {@link #symbol}.
+     * Returns the token kind, or {@code null} at the end of the input.
+     */
+    private Token.Kind scan() {
+        symbol = -1;
+        while (input.has(index)) {
+            input.release(index);
+            if (is(input.get(index), WHITESPACE)) {
+                index++;
+            } else {
+                start = index;
+                return lexToken();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lexes the token starting at the current index, which must not be
+     * whitespace. The state is chosen from the class of the first character,
+     * following the same priority as {@link Lexer#lexToken()}.
+     */
+    private Token.Kind lexToken() {
+        char c = input.get(start);
+
+        if (is(c, IDENTIFIER_START)) {
+            index = skip(start + 1, IDENTIFIER_PART);
+            symbol = symbols.intern(input, start, index - start);
+            return symbols.getKind(symbol);
+        } else if (is(c, DIGIT) || is(c, SIGN) && has(start + 1) && is(input.get(start + 1), DIGIT)) {
+            return lexNumber();
+        } else if (c == '\'') {
+            return lexCharacter();
+        } else if (c == '"') {
+            return lexString();
+        } else {
+            return lexOperator();
+        }
+    }
+
+    private Token.Kind lexNumber() {
+        int end = skip(is(input.get(start), SIGN) ? start + 1 : start, DIGIT);
+
+        if (has(end + 1) && input.get(end) == '.' && is(input.get(end + 1), DIGIT)) {
+            index = skip(end + 1, DIGIT);
+            return Token.Kind.DECIMAL;
+        }
+
+        index = end;
+        return Token.Kind.INTEGER;
+    }
+
+    private Token.Kind lexCharacter() {
+        if (has(start + 2) && !isLineTerminator(input.get(start + 1)) && input.get(start + 2) == '\'') {
+            index = start + 3;
+        } else if (has(start + 3) && input.get(start + 1) == '\\'
+                && is(input.get(start + 2), ESCAPE) && input.get(start + 3) == '\'') {
+            index = start + 4;
+        } else {
+            throw new ParseException("Error: Exceeds Character Limit", start);
+        }
+
+        return Token.Kind.CHARACTER;
+    }
+
+    private Token.Kind lexString() {
+        int end = start + 1;
+
+        while (has(end) && input.get(end) != '"') {
+            if (input.get(end) == '\\') {
+                end++;
+                if (!has(end) || !is(input.get(end), ESCAPE)) {
+                    throw new ParseException("Error: Invalid Escape", end);
+                }
+                // Lexer#lexString advances once more after a valid escape,
+                // which skips the following character unchecked.
+                end += 2;
+            } else {
+                end++;
+            }
+        }
+
+        if (!has(end)) {
+            throw new ParseException("Error: Unterminated String", end);
+        }
+
+        index = end + 1;
+        return Token.Kind.STRING;
+    }
+
+    private Token.Kind lexOperator() {
+        char c = input.get(start);
+
+        if (has(start + 1) && is(c, COMPARISON) && input.get(start + 1) == '=') {
+            index = start + 2;
+            switch (c) {
+                case '<': return Token.Kind.LESS_EQUAL;
+                case '>': return Token.Kind.GREATER_EQUAL;
+                case '=': return Token.Kind.EQUAL_EQUAL;
+                default: return Token.Kind.NOT_EQUAL;
+            }
+        }
+
+        index = start + 1;
+        return c < 128 && OPERATORS[c] != null ? OPERATORS[c] : Token.Kind.OPERATOR;
+    }
+
+    /**
+     * Returns the first index at or after {@code index} whose character is not
+     * in the given class.
+     */
+    private int skip(int index, int type) {
+        while (has(index) && is(input.get(index), type)) {
+            index++;
+        }
+        return index;
+    }
+
+    private boolean has(int index) {
+        return input.has(index);
+    }
+
+    private static boolean is(char c, int type) {
+        return c < 128 && (CLASSES[c] & type) != 0;
+    }
+
+    /**
+     * Characters not matched by {@code .} in a (non-DOTALL) Java regex.
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+}
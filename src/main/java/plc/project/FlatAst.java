@@ -0,0 +1,569 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A compact encoding of an {@link Ast.Source}. Rather than an object per node
+ * with {@link Optional} and {@link List} children, every node is an integer
+ * index into two arrays: its {@link Kind}, and an offset into a shared array
+ * of operands laid out per kind (child nodes, counts, and indices into a pool
+ * of names and literal values, each stored once). Missing children and names
+ * are {@code -1}, and nodes are stored children first, so the root is the
+ * last node.
+ *
+ * Nodes are read through the accessors below, which take the node index. To
+ * run an existing {@link Ast.Visitor}, {@link #toAst()} adapts the encoding
+ * back into a tree in which method bodies are only decoded once requested,
+ * so a visitor which skips a method never allocates it. Resolved types,
+ * variables, and functions are set on the decoded nodes.
+ */
+public final class FlatAst {
+
+    public enum Kind {
+        SOURCE,
+        FIELD,
+        METHOD,
+        EXPRESSION,
+        DECLARATION,
+        ASSIGNMENT,
+        IF,
+        FOR,
+        WHILE,
+        RETURN,
+        LITERAL,
+        GROUP,
+        BINARY,
+        ACCESS,
+        FUNCTION
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private byte[] kinds = new byte[64];
+    private int[] offsets = new int[64];
+    private int size = 0;
+    private int[] operands = new int[256];
+    private int length = 0;
+    private Object[] pool = new Object[64];
+    private int pooled = 0;
+    private final Map<Object, Integer> indices = new HashMap<>();
+
+    private FlatAst() {}
+
+    /**
+     * Encodes an existing tree.
+     */
+    public static FlatAst of(Ast.Source source) {
+        FlatAst ast = new FlatAst();
+        List<Ast> declarations = new ArrayList<>(source.getFields());
+        declarations.addAll(source.getMethods());
+        int[] nodes = new int[declarations.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = ast.add(declarations.get(i));
+        }
+        ast.source(source.getFields().size(), nodes);
+        ast.trim();
+        return ast;
+    }
+
+    /**
+     * Parses the tokens one declaration at a time, encoding each before
+     * parsing the next, so the full tree is never built. The result (or
+     * exception) is the same as from {@link Parser#parseSource()}, except
+     * that a stray top-level identifier is an error rather than a hang.
+     */
+    public static FlatAst parse(TokenBuffer tokens) throws ParseException {
+        FlatAst ast = new FlatAst();
+        Parser parser = new Parser(tokens, 0);
+        List<Integer> fields = new ArrayList<>();
+        List<Integer> methods = new ArrayList<>();
+        int position = 0;
+        while (position < tokens.size() && tokens.getType(position) == Token.Type.IDENTIFIER) {
+            if (tokens.getKind(position) == Token.Kind.LET) {
+                fields.add(ast.add(parser.parseField()));
+            } else if (tokens.getKind(position) == Token.Kind.DEF) {
+                methods.add(ast.add(parser.parseMethod()));
+            } else {
+                throw new ParseException("No LET or DEF: " + tokens.getIndex(position), tokens.getIndex(position));
+            }
+            position = parser.getPosition();
+        }
+        fields.addAll(methods);
+        ast.source(fields.size() - methods.size(), fields.stream().mapToInt(Integer::intValue).toArray());
+        ast.trim();
+        return ast;
+    }
+
+    /**
+     * Returns the number of nodes.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getRoot() {
+        return size - 1;
+    }
+
+    public Kind getKind(int node) {
+        return KINDS[kinds[check(node)]];
+    }
+
+    public int getFieldCount(int source) {
+        return operand(source, Kind.SOURCE, 0);
+    }
+
+    public int getField(int source, int index) {
+        return operand(source, Kind.SOURCE, 2 + check(index, getFieldCount(source)));
+    }
+
+    public int getMethodCount(int source) {
+        return operand(source, Kind.SOURCE, 1);
+    }
+
+    public int getMethod(int source, int index) {
+        return operand(source, Kind.SOURCE, 2 + getFieldCount(source) + check(index, getMethodCount(source)));
+    }
+
+    /**
+     * Returns the name of a field, method, declaration, for loop, access, or
+     * function.
+     */
+    public String getName(int node) {
+        switch (getKind(node)) {
+            case ACCESS:
+            case FUNCTION:
+                return name(operands[offsets[node] + 1]);
+            case FIELD:
+            case METHOD:
+            case DECLARATION:
+            case FOR:
+                return name(operands[offsets[node]]);
+            default:
+                throw new IllegalArgumentException("Node " + node + " is a " + getKind(node) + ", which has no name");
+        }
+    }
+
+    /**
+     * Returns the type name of a field or declaration, or the return type
+     * name of a method, or {@code null} if none was given.
+     */
+    public String getTypeName(int node) {
+        Kind kind = getKind(node);
+        if (kind != Kind.FIELD && kind != Kind.METHOD && kind != Kind.DECLARATION) {
+            throw new IllegalArgumentException("Node " + node + " is a " + kind + ", which has no type name");
+        }
+        return name(operands[offsets[node] + 1]);
+    }
+
+    public int getParameterCount(int method) {
+        return operand(method, Kind.METHOD, 2);
+    }
+
+    public String getParameter(int method, int index) {
+        return name(operand(method, Kind.METHOD, 3 + 2 * check(index, getParameterCount(method))));
+    }
+
+    public String getParameterTypeName(int method, int index) {
+        return name(operand(method, Kind.METHOD, 4 + 2 * check(index, getParameterCount(method))));
+    }
+
+    /**
+     * Returns the value of a field, declaration, assignment, for loop, or
+     * return, the expression of an expression statement or group, or {@code
+     * -1} if a field or declaration has no value.
+     */
+    public int getValue(int node) {
+        switch (getKind(node)) {
+            case FIELD:
+            case DECLARATION:
+                return operands[offsets[node] + 2];
+            case ASSIGNMENT:
+            case FOR:
+                return operands[offsets[node] + 1];
+            case EXPRESSION:
+            case RETURN:
+            case GROUP:
+                return operands[offsets[node]];
+            default:
+                throw new IllegalArgumentException("Node " + node + " is a " + getKind(node) + ", which has no value");
+        }
+    }
+
+    /**
+     * Returns the receiver of an assignment, access, or function, or {@code
+     * -1} if an access or function has none.
+     */
+    public int getReceiver(int node) {
+        Kind kind = getKind(node);
+        if (kind != Kind.ASSIGNMENT && kind != Kind.ACCESS && kind != Kind.FUNCTION) {
+            throw new IllegalArgumentException("Node " + node + " is a " + kind + ", which has no receiver");
+        }
+        return operands[offsets[node]];
+    }
+
+    public int getCondition(int node) {
+        Kind kind = getKind(node);
+        if (kind != Kind.IF && kind != Kind.WHILE) {
+            throw new IllegalArgumentException("Node " + node + " is a " + kind + ", which has no condition");
+        }
+        return operands[offsets[node]];
+    }
+
+    /**
+     * Returns the number of statements of a method, for loop, or while loop,
+     * or of the then branch of an if statement.
+     */
+    public int getStatementCount(int node) {
+        return operands[statements(node)];
+    }
+
+    public int getStatement(int node, int index) {
+        int start = statements(node);
+        return operands[start + 1 + check(index, operands[start])];
+    }
+
+    public int getElseStatementCount(int node) {
+        return operands[elseStatements(node)];
+    }
+
+    public int getElseStatement(int node, int index) {
+        int start = elseStatements(node);
+        return operands[start + 1 + check(index, operands[start])];
+    }
+
+    public Object getLiteral(int literal) {
+        return pool[operand(literal, Kind.LITERAL, 0)];
+    }
+
+    public String getOperator(int binary) {
+        return name(operand(binary, Kind.BINARY, 0));
+    }
+
+    public int getLeft(int binary) {
+        return operand(binary, Kind.BINARY, 1);
+    }
+
+    public int getRight(int binary) {
+        return operand(binary, Kind.BINARY, 2);
+    }
+
+    public int getArgumentCount(int function) {
+        return operand(function, Kind.FUNCTION, 2);
+    }
+
+    public int getArgument(int function, int index) {
+        return operand(function, Kind.FUNCTION, 3 + check(index, getArgumentCount(function)));
+    }
+
+    /**
+     * Decodes the whole encoding. Method bodies are decoded the first time
+     * {@link Ast.Method#getStatements()} is called.
+     */
+    public Ast.Source toAst() {
+        int root = getRoot();
+        List<Ast.Field> fields = new ArrayList<>();
+        for (int i = 0; i < getFieldCount(root); i++) {
+            fields.add((Ast.Field) toAst(getField(root, i)));
+        }
+        List<Ast.Method> methods = new ArrayList<>();
+        for (int i = 0; i < getMethodCount(root); i++) {
+            methods.add((Ast.Method) toAst(getMethod(root, i)));
+        }
+        return new Ast.Source(fields, methods);
+    }
+
+    /**
+     * Decodes the subtree at the given node.
+     */
+    public Ast toAst(int node) {
+        switch (getKind(node)) {
+            case SOURCE:
+                return toAst();
+            case FIELD:
+                return new Ast.Field(getName(node), getTypeName(node), optional(getValue(node)));
+            case METHOD: {
+                List<String> parameters = new ArrayList<>();
+                List<String> parameterTypeNames = new ArrayList<>();
+                for (int i = 0; i < getParameterCount(node); i++) {
+                    parameters.add(getParameter(node, i));
+                    parameterTypeNames.add(getParameterTypeName(node, i));
+                }
+                return new Ast.Method(getName(node), parameters, parameterTypeNames, Optional.ofNullable(getTypeName(node)), () -> statements(node, getStatementCount(node), this::getStatement));
+            }
+            case EXPRESSION:
+                return new Ast.Stmt.Expression(expr(getValue(node)));
+            case DECLARATION:
+                return new Ast.Stmt.Declaration(getName(node), Optional.ofNullable(getTypeName(node)), optional(getValue(node)));
+            case ASSIGNMENT:
+                return new Ast.Stmt.Assignment(expr(getReceiver(node)), expr(getValue(node)));
+            case IF:
+                return new Ast.Stmt.If(expr(getCondition(node)),
+                        statements(node, getStatementCount(node), this::getStatement),
+                        statements(node, getElseStatementCount(node), this::getElseStatement));
+            case FOR:
+                return new Ast.Stmt.For(getName(node), expr(getValue(node)), statements(node, getStatementCount(node), this::getStatement));
+            case WHILE:
+                return new Ast.Stmt.While(expr(getCondition(node)), statements(node, getStatementCount(node), this::getStatement));
+            case RETURN:
+                return new Ast.Stmt.Return(expr(getValue(node)));
+            case LITERAL:
+                return new Ast.Expr.Literal(getLiteral(node));
+            case GROUP:
+                return new Ast.Expr.Group(expr(getValue(node)));
+            case BINARY:
+                return new Ast.Expr.Binary(getOperator(node), expr(getLeft(node)), expr(getRight(node)));
+            case ACCESS:
+                return new Ast.Expr.Access(optional(getReceiver(node)), getName(node));
+            case FUNCTION: {
+                List<Ast.Expr> arguments = new ArrayList<>();
+                for (int i = 0; i < getArgumentCount(node); i++) {
+                    arguments.add(expr(getArgument(node, i)));
+                }
+                return new Ast.Expr.Function(optional(getReceiver(node)), getName(node), arguments);
+            }
+            default:
+                throw new AssertionError(getKind(node));
+        }
+    }
+
+    /**
+     * Runs a visitor over the decoded tree, as from {@link #toAst()}.
+     */
+    public <T> T accept(Ast.Visitor<T> visitor) {
+        return visitor.visit(toAst());
+    }
+
+    private interface Child {
+
+        int get(int node, int index);
+
+    }
+
+    private List<Ast.Stmt> statements(int node, int count, Child child) {
+        List<Ast.Stmt> statements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            statements.add((Ast.Stmt) toAst(child.get(node, i)));
+        }
+        return statements;
+    }
+
+    private Ast.Expr expr(int node) {
+        return (Ast.Expr) toAst(node);
+    }
+
+    private Optional<Ast.Expr> optional(int node) {
+        return node == -1 ? Optional.empty() : Optional.of(expr(node));
+    }
+
+    private int statements(int node) {
+        switch (getKind(node)) {
+            case METHOD:
+                return offsets[node] + 3 + 2 * operands[offsets[node] + 2];
+            case FOR:
+                return offsets[node] + 2;
+            case IF:
+            case WHILE:
+                return offsets[node] + 1;
+            default:
+                throw new IllegalArgumentException("Node " + node + " is a " + getKind(node) + ", which has no statements");
+        }
+    }
+
+    private int elseStatements(int node) {
+        if (getKind(node) != Kind.IF) {
+            throw new IllegalArgumentException("Node " + node + " is a " + getKind(node) + ", which has no else statements");
+        }
+        int start = offsets[node] + 1;
+        return start + 1 + operands[start];
+    }
+
+    private int operand(int node, Kind kind, int index) {
+        if (getKind(node) != kind) {
+            throw new IllegalArgumentException("Node " + node + " is a " + getKind(node) + ", not a " + kind);
+        }
+        return operands[offsets[node] + index];
+    }
+
+    private String name(int index) {
+        return index == -1 ? null : (String) pool[index];
+    }
+
+    private int check(int node) {
+        return check(node, size);
+    }
+
+    private static int check(int index, int length) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+        return index;
+    }
+
+    private int add(Ast ast) {
+        if (ast instanceof Ast.Field) {
+            Ast.Field field = (Ast.Field) ast;
+            return node(Kind.FIELD, pool(field.getName()), pool(field.getTypeName()), add(field.getValue()));
+        } else if (ast instanceof Ast.Method) {
+            Ast.Method method = (Ast.Method) ast;
+            int[] statements = add(method.getStatements());
+            int start = node(Kind.METHOD, pool(method.getName()), pool(method.getReturnTypeName().orElse(null)), method.getParameters().size());
+            for (int i = 0; i < method.getParameters().size(); i++) {
+                operand(pool(method.getParameters().get(i)));
+                operand(pool(method.getParameterTypeNames().get(i)));
+            }
+            operands(statements);
+            return start;
+        } else if (ast instanceof Ast.Stmt.Expression) {
+            return node(Kind.EXPRESSION, add(((Ast.Stmt.Expression) ast).getExpression()));
+        } else if (ast instanceof Ast.Stmt.Declaration) {
+            Ast.Stmt.Declaration declaration = (Ast.Stmt.Declaration) ast;
+            return node(Kind.DECLARATION, pool(declaration.getName()), pool(declaration.getTypeName().orElse(null)), add(declaration.getValue()));
+        } else if (ast instanceof Ast.Stmt.Assignment) {
+            Ast.Stmt.Assignment assignment = (Ast.Stmt.Assignment) ast;
+            return node(Kind.ASSIGNMENT, add(assignment.getReceiver()), add(assignment.getValue()));
+        } else if (ast instanceof Ast.Stmt.If) {
+            Ast.Stmt.If statement = (Ast.Stmt.If) ast;
+            int condition = add(statement.getCondition());
+            int[] thenStatements = add(statement.getThenStatements());
+            int[] elseStatements = add(statement.getElseStatements());
+            int node = node(Kind.IF, condition);
+            operands(thenStatements);
+            operands(elseStatements);
+            return node;
+        } else if (ast instanceof Ast.Stmt.For) {
+            Ast.Stmt.For statement = (Ast.Stmt.For) ast;
+            int value = add(statement.getValue());
+            int[] statements = add(statement.getStatements());
+            int node = node(Kind.FOR, pool(statement.getName()), value);
+            operands(statements);
+            return node;
+        } else if (ast instanceof Ast.Stmt.While) {
+            Ast.Stmt.While statement = (Ast.Stmt.While) ast;
+            int condition = add(statement.getCondition());
+            int[] statements = add(statement.getStatements());
+            int node = node(Kind.WHILE, condition);
+            operands(statements);
+            return node;
+        } else if (ast instanceof Ast.Stmt.Return) {
+            return node(Kind.RETURN, add(((Ast.Stmt.Return) ast).getValue()));
+        } else if (ast instanceof Ast.Expr.Literal) {
+            return node(Kind.LITERAL, pool(((Ast.Expr.Literal) ast).getLiteral()));
+        } else if (ast instanceof Ast.Expr.Group) {
+            return node(Kind.GROUP, add(((Ast.Expr.Group) ast).getExpression()));
+        } else if (ast instanceof Ast.Expr.Binary) {
+            Ast.Expr.Binary binary = (Ast.Expr.Binary) ast;
+            int left = add(binary.getLeft());
+            int right = add(binary.getRight());
+            return node(Kind.BINARY, pool(binary.getOperator()), left, right);
+        } else if (ast instanceof Ast.Expr.Access) {
+            Ast.Expr.Access access = (Ast.Expr.Access) ast;
+            return node(Kind.ACCESS, add(access.getReceiver()), pool(access.getName()));
+        } else if (ast instanceof Ast.Expr.Function) {
+            Ast.Expr.Function function = (Ast.Expr.Function) ast;
+            int receiver = add(function.getReceiver());
+            int[] arguments = new int[function.getArguments().size()];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = add(function.getArguments().get(i));
+            }
+            int node = node(Kind.FUNCTION, receiver, pool(function.getName()), arguments.length);
+            for (int argument : arguments) {
+                operand(argument);
+            }
+            return node;
+        }
+        throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+    }
+
+    private int add(Optional<? extends Ast> ast) {
+        return ast.isPresent() ? add(ast.get()) : -1;
+    }
+
+    private int[] add(List<? extends Ast> asts) {
+        int[] nodes = new int[asts.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = add(asts.get(i));
+        }
+        return nodes;
+    }
+
+    private void source(int fields, int[] declarations) {
+        node(Kind.SOURCE, fields, declarations.length - fields);
+        for (int declaration : declarations) {
+            operand(declaration);
+        }
+    }
+
+    /**
+     * Adds a node with the given leading operands, which may be followed by
+     * more through {@link #operand(int)}.
+     */
+    private int node(Kind kind, int... operands) {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        kinds[size] = (byte) kind.ordinal();
+        offsets[size] = length;
+        for (int operand : operands) {
+            operand(operand);
+        }
+        return size++;
+    }
+
+    /**
+     * Adds a count followed by the given nodes.
+     */
+    private void operands(int[] nodes) {
+        operand(nodes.length);
+        for (int node : nodes) {
+            operand(node);
+        }
+    }
+
+    private void operand(int operand) {
+        if (length == operands.length) {
+            operands = Arrays.copyOf(operands, length * 2);
+        }
+        operands[length++] = operand;
+    }
+
+    /**
+     * Returns the pool index of the given name or literal, adding it if it is
+     * not already pooled, or {@code -1} for a {@code null} name.
+     */
+    private int pool(String name) {
+        return name == null ? -1 : pool((Object) name);
+    }
+
+    private int pool(Object value) {
+        Integer index = indices.get(value);
+        if (index == null) {
+            if (pooled == pool.length) {
+                pool = Arrays.copyOf(pool, pooled * 2);
+            }
+            pool[pooled] = value;
+            index = pooled++;
+            indices.put(value, index);
+        }
+        return index;
+    }
+
+    /**
+     * Trims the arrays to their contents, since the encoding is not modified
+     * once built.
+     */
+    private void trim() {
+        kinds = Arrays.copyOf(kinds, size);
+        offsets = Arrays.copyOf(offsets, size);
+        operands = Arrays.copyOf(operands, length);
+        pool = Arrays.copyOf(pool, pooled);
+        indices.clear();
+    }
+
+}
@@ -0,0 +1,170 @@
+package plc.project;
+
+/**
+ * Keeps the tokens of a source up to date as it is edited, relexing only the
+ * region around each edit rather than the whole source.
+ *
+ * A token depends on its own characters and at most two characters of
+ * lookahead (such as the {@code .5} after {@code 1}), so lexing restarts at
+ * the first token which could see the edit. Since {@link DfaLexer} carries no
+ * state between tokens, lexing can stop as soon as a token starts after the
+ * edit at the (shifted) start of a previous token: every token from there on
+ * is unchanged apart from its index.
+ */
+public final class IncrementalLexer {
+
+    private static final int LOOKAHEAD = 2;
+
+    private final TokenBuffer tokens;
+
+    public IncrementalLexer(String source) {
+        this(new DfaLexer(source).lexBuffer());
+    }
+
+    /**
+     * Creates an incremental lexer which takes over the given tokens, which
+     * are updated in place by each edit.
+     */
+    public IncrementalLexer(TokenBuffer tokens) {
+        this.tokens = tokens;
+    }
+
+    public TokenBuffer getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Updates the tokens for an edit which replaced {@code removed} characters
+     * at {@code offset} with {@code inserted} characters, giving the new
+     * source. The token buffer is updated in place, so beyond relexing the
+     * damaged region an edit only moves the tokens after it. If the new source
+     * does not lex, a {@link ParseException} is thrown and the tokens are left
+     * unchanged.
+     */
+    public Edit edit(String source, int offset, int removed, int inserted) {
+        if (offset < 0 || removed < 0 || inserted < 0 || offset + inserted > source.length()) {
+            throw new IndexOutOfBoundsException("Edit " + offset + "+" + removed + "/" + inserted + " out of bounds for length " + source.length());
+        }
+        int delta = inserted - removed;
+        LexerInput input = new LexerInput.StringInput(source);
+        DfaLexer lexer = new DfaLexer(input, tokens.getSymbols());
+        TokenBuffer relexed = new TokenBuffer(input, tokens.getSymbols());
+
+        int first = search(offset - LOOKAHEAD);
+        int last = first;
+        int position = lexer.skipWhitespace(first == 0 ? 0 : end(tokens, first - 1));
+        while (position < source.length()) {
+            if (position >= offset + inserted) {
+                last = search(position - delta, last);
+                if (last < tokens.size() && tokens.getIndex(last) == position - delta) {
+                    break;
+                }
+            }
+            position = lexer.lexRange(position, position + 1, relexed);
+        }
+        if (position >= source.length()) {
+            last = tokens.size();
+        }
+
+        int index = 0;
+        while (index < last - first && index < relexed.size() && same(first + index, relexed, index, 0)) {
+            index++;
+        }
+        int removedTokens = last - first;
+        int insertedTokens = relexed.size();
+        while (removedTokens > index && insertedTokens > index && same(first + removedTokens - 1, relexed, insertedTokens - 1, delta)) {
+            removedTokens--;
+            insertedTokens--;
+        }
+        tokens.splice(input, first, last, relexed, delta);
+        return new Edit(tokens, first + index, removedTokens - index, insertedTokens - index);
+    }
+
+    /**
+     * Returns the first token which ends after the given index, which is the
+     * first token that could see a change at {@code index + LOOKAHEAD}.
+     */
+    private int search(int index) {
+        int low = 0;
+        int high = tokens.size() - 1;
+        while (low <= high) {
+            int middle = low + high >>> 1;
+            if (end(tokens, middle) <= index) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the first token at or after {@code from} which starts at or
+     * after the given index.
+     */
+    private int search(int index, int from) {
+        while (from < tokens.size() && tokens.getIndex(from) < index) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int end(TokenBuffer tokens, int token) {
+        return tokens.getIndex(token) + tokens.getLength(token);
+    }
+
+    private boolean same(int token, TokenBuffer relexed, int other, int delta) {
+        return tokens.getKind(token) == relexed.getKind(other)
+                && tokens.getIndex(token) + delta == relexed.getIndex(other)
+                && tokens.getLength(token) == relexed.getLength(other)
+                && tokens.getLiteral(token).equals(relexed.getLiteral(other));
+    }
+
+    /**
+     * The tokens after an edit, and the single range of tokens which changed:
+     * {@link #getRemoved()} tokens starting at {@link #getIndex()} in the
+     * previous tokens were replaced by {@link #getInserted()} tokens. Tokens
+     * after the range are unchanged apart from their index.
+     */
+    public static final class Edit {
+
+        private final TokenBuffer tokens;
+        private final int index;
+        private final int removed;
+        private final int inserted;
+
+        private Edit(TokenBuffer tokens, int index, int removed, int inserted) {
+            this.tokens = tokens;
+            this.index = index;
+            this.removed = removed;
+            this.inserted = inserted;
+        }
+
+        public TokenBuffer getTokens() {
+            return tokens;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        public int getInserted() {
+            return inserted;
+        }
+
+        @Override
+        public String toString() {
+            return "Edit{" +
+                    "index=" + index +
+                    ", removed=" + removed +
+                    ", inserted=" + inserted +
+                    '}';
+        }
+
+    }
+
+}
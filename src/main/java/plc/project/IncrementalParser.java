@@ -0,0 +1,153 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the AST of a source up to date as it is edited, reparsing only the
+ * fields and methods whose tokens changed and reusing every other node, so
+ * anything keyed on node identity (such as the functions set by the {@link
+ * Analyzer}) survives the edit.
+ *
+ * The parser carries no state between declarations, and a declaration only
+ * depends on its own tokens. Since {@link IncrementalLexer} reports the single
+ * range of tokens which changed, parsing restarts at the declaration
+ * containing that range and stops once a declaration ends after the range at
+ * the (shifted) start of a previous declaration: every declaration from there
+ * on is unchanged.
+ */
+public final class IncrementalParser {
+
+    private final IncrementalLexer lexer;
+    private final List<Ast> declarations = new ArrayList<>();
+    private int[] boundaries = new int[0];
+    private Ast.Source source;
+
+    public IncrementalParser(String source) {
+        this(new IncrementalLexer(source));
+    }
+
+    /**
+     * Creates an incremental parser which parses the tokens of the given
+     * lexer, which must only be edited through {@link #edit}.
+     */
+    public IncrementalParser(IncrementalLexer lexer) {
+        this.lexer = lexer;
+        parse(0, 0, 0, 0);
+    }
+
+    public TokenBuffer getTokens() {
+        return lexer.getTokens();
+    }
+
+    public Ast.Source getSource() {
+        return source;
+    }
+
+    /**
+     * Updates the AST for an edit which replaced {@code removed} characters
+     * at {@code offset} with {@code inserted} characters, giving the new
+     * source, and returns it. A {@link ParseException} from the lexer leaves
+     * everything unchanged; one from the parser is thrown after the tokens
+     * were updated, and the next edit then parses the whole source again.
+     */
+    public Ast.Source edit(String source, int offset, int removed, int inserted) {
+        IncrementalLexer.Edit edit = lexer.edit(source, offset, removed, inserted);
+        if (this.source == null) {
+            parse(0, 0, 0, 0);
+        } else if (edit.getRemoved() != 0 || edit.getInserted() != 0) {
+            parse(search(edit.getIndex()), edit.getIndex(), edit.getRemoved(), edit.getInserted());
+        }
+        return this.source;
+    }
+
+    /**
+     * Parses from declaration {@code first} for an edit which replaced {@code
+     * removed} tokens at {@code index} with {@code inserted} tokens, reusing
+     * the declarations after the edit once parsing is back in step with them.
+     */
+    private void parse(int first, int index, int removed, int inserted) {
+        TokenBuffer tokens = lexer.getTokens();
+        int delta = inserted - removed;
+        int count = declarations.size();
+        List<Ast> parsed = new ArrayList<>();
+        List<Integer> ends = new ArrayList<>();
+        int position = first == 0 ? 0 : boundaries[first];
+        int next = first;
+        boolean synced = false;
+        Parser parser = new Parser(tokens, position);
+        try {
+            while (true) {
+                if (source != null && position >= index + inserted) {
+                    while (next <= count && boundaries[next] + delta < position) {
+                        next++;
+                    }
+                    if (next <= count && boundaries[next] + delta == position && boundaries[next] >= index + removed) {
+                        synced = true;
+                        break;
+                    }
+                }
+                if (position == tokens.size() || tokens.getType(position) != Token.Type.IDENTIFIER) {
+                    break;
+                } else if (tokens.getKind(position) == Token.Kind.LET) {
+                    parsed.add(parser.parseField());
+                } else if (tokens.getKind(position) == Token.Kind.DEF) {
+                    parsed.add(parser.parseMethod());
+                } else {
+                    throw new ParseException("No LET or DEF: " + tokens.getIndex(position), tokens.getIndex(position));
+                }
+                position = parser.getPosition();
+                ends.add(position);
+            }
+        } catch (ParseException e) {
+            source = null;
+            declarations.clear();
+            throw e;
+        }
+
+        int reused = synced ? count - next : 0;
+        int[] updated = Arrays.copyOf(boundaries.length == 0 ? new int[1] : boundaries, first + 1 + ends.size() + reused);
+        for (int i = 0; i < ends.size(); i++) {
+            updated[first + 1 + i] = ends.get(i);
+        }
+        for (int i = 0; i < reused; i++) {
+            updated[first + 1 + ends.size() + i] = boundaries[next + 1 + i] + delta;
+        }
+        List<Ast> tail = synced ? new ArrayList<>(declarations.subList(next, count)) : List.of();
+        declarations.subList(first, count).clear();
+        declarations.addAll(parsed);
+        declarations.addAll(tail);
+        boundaries = updated;
+
+        List<Ast.Field> fields = new ArrayList<>();
+        List<Ast.Method> methods = new ArrayList<>();
+        for (Ast declaration : declarations) {
+            if (declaration instanceof Ast.Field) {
+                fields.add((Ast.Field) declaration);
+            } else {
+                methods.add((Ast.Method) declaration);
+            }
+        }
+        source = new Ast.Source(fields, methods);
+    }
+
+    /**
+     * Returns the last declaration starting at or before the given token, or
+     * the number of declarations if the token is after all of them.
+     */
+    private int search(int token) {
+        int low = 0;
+        int high = declarations.size();
+        while (low < high) {
+            int middle = low + high + 1 >>> 1;
+            if (boundaries[middle] <= token) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+}
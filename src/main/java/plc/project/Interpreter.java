@@ -1,8 +1,5 @@
 package plc.project;
 
-import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -10,6 +7,7 @@ import java.util.stream.Collectors;
 public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     private Scope scope = new Scope(null);
+    private Frame frame = null;
 
     public Interpreter(Scope parent) {
         scope = new Scope(parent);
@@ -28,6 +26,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         List<Ast.Field> fields = ast.getFields();
         List<Ast.Method> methods = ast.getMethods();
 
+        frame = new Frame(fields.size(), null);
         fields.forEach(this::visit);
         methods.forEach(this::visit);
 
@@ -38,7 +37,10 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Field ast) {
-        if (ast.getValue().isPresent()) {
+        if (ast.getSlot() >= 0) {
+            frame.slots[ast.getSlot()] = ast.getValue().isPresent() ? visit(ast.getValue().get()) : Environment.NIL;
+        }
+        else if (ast.getValue().isPresent()) {
             scope.defineVariable(ast.getName(), visit(ast.getValue().get()));
         }
         else {
@@ -51,20 +53,32 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Method ast) {
         List<String> parameterList = ast.getParameters();
+        Frame parent = frame;
 
         scope.defineFunction(ast.getName(), parameterList.size(), args -> {
             Scope newscope = new Scope(scope);
+            Frame caller = frame;
             try {
-                for (int i = 0; i < parameterList.size(); i++) {
-                    newscope.defineVariable(parameterList.get(i), args.get(i));
+                if (ast.getFrameSize() >= 0) {
+                    frame = new Frame(ast.getFrameSize(), parent);
+                    for (int i = 0; i < parameterList.size(); i++) {
+                        frame.slots[i] = args.get(i);
+                    }
+                }
+                else {
+                    for (int i = 0; i < parameterList.size(); i++) {
+                        newscope.defineVariable(parameterList.get(i), args.get(i));
+                    }
                 }
 
                 scope = newscope;
-                ast.getStatements().forEach(this::visit);
+                ast.getStatements().forEach(this::execute);
 
                 return Environment.NIL;
             } catch (Return r) {
                 return r.value;
+            } finally {
+                frame = caller;
             }
         });
 
@@ -80,7 +94,10 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Stmt.Declaration ast) {
-        if (ast.getValue().isPresent()) {
+        if (ast.getSlot() >= 0) {
+            frame.slots[ast.getSlot()] = ast.getValue().isPresent() ? visit(ast.getValue().get()) : Environment.NIL;
+        }
+        else if (ast.getValue().isPresent()) {
             scope.defineVariable(ast.getName(), visit(ast.getValue().get()));
         }
         else {
@@ -99,6 +116,8 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             if (temp.getReceiver().isPresent()) {
                 Environment.PlcObject receiver = visit(temp.getReceiver().get());
                 receiver.setField(temp.getName(), visit(ast.getValue()));
+            } else if (temp.getSlot() >= 0) {
+                frame(temp.getDepth()).slots[temp.getSlot()] = visit(ast.getValue());
             } else {
                 scope.lookupVariable(temp.getName()).setValue(visit(ast.getValue()));
             }
@@ -115,7 +134,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             try {
                 scope = new Scope(scope);
                 for (Ast.Stmt stmt : ast.getThenStatements()) {
-                    visit(stmt);
+                    execute(stmt);
                 }
             } finally {
                 scope = scope.getParent();
@@ -125,7 +144,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             try {
                 scope = new Scope(scope);
                 for (Ast.Stmt stmt : ast.getElseStatements()) {
-                    visit(stmt);
+                    execute(stmt);
                 }
             } finally {
                 scope = scope.getParent();
@@ -139,9 +158,14 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         Iterable iter = requireType(Iterable.class, visit(ast.getValue()));
 
         for (Object obj : iter) {
+            release(ast);
             scope = new Scope(scope);
-            scope.defineVariable(ast.getName(), (Environment.PlcObject) obj);
-            ast.getStatements().forEach(this::visit);
+            if (ast.getSlot() >= 0) {
+                frame.slots[ast.getSlot()] = (Environment.PlcObject) obj;
+            } else {
+                scope.defineVariable(ast.getName(), (Environment.PlcObject) obj);
+            }
+            ast.getStatements().forEach(this::execute);
         }
 
         return Environment.NIL;
@@ -152,10 +176,11 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         boolean condition;
 
         do {
+            release(ast);
             condition = requireType(Boolean.class, visit(ast.getCondition()));
             if (condition) {
                 scope = new Scope(scope);
-                ast.getStatements().forEach(this::visit);
+                ast.getStatements().forEach(this::execute);
             }
         } while (condition);
 
@@ -185,7 +210,6 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Expr.Binary ast) {
         String op = ast.getOperator();
-        Object left, right;
 
         switch (op) {
             case "AND":
@@ -204,92 +228,8 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
                     return Environment.create(Boolean.FALSE);
                 }
 
-            case "<":
-            case "<=":
-            case ">":
-            case ">=":
-                left = visit(ast.getLeft()).getValue();
-                right = visit(ast.getRight()).getValue();
-                if (left instanceof Comparable && left.getClass() == right.getClass()) {
-                    int compare = ((Comparable<Object>) left).compareTo(right);
-                    switch (op) {
-                        case "<":
-                            return compare < 0 ? Environment.create(Boolean.TRUE) : Environment.create(Boolean.FALSE);
-                        case "<=":
-                            return compare <= 0 ? Environment.create(Boolean.TRUE) : Environment.create(Boolean.FALSE);
-                        case ">":
-                            return compare > 0 ? Environment.create(Boolean.TRUE) : Environment.create(Boolean.FALSE);
-                        case ">=":
-                            return compare >= 0 ? Environment.create(Boolean.TRUE) : Environment.create(Boolean.FALSE);
-                    }
-                }
-
-            case "==":
-                if (visit(ast.getLeft()).getValue().equals(visit(ast.getRight()).getValue())) {
-                    return Environment.create(Boolean.TRUE);
-                } else {
-                    return Environment.create(Boolean.FALSE);
-                }
-
-            case "!=":
-                if (visit(ast.getLeft()).getValue().equals(visit(ast.getRight()).getValue())) {
-                    return Environment.create(Boolean.FALSE);
-                } else {
-                    return Environment.create(Boolean.TRUE);
-                }
-
-            case "+":
-                left = visit(ast.getLeft()).getValue();
-                right = visit(ast.getRight()).getValue();
-
-                if (left instanceof String || right instanceof String) {
-                    return Environment.create(left.toString() + right.toString());
-                } else if (left instanceof BigInteger && right instanceof BigInteger) {
-                    return Environment.create(((BigInteger) left).add((BigInteger) right));
-                } else if (left instanceof BigDecimal && right instanceof BigDecimal) {
-                    return Environment.create(((BigDecimal) left).add((BigDecimal) right));
-                } else {
-                    throw new RuntimeException("Type Error: Addition");
-                }
-
-            case "-":
-            case "*":
-                left = visit(ast.getLeft()).getValue();
-                right = visit(ast.getRight()).getValue();
-                if ((left.getClass() == BigDecimal.class || left.getClass() == BigInteger.class) && left.getClass() == right.getClass()) {
-                    if (left.getClass() == BigInteger.class) {
-                        return Environment.create(
-                                op.equals("*")
-                                        ? BigInteger.class.cast(left).multiply(BigInteger.class.cast(right))
-                                        : BigInteger.class.cast(left).subtract(BigInteger.class.cast(right))
-                        );
-                    } else {
-                        return Environment.create(
-                                op.equals("*")
-                                        ? BigDecimal.class.cast(left).multiply(BigDecimal.class.cast(right))
-                                        : BigDecimal.class.cast(left).subtract(BigDecimal.class.cast(right))
-                        );
-                    }
-                } else {
-                    throw new RuntimeException("Type Error: Multiply Subtract");
-                }
-
-            case "/":
-                left = visit(ast.getLeft()).getValue();
-                right = visit(ast.getRight()).getValue();
-                if ((left.getClass() == BigDecimal.class || left.getClass() == BigInteger.class) && left.getClass() == right.getClass()) {
-                    if (BigDecimal.ZERO.equals(right) || BigInteger.ZERO.equals(right)) {
-                        throw new RuntimeException("Edge Case: You can't divide by zero.");
-                    }
-                    return (left instanceof BigDecimal)
-                            ? Environment.create(BigDecimal.class.cast(left).divide(BigDecimal.class.cast(right), RoundingMode.HALF_EVEN))
-                            : Environment.create(BigInteger.class.cast(left).divide(BigInteger.class.cast(right)));
-                } else {
-                    throw new RuntimeException("Type Error: Forward Bracket");
-                }
-
             default:
-                throw new RuntimeException("Type Error");
+                return Environment.create(Arithmetic.apply(op, visit(ast.getLeft()).getValue(), visit(ast.getRight()).getValue()));
         }
     }
 
@@ -298,6 +238,8 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         if (ast.getReceiver().isPresent()) {
             Environment.PlcObject rec = visit(ast.getReceiver().get());
             return rec.getField(ast.getName()).getValue();
+        } else if (ast.getSlot() >= 0) {
+            return frame(ast.getDepth()).slots[ast.getSlot()];
         }
         return scope.lookupVariable(ast.getName()).getValue();
     }
@@ -332,6 +274,53 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         }
     }
 
+    /**
+     * Clears the slots which are dead when control reaches the statement, then
+     * runs it.
+     */
+    private void execute(Ast.Stmt ast) {
+        release(ast);
+        visit(ast);
+    }
+
+    /**
+     * Clears the slots of the current frame which are dead when control
+     * reaches the statement (for a loop, each time its condition is tested),
+     * so their values can be collected before the method returns.
+     */
+    private void release(Ast.Stmt ast) {
+        for (int slot : ast.getReleased()) {
+            frame.slots[slot] = null;
+        }
+    }
+
+    /**
+     * Returns the frame the given number of frames out from the current one.
+     */
+    private Frame frame(int depth) {
+        Frame frame = this.frame;
+        for (int i = 0; i < depth; i++) {
+            frame = frame.parent;
+        }
+        return frame;
+    }
+
+    /**
+     * The variables of a method call (or of the source) resolved by the
+     * {@link Resolver}, indexed by slot.
+     */
+    private static final class Frame {
+
+        private final Environment.PlcObject[] slots;
+        private final Frame parent;
+
+        private Frame(int size, Frame parent) {
+            this.slots = new Environment.PlcObject[size];
+            this.parent = parent;
+        }
+
+    }
+
     /**
      * Exception class for returning values.
      */
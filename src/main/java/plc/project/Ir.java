@@ -0,0 +1,802 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A typed SSA intermediate representation of a source, built from its AST by
+ * the {@link IrBuilder}, checked by the {@link IrVerifier}, and run by the
+ * {@link IrInterpreter} or compiled by the {@link IrGenerator}.
+ *
+ * A program has a {@link Global} for each field, an initializer storing their
+ * values, and a {@link Function} for each method. A function is a list of
+ * {@link Block}s, the first being its entry, and each block is a list of
+ * {@link Instruction}s: its {@link Phi}s, then the instructions computing
+ * values, then a single {@link Terminator}. Every value is assigned exactly
+ * once, and has an {@link Environment.Type}.
+ */
+public final class Ir {
+
+    /**
+     * The type of the iterator over the value of a {@code FOR} loop, which
+     * has no type in the language.
+     */
+    public static final Environment.Type ITERATOR = new Environment.Type("Iterator", "java.util.Iterator<Integer>", new Scope(Environment.Type.ANY.getScope()));
+
+    private Ir() {}
+
+    public static final class Program {
+
+        private final List<Global> globals;
+        private final Function initializer;
+        private final List<Function> functions;
+
+        public Program(List<Global> globals, Function initializer, List<Function> functions) {
+            this.globals = globals;
+            this.initializer = initializer;
+            this.functions = functions;
+        }
+
+        public List<Global> getGlobals() {
+            return globals;
+        }
+
+        /**
+         * Returns the function storing the initial value of each global, in
+         * order, before {@code main} is called.
+         */
+        public Function getInitializer() {
+            return initializer;
+        }
+
+        public List<Function> getFunctions() {
+            return functions;
+        }
+
+        /**
+         * Returns the function with the given name and number of parameters,
+         * or {@code null} if it is not defined by the program.
+         */
+        public Function getFunction(String name, int arity) {
+            for (Function function : functions) {
+                if (function.getName().equals(name) && function.getParameters().size() == arity) {
+                    return function;
+                }
+            }
+            return null;
+        }
+
+    }
+
+    public static final class Global {
+
+        private final String name;
+        private final Environment.Type type;
+        private final int index;
+
+        public Global(String name, Environment.Type type, int index) {
+            this.name = name;
+            this.type = type;
+            this.index = index;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Environment.Type getType() {
+            return type;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+    }
+
+    public static final class Function {
+
+        private final String name;
+        private final List<Parameter> parameters = new ArrayList<>();
+        private final Environment.Type returnType;
+        private final List<Block> blocks = new ArrayList<>();
+        private int nextBlock = 0;
+
+        public Function(String name, Environment.Type returnType) {
+            this.name = name;
+            this.returnType = returnType;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Parameter> getParameters() {
+            return Collections.unmodifiableList(parameters);
+        }
+
+        public Parameter addParameter(String name, Environment.Type type) {
+            Parameter parameter = new Parameter(name, type, parameters.size());
+            parameters.add(parameter);
+            return parameter;
+        }
+
+        public Environment.Type getReturnType() {
+            return returnType;
+        }
+
+        public List<Block> getBlocks() {
+            return Collections.unmodifiableList(blocks);
+        }
+
+        public Block getEntry() {
+            return blocks.get(0);
+        }
+
+        /**
+         * Appends a new block to the function, the first one being its entry.
+         */
+        public Block addBlock() {
+            Block block = new Block(this, nextBlock++);
+            blocks.add(block);
+            return block;
+        }
+
+        /**
+         * Numbers the parameters and then the instructions with a value in
+         * order, as the printer and interpreter refer to them, and returns how
+         * many values were numbered.
+         */
+        public int number() {
+            int number = 0;
+            for (Parameter parameter : parameters) {
+                ((Value) parameter).number = number++;
+            }
+            for (Block block : blocks) {
+                for (Instruction instruction : block.instructions) {
+                    ((Value) instruction).number = instruction.hasValue() ? number++ : -1;
+                }
+            }
+            return number;
+        }
+
+    }
+
+    public static final class Block {
+
+        private final Function function;
+        private final int id;
+        private final List<Instruction> instructions = new ArrayList<>();
+        private final List<Block> predecessors = new ArrayList<>();
+
+        private Block(Function function, int id) {
+            this.function = function;
+            this.id = id;
+        }
+
+        public Function getFunction() {
+            return function;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public List<Instruction> getInstructions() {
+            return Collections.unmodifiableList(instructions);
+        }
+
+        /**
+         * Returns the blocks ending in a jump or branch to this one, in the
+         * order of the operands of its phis.
+         */
+        public List<Block> getPredecessors() {
+            return Collections.unmodifiableList(predecessors);
+        }
+
+        /**
+         * Returns the phis at the start of the block.
+         */
+        public List<Phi> getPhis() {
+            List<Phi> phis = new ArrayList<>();
+            for (Instruction instruction : instructions) {
+                if (!(instruction instanceof Phi)) {
+                    break;
+                }
+                phis.add((Phi) instruction);
+            }
+            return phis;
+        }
+
+        /**
+         * Returns the terminator ending the block, or {@code null} if the
+         * block is not complete.
+         */
+        public Terminator getTerminator() {
+            Instruction last = instructions.isEmpty() ? null : instructions.get(instructions.size() - 1);
+            return last instanceof Terminator ? (Terminator) last : null;
+        }
+
+        public List<Block> getSuccessors() {
+            Terminator terminator = getTerminator();
+            return terminator == null ? List.of() : terminator.getSuccessors();
+        }
+
+        /**
+         * Appends the instruction to the block, inserting phis after the
+         * existing phis, and adds the block as a predecessor of the targets of
+         * a terminator.
+         */
+        public <T extends Instruction> T add(T instruction) {
+            Instruction added = instruction;
+            if (added.block != null) {
+                throw new IllegalStateException("The instruction is already in a block.");
+            }
+            added.block = this;
+            if (instruction instanceof Phi) {
+                instructions.add(getPhis().size(), instruction);
+            } else {
+                instructions.add(instruction);
+            }
+            if (instruction instanceof Terminator) {
+                for (Block successor : ((Terminator) instruction).getSuccessors()) {
+                    successor.predecessors.add(this);
+                }
+            }
+            return instruction;
+        }
+
+        /**
+         * Removes an unused instruction other than a terminator from the
+         * block, along with its uses of its operands.
+         */
+        public void remove(Instruction instruction) {
+            if (instruction.block != this || instruction instanceof Terminator || !((Value) instruction).users.isEmpty()) {
+                throw new IllegalStateException("The instruction cannot be removed.");
+            }
+            instructions.remove(instruction);
+            for (Value operand : instruction.operands) {
+                operand.users.remove(instruction);
+            }
+            instruction.operands.clear();
+            instruction.block = null;
+        }
+
+        @Override
+        public String toString() {
+            return "@" + id;
+        }
+
+    }
+
+    /**
+     * A value an instruction can use, which is a {@link Constant}, a {@link
+     * Parameter}, or the result of an {@link Instruction}.
+     */
+    public abstract static class Value {
+
+        private final Environment.Type type;
+        private final List<Instruction> users = new ArrayList<>();
+        private int number = -1;
+
+        private Value(Environment.Type type) {
+            this.type = type;
+        }
+
+        public Environment.Type getType() {
+            return type;
+        }
+
+        /**
+         * Returns the instructions using this value, once per use.
+         */
+        public List<Instruction> getUsers() {
+            return Collections.unmodifiableList(users);
+        }
+
+        /**
+         * Returns the number given by {@link Function#number()}, or {@code
+         * -1} for constants, instructions without a value, and values not yet
+         * numbered.
+         */
+        public int getNumber() {
+            return number;
+        }
+
+        /**
+         * Replaces every use of this value by the given value.
+         */
+        public void replaceAllUsesWith(Value value) {
+            for (Instruction user : new ArrayList<>(users)) {
+                for (int i = 0; i < user.operands.size(); i++) {
+                    if (user.operands.get(i) == this) {
+                        user.setOperand(i, value);
+                    }
+                }
+            }
+        }
+
+    }
+
+    public static final class Constant extends Value {
+
+        private final Object value;
+
+        /**
+         * Creates a constant of a literal value, typed as the analyzer types
+         * literals ({@code null} being {@code NIL}).
+         */
+        public Constant(Object value) {
+            super(typeOf(value));
+            this.value = value;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        private static Environment.Type typeOf(Object value) {
+            if (value instanceof java.math.BigInteger) {
+                return Environment.Type.INTEGER;
+            } else if (value instanceof java.math.BigDecimal) {
+                return Environment.Type.DECIMAL;
+            } else if (value instanceof Boolean) {
+                return Environment.Type.BOOLEAN;
+            } else if (value instanceof Character) {
+                return Environment.Type.CHARACTER;
+            } else if (value instanceof String) {
+                return Environment.Type.STRING;
+            } else if (value == null) {
+                return Environment.Type.NIL;
+            }
+            throw new IllegalArgumentException("Unexpected constant " + value + ".");
+        }
+
+    }
+
+    public static final class Parameter extends Value {
+
+        private final String name;
+        private final int index;
+
+        private Parameter(String name, Environment.Type type, int index) {
+            super(type);
+            this.name = name;
+            this.index = index;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+    }
+
+    public abstract static class Instruction extends Value {
+
+        private final List<Value> operands = new ArrayList<>();
+        private Block block = null;
+
+        private Instruction(Environment.Type type, List<Value> operands) {
+            super(type);
+            operands.forEach(this::addOperand);
+        }
+
+        /**
+         * Returns the block containing the instruction, or {@code null} if it
+         * has not been added to one.
+         */
+        public Block getBlock() {
+            return block;
+        }
+
+        public List<Value> getOperands() {
+            return Collections.unmodifiableList(operands);
+        }
+
+        /**
+         * Returns whether the instruction computes a value, which stores and
+         * terminators do not.
+         */
+        public boolean hasValue() {
+            return !(this instanceof Terminator || this instanceof Store || this instanceof StoreGlobal);
+        }
+
+        public Value getOperand(int index) {
+            return operands.get(index);
+        }
+
+        public void setOperand(int index, Value value) {
+            operands.get(index).users.remove(this);
+            operands.set(index, value);
+            value.users.add(this);
+        }
+
+        void addOperand(Value value) {
+            operands.add(value);
+            value.users.add(this);
+        }
+
+        public abstract <T> T accept(Visitor<T> visitor);
+
+    }
+
+    /**
+     * Selects the operand for the predecessor control came from, the operands
+     * being in the order of {@link Block#getPredecessors()}.
+     */
+    public static final class Phi extends Instruction {
+
+        public Phi(Environment.Type type) {
+            super(type, List.of());
+        }
+
+        /**
+         * Adds the value coming from the next predecessor of the block.
+         */
+        public void addIncoming(Value value) {
+            addOperand(value);
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
+    }
+
+    /**
+     * Applies any binary operator but {@code OR}, which evaluates its right
+     * operand conditionally and is built from a branch and phi instead.
+     */
+    public static final class Binary extends Instruction {
+
+        private final String operator;
+
+        public Binary(String operator, Value left, Value right, Environment.Type type) {
+            super(type, List.of(left, right));
+            this.operator = operator;
+        }
+
+        public String getOperator() {
+            return operator;
+        }
+
+        public Value getLeft() {
+            return getOperand(0);
+        }
+
+        public Value getRight() {
+            return getOperand(1);
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
+    }
+
+    /**
+     * Calls a function of the program or of the environment by name and
+     * arity, or a method of the receiver if there is one, which is then the
+     * first operand.
+     */
+    public static final class Call extends Instruction {
+
+        private final String name;
+        private final String jvmName;
+        private final boolean method;
+
+        public Call(String name, String jvmName, Value receiver, List<Value> arguments, Environment.Type type) {
+            super(type, List.of());
+            this.name = name;
+            this.jvmName = jvmName;
+            this.method = receiver != null;
+            if (receiver != null) {
+                addOperand(receiver);
+            }
+            arguments.forEach(this::addOperand);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getJvmName() {
+            return jvmName;
+        }
+
+        /**
+         * Returns the receiver of a method call, or {@code null}.
+         */
+        public Value getReceiver() {
+            return method ? getOperand(0) : null;
+        }
+
+        public List<Value> getArguments() {
+            return getOperands().subList(method ? 1 : 0, getOperands().size());
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
+    }
+
+    /**
+     * Reads a field of the receiver, or a variable of the environment if
+     * there is no receiver (the receiver being the only operand).
+     */
+    public static final class Load extends Instruction {
+
+        private final String name;
+        private final String jvmName;
+
+        public Load(Value receiver, String name, String jvmName, Environment.Type type) {
+            super(type, receiver == null ? List.of() : List.of(receiver));
+            this.name = name;
+            this.jvmName = jvmName;
+        }
+
+        public Value getReceiver() {
+            return getOperands().isEmpty() ? null : getOperand(0);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getJvmName() {
+            return jvmName;
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
+    }
+
+    /**
+     * Writes a field of the receiver, or a variable of the environment if
+     * there is no receiver (the value being the last operand).
+     */
+    public static final class Store extends Instruction {
+
+        private final String name;
+        private final String jvmName;
+
+        public Store(Value receiver, String name, String jvmName, Value value) {
+            super(Environment.Type.NIL, receiver == null ? List.of(value) : List.of(receiver, value));
+            this.name = name;
+            this.jvmName = jvmName;
+        }
+
+        public Value getReceiver() {
+            return getOperands().size() == 1 ? null : getOperand(0);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getJvmName() {
+            return jvmName;
+        }
+
+        public Value getValue() {
+            return getOperand(getOperands().size() - 1);
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
+    }
+
+    public static final class LoadGlobal extends Instruction {
+
+        private final Global global;
+
+        public LoadGlobal(Global global) {
+            super(global.getType(), List.of());
+            this.global = global;
+        }
+
+        public Global getGlobal() {
+            return global;
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
+    }
+
+    public static final class StoreGlobal extends Instruction {
+
+        private final Global global;
+
+        public StoreGlobal(Global global, Value value) {
+            super(Environment.Type.NIL, List.of(value));
+            this.global = global;
+        }
+
+        public Global getGlobal() {
+            return global;
+        }
+
+        public Value getValue() {
+            return getOperand(0);
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
+    }
+
+    /**
+     * Starts iterating over the value of a {@code FOR} loop.
+     */
+    public static final class Iterate extends Instruction {
+
+        public Iterate(Value iterable) {
+            super(ITERATOR, List.of(iterable));
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
+    }
+
+    public static final class HasNext extends Instruction {
+
+        public HasNext(Value iterator) {
+            super(Environment.Type.BOOLEAN, List.of(iterator));
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
+    }
+
+    public static final class Next extends Instruction {
+
+        public Next(Value iterator) {
+            super(Environment.Type.INTEGER, List.of(iterator));
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
+    }
+
+    /**
+     * Ends a block, transferring control to its successors or out of the
+     * function. A terminator has no value.
+     */
+    public abstract static class Terminator extends Instruction {
+
+        private final List<Block> successors;
+
+        private Terminator(List<Value> operands, List<Block> successors) {
+            super(Environment.Type.NIL, operands);
+            this.successors = successors;
+        }
+
+        public List<Block> getSuccessors() {
+            return successors;
+        }
+
+    }
+
+    public static final class Jump extends Terminator {
+
+        public Jump(Block target) {
+            super(List.of(), List.of(target));
+        }
+
+        public Block getTarget() {
+            return getSuccessors().get(0);
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
+    }
+
+    public static final class Branch extends Terminator {
+
+        public Branch(Value condition, Block thenBlock, Block elseBlock) {
+            super(List.of(condition), List.of(thenBlock, elseBlock));
+        }
+
+        public Value getCondition() {
+            return getOperand(0);
+        }
+
+        public Block getThenBlock() {
+            return getSuccessors().get(0);
+        }
+
+        public Block getElseBlock() {
+            return getSuccessors().get(1);
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
+    }
+
+    public static final class Return extends Terminator {
+
+        public Return(Value value) {
+            super(List.of(value), List.of());
+        }
+
+        public Value getValue() {
+            return getOperand(0);
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
+    }
+
+    public interface Visitor<T> {
+
+        default T visit(Instruction instruction) {
+            return instruction.accept(this);
+        }
+
+        T visit(Phi instruction);
+
+        T visit(Binary instruction);
+
+        T visit(Call instruction);
+
+        T visit(Load instruction);
+
+        T visit(Store instruction);
+
+        T visit(LoadGlobal instruction);
+
+        T visit(StoreGlobal instruction);
+
+        T visit(Iterate instruction);
+
+        T visit(HasNext instruction);
+
+        T visit(Next instruction);
+
+        T visit(Jump instruction);
+
+        T visit(Branch instruction);
+
+        T visit(Return instruction);
+
+    }
+
+}
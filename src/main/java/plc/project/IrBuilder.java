@@ -0,0 +1,500 @@
+package plc.project;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Lowers a source into the {@link Ir}, building SSA form directly while
+ * walking each method (Braun et al., "Simple and Efficient Construction of
+ * Static Single Assignment Form"): a read of a variable in a block without a
+ * definition becomes a phi of its definitions in the predecessors, and phis
+ * which turn out to select a single value are removed.
+ *
+ * Names are resolved as the {@link Resolver} resolves them, and values are
+ * typed as the {@link Analyzer} types expressions, from the declared types of
+ * fields, parameters, variables, and methods. The source does not need to
+ * have been analyzed, since the analyzer leaves much of it untyped; where it
+ * has, the analyzed functions and variables of the environment give the names
+ * and types of calls and accesses outside the source. A name which is not
+ * declared in the source reads and writes the environment, with type {@code
+ * Any}.
+ *
+ * Statements after a {@code RETURN} (or after an {@code IF} whose branches
+ * both return) are not lowered, so every block is reachable.
+ */
+public final class IrBuilder {
+
+    private final Map<String, Ir.Global> globals = new LinkedHashMap<>();
+    private final Map<String, Ast.Method> methods = new HashMap<>();
+
+    private Ir.Function function;
+    private Ir.Block block;
+    private final Deque<Map<String, Variable>> scopes = new ArrayDeque<>();
+    private final Map<Ir.Block, Map<Variable, Ir.Value>> definitions = new HashMap<>();
+    private final Map<Ir.Block, Map<Variable, Ir.Phi>> incomplete = new HashMap<>();
+    private final Set<Ir.Block> sealed = new HashSet<>();
+    private final Map<Ir.Phi, Ir.Value> replaced = new HashMap<>();
+
+    public Ir.Program lower(Ast.Source ast) {
+        globals.clear();
+        methods.clear();
+        for (Ast.Method method : ast.getMethods()) {
+            methods.put(method.getName() + "/" + method.getParameters().size(), method);
+        }
+        start(new Ir.Function("<init>", Environment.Type.NIL));
+        for (Ast.Field field : ast.getFields()) {
+            Ir.Value value = field.getValue().isPresent() ? lower(field.getValue().get()) : new Ir.Constant(null);
+            if (globals.containsKey(field.getName())) {
+                throw new RuntimeException("The variable " + field.getName() + " is already defined in this scope.");
+            }
+            Ir.Global global = new Ir.Global(field.getName(), Environment.getType(field.getTypeName()), globals.size());
+            globals.put(field.getName(), global);
+            block.add(new Ir.StoreGlobal(global, value));
+        }
+        Ir.Function initializer = finish();
+        List<Ir.Function> functions = new ArrayList<>();
+        for (Ast.Method method : ast.getMethods()) {
+            functions.add(lower(method));
+        }
+        return new Ir.Program(new ArrayList<>(globals.values()), initializer, functions);
+    }
+
+    private Ir.Function lower(Ast.Method ast) {
+        start(new Ir.Function(ast.getName(), returnType(ast)));
+        for (int i = 0; i < ast.getParameters().size(); i++) {
+            String name = ast.getParameters().get(i);
+            Environment.Type type = i < ast.getParameterTypeNames().size() ? Environment.getType(ast.getParameterTypeNames().get(i)) : Environment.Type.ANY;
+            write(declare(name, type), block, function.addParameter(name, type));
+        }
+        statements(ast.getStatements());
+        return finish();
+    }
+
+    private void start(Ir.Function function) {
+        this.function = function;
+        definitions.clear();
+        incomplete.clear();
+        sealed.clear();
+        replaced.clear();
+        scopes.clear();
+        scopes.push(new HashMap<>());
+        block = function.addBlock();
+        seal(block);
+    }
+
+    /**
+     * Ends the function with a {@code RETURN NIL} if control can reach its
+     * end, as the interpreter returns {@code NIL} from such methods.
+     */
+    private Ir.Function finish() {
+        if (block != null) {
+            block.add(new Ir.Return(new Ir.Constant(null)));
+        }
+        block = null;
+        return function;
+    }
+
+    private void statements(List<Ast.Stmt> statements) {
+        for (Ast.Stmt statement : statements) {
+            if (block == null) {
+                return;
+            }
+            statement(statement);
+        }
+    }
+
+    /**
+     * Lowers the statements of a nested block in a scope of their own.
+     */
+    private void scoped(List<Ast.Stmt> statements, Runnable declarations) {
+        scopes.push(new HashMap<>());
+        try {
+            declarations.run();
+            statements(statements);
+        } finally {
+            scopes.pop();
+        }
+    }
+
+    private void statement(Ast.Stmt ast) {
+        if (ast instanceof Ast.Stmt.Expression) {
+            lower(((Ast.Stmt.Expression) ast).getExpression());
+        } else if (ast instanceof Ast.Stmt.Declaration) {
+            Ast.Stmt.Declaration declaration = (Ast.Stmt.Declaration) ast;
+            Ir.Value value = declaration.getValue().isPresent() ? lower(declaration.getValue().get()) : new Ir.Constant(null);
+            Environment.Type type = declaration.getTypeName().isPresent() ? Environment.getType(declaration.getTypeName().get()) : value.getType();
+            write(declare(declaration.getName(), type), block, value);
+        } else if (ast instanceof Ast.Stmt.Assignment) {
+            assignment((Ast.Stmt.Assignment) ast);
+        } else if (ast instanceof Ast.Stmt.If) {
+            branch((Ast.Stmt.If) ast);
+        } else if (ast instanceof Ast.Stmt.For) {
+            loop((Ast.Stmt.For) ast);
+        } else if (ast instanceof Ast.Stmt.While) {
+            loop((Ast.Stmt.While) ast);
+        } else if (ast instanceof Ast.Stmt.Return) {
+            Ir.Value value = lower(((Ast.Stmt.Return) ast).getValue());
+            block.add(new Ir.Return(value));
+            block = null;
+        } else {
+            throw new AssertionError("Unimplemented statement type " + ast.getClass().getName() + ".");
+        }
+    }
+
+    private void assignment(Ast.Stmt.Assignment ast) {
+        if (!(ast.getReceiver() instanceof Ast.Expr.Access)) {
+            throw new RuntimeException("Error: Assign Type");
+        }
+        Ast.Expr.Access receiver = (Ast.Expr.Access) ast.getReceiver();
+        if (receiver.getReceiver().isPresent()) {
+            Ir.Value object = lower(receiver.getReceiver().get());
+            Ir.Value value = lower(ast.getValue());
+            block.add(new Ir.Store(object, receiver.getName(), jvmName(receiver), value));
+            return;
+        }
+        Ir.Value value = lower(ast.getValue());
+        Variable variable = lookup(receiver.getName());
+        if (variable != null) {
+            write(variable, block, value);
+        } else if (globals.containsKey(receiver.getName())) {
+            block.add(new Ir.StoreGlobal(globals.get(receiver.getName()), value));
+        } else {
+            block.add(new Ir.Store(null, receiver.getName(), jvmName(receiver), value));
+        }
+    }
+
+    private void branch(Ast.Stmt.If ast) {
+        Ir.Value condition = lower(ast.getCondition());
+        Ir.Block thenBlock = function.addBlock();
+        Ir.Block elseBlock = function.addBlock();
+        block.add(new Ir.Branch(condition, thenBlock, elseBlock));
+        seal(thenBlock);
+        seal(elseBlock);
+        List<Ir.Block> ends = new ArrayList<>();
+        block = thenBlock;
+        scoped(ast.getThenStatements(), () -> {});
+        if (block != null) {
+            ends.add(block);
+        }
+        block = elseBlock;
+        scoped(ast.getElseStatements(), () -> {});
+        if (block != null) {
+            ends.add(block);
+        }
+        join(ends);
+    }
+
+    /**
+     * Continues in a new block following all the given blocks, or in none if
+     * there are none.
+     */
+    private void join(List<Ir.Block> ends) {
+        if (ends.isEmpty()) {
+            block = null;
+            return;
+        }
+        Ir.Block join = function.addBlock();
+        for (Ir.Block end : ends) {
+            end.add(new Ir.Jump(join));
+        }
+        seal(join);
+        block = join;
+    }
+
+    private void loop(Ast.Stmt.While ast) {
+        Ir.Block header = function.addBlock();
+        block.add(new Ir.Jump(header));
+        block = header;
+        Ir.Value condition = lower(ast.getCondition());
+        body(condition, ast.getStatements(), header, () -> {});
+    }
+
+    private void loop(Ast.Stmt.For ast) {
+        Ir.Value iterator = block.add(new Ir.Iterate(lower(ast.getValue())));
+        Ir.Block header = function.addBlock();
+        block.add(new Ir.Jump(header));
+        block = header;
+        Ir.Value condition = block.add(new Ir.HasNext(iterator));
+        body(condition, ast.getStatements(), header, () -> write(declare(ast.getName(), Environment.Type.INTEGER), block, block.add(new Ir.Next(iterator))));
+    }
+
+    /**
+     * Lowers the body of a loop, which runs while the condition (computed in
+     * the current block) holds and then jumps back to the header.
+     */
+    private void body(Ir.Value condition, List<Ast.Stmt> statements, Ir.Block header, Runnable declarations) {
+        Ir.Block body = function.addBlock();
+        Ir.Block exit = function.addBlock();
+        block.add(new Ir.Branch(condition, body, exit));
+        seal(body);
+        block = body;
+        scoped(statements, declarations);
+        if (block != null) {
+            block.add(new Ir.Jump(header));
+        }
+        seal(header);
+        seal(exit);
+        block = exit;
+    }
+
+    private Ir.Value lower(Ast.Expr ast) {
+        if (ast instanceof Ast.Expr.Literal) {
+            return new Ir.Constant(((Ast.Expr.Literal) ast).getLiteral());
+        } else if (ast instanceof Ast.Expr.Group) {
+            return lower(((Ast.Expr.Group) ast).getExpression());
+        } else if (ast instanceof Ast.Expr.Binary) {
+            return binary((Ast.Expr.Binary) ast);
+        } else if (ast instanceof Ast.Expr.Access) {
+            return access((Ast.Expr.Access) ast);
+        } else if (ast instanceof Ast.Expr.Function) {
+            return call((Ast.Expr.Function) ast);
+        }
+        throw new AssertionError("Unimplemented expression type " + ast.getClass().getName() + ".");
+    }
+
+    /**
+     * Lowers a binary expression. {@code OR} only evaluates its right operand
+     * if the left one is {@code FALSE}, so it becomes a branch; every other
+     * operator evaluates both operands. Each operand is evaluated once, unlike
+     * the interpreter, which evaluates the operand deciding an {@code OR} again
+     * for its value when it is {@code TRUE}, and the left operand of an {@code
+     * AND} again when both are equal, so calls with side effects in these
+     * operands run fewer times here.
+     */
+    private Ir.Value binary(Ast.Expr.Binary ast) {
+        Ir.Value left = lower(ast.getLeft());
+        if (ast.getOperator().equals("OR")) {
+            Ir.Block start = block;
+            Ir.Block right = function.addBlock();
+            Ir.Block join = function.addBlock();
+            block.add(new Ir.Branch(left, join, right));
+            seal(right);
+            block = right;
+            Ir.Value value = lower(ast.getRight());
+            block.add(new Ir.Jump(join));
+            seal(join);
+            block = join;
+            Ir.Phi phi = join.add(new Ir.Phi(Environment.Type.BOOLEAN));
+            for (Ir.Block predecessor : join.getPredecessors()) {
+                phi.addIncoming(predecessor == start ? new Ir.Constant(Boolean.TRUE) : value);
+            }
+            return phi;
+        }
+        Ir.Value right = lower(ast.getRight());
+        return block.add(new Ir.Binary(ast.getOperator(), left, right, type(ast.getOperator(), left.getType(), right.getType())));
+    }
+
+    /**
+     * Returns the type of a binary expression, as given by the analyzer, or
+     * {@code Any} if the analyzer would reject it.
+     */
+    private static Environment.Type type(String operator, Environment.Type left, Environment.Type right) {
+        switch (operator) {
+            case "AND":
+            case "<":
+            case "<=":
+            case ">":
+            case ">=":
+            case "==":
+            case "!=":
+                return Environment.Type.BOOLEAN;
+            case "+":
+            case "-":
+            case "*":
+            case "/":
+                if (operator.equals("+") && (left == Environment.Type.STRING || right == Environment.Type.STRING)) {
+                    return Environment.Type.STRING;
+                } else if ((left == Environment.Type.INTEGER || left == Environment.Type.DECIMAL) && left == right) {
+                    return left;
+                }
+                return Environment.Type.ANY;
+            default:
+                return Environment.Type.ANY;
+        }
+    }
+
+    private Ir.Value access(Ast.Expr.Access ast) {
+        if (ast.getReceiver().isPresent()) {
+            Ir.Value receiver = lower(ast.getReceiver().get());
+            Environment.Variable variable = Ast.resolved(ast::getVariable);
+            return block.add(new Ir.Load(receiver, ast.getName(), jvmName(ast), variable != null ? variable.getType() : Environment.Type.ANY));
+        }
+        Variable variable = lookup(ast.getName());
+        if (variable != null) {
+            return read(variable, block);
+        } else if (globals.containsKey(ast.getName())) {
+            return block.add(new Ir.LoadGlobal(globals.get(ast.getName())));
+        }
+        Environment.Variable external = Ast.resolved(ast::getVariable);
+        return block.add(new Ir.Load(null, ast.getName(), jvmName(ast), external != null ? external.getType() : Environment.Type.ANY));
+    }
+
+    /**
+     * Lowers a call, evaluating the arguments before the receiver as the
+     * interpreter does.
+     */
+    private Ir.Value call(Ast.Expr.Function ast) {
+        List<Ir.Value> arguments = new ArrayList<>();
+        for (Ast.Expr argument : ast.getArguments()) {
+            arguments.add(lower(argument));
+        }
+        Ir.Value receiver = ast.getReceiver().isPresent() ? lower(ast.getReceiver().get()) : null;
+        Environment.Function analyzed = Ast.resolved(ast::getFunction);
+        Ast.Method method = receiver == null ? methods.get(ast.getName() + "/" + arguments.size()) : null;
+        Environment.Type type;
+        String jvmName = analyzed != null ? analyzed.getJvmName() : ast.getName();
+        if (method != null) {
+            type = returnType(method);
+            jvmName = ast.getName();
+        } else if (receiver == null && ast.getName().equals("print") && arguments.size() == 1) {
+            type = Environment.Type.NIL;
+            jvmName = "System.out.println";
+        } else {
+            type = analyzed != null ? analyzed.getReturnType() : Environment.Type.ANY;
+        }
+        return block.add(new Ir.Call(ast.getName(), jvmName, receiver, arguments, type));
+    }
+
+    private static Environment.Type returnType(Ast.Method ast) {
+        return ast.getReturnTypeName().isPresent() ? Environment.getType(ast.getReturnTypeName().get()) : Environment.Type.NIL;
+    }
+
+    private static String jvmName(Ast.Expr.Access ast) {
+        Environment.Variable variable = Ast.resolved(ast::getVariable);
+        return variable != null ? variable.getJvmName() : ast.getName();
+    }
+
+    private Variable declare(String name, Environment.Type type) {
+        Map<String, Variable> scope = scopes.peek();
+        if (scope.containsKey(name)) {
+            throw new RuntimeException("The variable " + name + " is already defined in this scope.");
+        }
+        Variable variable = new Variable(name, type);
+        scope.put(name, variable);
+        return variable;
+    }
+
+    private Variable lookup(String name) {
+        for (Map<String, Variable> scope : scopes) {
+            if (scope.containsKey(name)) {
+                return scope.get(name);
+            }
+        }
+        return null;
+    }
+
+    private void write(Variable variable, Ir.Block block, Ir.Value value) {
+        definitions.computeIfAbsent(block, b -> new HashMap<>()).put(variable, value);
+    }
+
+    private Ir.Value read(Variable variable, Ir.Block block) {
+        Map<Variable, Ir.Value> values = definitions.get(block);
+        if (values != null && values.containsKey(variable)) {
+            return current(values.get(variable));
+        }
+        Ir.Value value;
+        if (!sealed.contains(block)) {
+            Ir.Phi phi = block.add(new Ir.Phi(variable.type));
+            incomplete.computeIfAbsent(block, b -> new HashMap<>()).put(variable, phi);
+            value = phi;
+        } else if (block.getPredecessors().size() == 1) {
+            value = read(variable, block.getPredecessors().get(0));
+        } else {
+            Ir.Phi phi = block.add(new Ir.Phi(variable.type));
+            write(variable, block, phi);
+            value = operands(variable, phi);
+        }
+        write(variable, block, value);
+        return value;
+    }
+
+    /**
+     * Returns the value which replaced a removed phi, or the value itself.
+     */
+    private Ir.Value current(Ir.Value value) {
+        while (value instanceof Ir.Phi && replaced.containsKey(value)) {
+            value = replaced.get(value);
+        }
+        return value;
+    }
+
+    private Ir.Value operands(Variable variable, Ir.Phi phi) {
+        for (Ir.Block predecessor : phi.getBlock().getPredecessors()) {
+            phi.addIncoming(read(variable, predecessor));
+        }
+        return simplify(phi);
+    }
+
+    /**
+     * Removes a phi whose operands are all the same value or the phi itself,
+     * replacing it with that value, and then any phis using it which become
+     * trivial in turn.
+     */
+    private Ir.Value simplify(Ir.Phi phi) {
+        Ir.Value same = null;
+        for (Ir.Value operand : phi.getOperands()) {
+            if (operand == same || operand == phi) {
+                continue;
+            } else if (same != null) {
+                return phi;
+            }
+            same = operand;
+        }
+        if (same == null) {
+            same = new Ir.Constant(null);
+        }
+        List<Ir.Instruction> users = new ArrayList<>(phi.getUsers());
+        users.removeIf(user -> user == phi);
+        phi.replaceAllUsesWith(same);
+        phi.getBlock().remove(phi);
+        replaced.put(phi, same);
+        for (Ir.Instruction user : users) {
+            if (user instanceof Ir.Phi && user.getBlock() != null) {
+                simplify((Ir.Phi) user);
+            }
+        }
+        return current(same);
+    }
+
+    /**
+     * Marks a block as having all its predecessors, completing the phis
+     * created for reads before it was.
+     */
+    private void seal(Ir.Block block) {
+        Map<Variable, Ir.Phi> phis = incomplete.remove(block);
+        sealed.add(block);
+        if (phis != null) {
+            phis.forEach(this::operands);
+        }
+    }
+
+    /**
+     * A declared variable, identified by its declaration rather than its name
+     * since names can be shadowed.
+     */
+    private static final class Variable {
+
+        private final String name;
+        private final Environment.Type type;
+
+        private Variable(String name, Environment.Type type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+
+    }
+
+}
@@ -0,0 +1,395 @@
+package plc.project;
+
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Generates Java from a program in the {@link Ir}, in the form of the {@link
+ * Generator}: a {@code Main} class with a field for each global, a
+ * constructor running the initializer, and a method for each function.
+ *
+ * Each value is a local variable {@code $n}, numbered as by the {@link
+ * IrPrinter}. A function with a single block is written as straight-line
+ * code; otherwise its blocks are the cases of a {@code switch} on the next
+ * block to run, {@code $block}, inside a loop, and the phis of a block are
+ * assigned on each edge to it. Values of type {@code Nil} are not stored, and
+ * calls returning one are statements.
+ */
+public final class IrGenerator implements Ir.Visitor<Void> {
+
+    private final PrintWriter writer;
+    private int indent = 0;
+    private Ir.Function function;
+
+    public IrGenerator(PrintWriter writer) {
+        this.writer = writer;
+    }
+
+    private void print(Object... objects) {
+        for (Object object : objects) {
+            writer.write(object.toString());
+        }
+    }
+
+    private void newline(int indent) {
+        writer.println();
+        for (int i = 0; i < indent; i++) {
+            writer.write("    ");
+        }
+    }
+
+    public void generate(Ir.Program program) {
+        print("public class Main {");
+        newline(indent);
+        if (!program.getGlobals().isEmpty()) {
+            newline(++indent);
+            for (int i = 0; i < program.getGlobals().size(); i++) {
+                if (i != 0) {
+                    newline(indent);
+                }
+                Ir.Global global = program.getGlobals().get(i);
+                print(type(global.getType()), " ", global.getName(), ";");
+            }
+            newline(--indent);
+        }
+        if (!trivial(program.getInitializer())) {
+            newline(++indent);
+            print("Main() {");
+            body(program.getInitializer());
+            print("}");
+            newline(--indent);
+        }
+        newline(++indent);
+        print("public static void main(String[] args) {");
+        newline(++indent);
+        print("System.exit(new Main().main());");
+        newline(--indent);
+        print("}");
+        newline(--indent);
+        for (Ir.Function function : program.getFunctions()) {
+            newline(++indent);
+            generate(function);
+            newline(--indent);
+        }
+        newline(indent);
+        print("}");
+        writer.flush();
+    }
+
+    /**
+     * Returns whether the initializer only stores {@code NIL}, leaving every
+     * field with the default value of its type.
+     */
+    private static boolean trivial(Ir.Function initializer) {
+        if (initializer.getBlocks().size() != 1) {
+            return false;
+        }
+        for (Ir.Instruction instruction : initializer.getEntry().getInstructions()) {
+            if (!(instruction instanceof Ir.Return || instruction instanceof Ir.StoreGlobal && nil(instruction.getOperand(0)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void generate(Ir.Function function) {
+        String returnType = function.getReturnType() == Environment.Type.NIL ? "void" : type(function.getReturnType());
+        print(returnType, " ", function.getName(), "(");
+        for (int i = 0; i < function.getParameters().size(); i++) {
+            if (i != 0) {
+                print(", ");
+            }
+            Ir.Parameter parameter = function.getParameters().get(i);
+            print(type(parameter.getType()), " ", parameter.getName());
+        }
+        print(") {");
+        body(function);
+        print("}");
+    }
+
+    private void body(Ir.Function function) {
+        this.function = function;
+        function.number();
+        indent++;
+        if (function.getBlocks().size() == 1) {
+            for (Ir.Instruction instruction : function.getEntry().getInstructions()) {
+                statement(instruction, true);
+            }
+        } else {
+            for (Ir.Block block : function.getBlocks()) {
+                for (Ir.Instruction instruction : block.getInstructions()) {
+                    if (stored(instruction)) {
+                        newline(indent);
+                        print(type(instruction.getType()), " ", name(instruction), " = ", initial(instruction.getType()), ";");
+                    }
+                }
+            }
+            newline(indent);
+            print("int $block = 0;");
+            newline(indent);
+            print("while (true) {");
+            newline(++indent);
+            print("switch ($block) {");
+            indent++;
+            for (Ir.Block block : function.getBlocks()) {
+                newline(indent);
+                print("case ", block.getId(), ":");
+                indent++;
+                for (Ir.Instruction instruction : block.getInstructions()) {
+                    if (!(instruction instanceof Ir.Phi)) {
+                        statement(instruction, false);
+                    }
+                }
+                indent--;
+            }
+            newline(--indent);
+            print("}");
+            newline(--indent);
+            print("}");
+        }
+        newline(--indent);
+    }
+
+    private void statement(Ir.Instruction instruction, boolean declare) {
+        if (instruction instanceof Ir.StoreGlobal && nil(((Ir.StoreGlobal) instruction).getValue()) && function.getName().equals("<init>")) {
+            return;
+        } else if (instruction instanceof Ir.Jump) {
+            visit(instruction);
+            return;
+        }
+        newline(indent);
+        if (stored(instruction)) {
+            print(declare ? type(instruction.getType()) + " " : "", name(instruction), " = ");
+        }
+        visit(instruction);
+        if (!(instruction instanceof Ir.Terminator)) {
+            print(";");
+        }
+    }
+
+    /**
+     * Returns whether the instruction has a value which is kept in a local.
+     */
+    private static boolean stored(Ir.Instruction instruction) {
+        return instruction.hasValue() && instruction.getType() != Environment.Type.NIL;
+    }
+
+    @Override
+    public Void visit(Ir.Phi instruction) {
+        throw new IllegalStateException("Phis are assigned on the edges to their block.");
+    }
+
+    @Override
+    public Void visit(Ir.Binary instruction) {
+        String left = name(instruction.getLeft());
+        String right = name(instruction.getRight());
+        String operator = instruction.getOperator();
+        boolean primitive = primitive(instruction.getLeft().getType()) && primitive(instruction.getRight().getType());
+        if (operator.equals("AND")) {
+            print(left, " && ", right);
+        } else if (!primitive && (operator.equals("==") || operator.equals("!="))) {
+            print(operator.equals("!=") ? "!" : "", "java.util.Objects.equals(", left, ", ", right, ")");
+        } else if (!primitive && (operator.startsWith("<") || operator.startsWith(">"))) {
+            print(left, ".compareTo(", right, ") ", operator, " 0");
+        } else {
+            print(left, " ", operator, " ", right);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Call instruction) {
+        if (instruction.getReceiver() != null) {
+            print(name(instruction.getReceiver()), ".");
+        }
+        print(instruction.getJvmName(), "(");
+        List<Ir.Value> arguments = instruction.getArguments();
+        for (int i = 0; i < arguments.size(); i++) {
+            if (i != 0) {
+                print(", ");
+            }
+            print(name(arguments.get(i)));
+        }
+        print(")");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Load instruction) {
+        if (instruction.getReceiver() != null) {
+            print(name(instruction.getReceiver()), ".");
+        }
+        print(instruction.getJvmName());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Store instruction) {
+        if (instruction.getReceiver() != null) {
+            print(name(instruction.getReceiver()), ".");
+        }
+        print(instruction.getJvmName(), " = ", name(instruction.getValue()));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.LoadGlobal instruction) {
+        print(global(instruction.getGlobal()));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.StoreGlobal instruction) {
+        print(global(instruction.getGlobal()), " = ", name(instruction.getValue()));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Iterate instruction) {
+        print(name(instruction.getOperand(0)), ".iterator()");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.HasNext instruction) {
+        print(name(instruction.getOperand(0)), ".hasNext()");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Next instruction) {
+        print(name(instruction.getOperand(0)), ".next()");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Jump instruction) {
+        edge(instruction.getBlock(), instruction.getTarget());
+        newline(indent);
+        print("break;");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Branch instruction) {
+        print("if (", name(instruction.getCondition()), ") {");
+        indent++;
+        edge(instruction.getBlock(), instruction.getThenBlock());
+        newline(--indent);
+        print("} else {");
+        indent++;
+        edge(instruction.getBlock(), instruction.getElseBlock());
+        newline(--indent);
+        print("}");
+        newline(indent);
+        print("break;");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Return instruction) {
+        if (function.getReturnType() == Environment.Type.NIL) {
+            print("return;");
+        } else {
+            print("return ", name(instruction.getValue()), ";");
+        }
+        return null;
+    }
+
+    /**
+     * Assigns the phis of the target for the edge from the block and sets it
+     * as the next block, assigning through temporaries in a nested block if
+     * a phi uses another phi of the target.
+     */
+    private void edge(Ir.Block block, Ir.Block target) {
+        int predecessor = target.getPredecessors().indexOf(block);
+        List<Ir.Phi> phis = target.getPhis();
+        phis.removeIf(phi -> !stored(phi));
+        boolean parallel = phis.stream().anyMatch(phi -> phi.getOperand(predecessor) instanceof Ir.Phi && phis.contains(phi.getOperand(predecessor)));
+        if (parallel) {
+            newline(indent);
+            print("{");
+            indent++;
+            for (int i = 0; i < phis.size(); i++) {
+                newline(indent);
+                print(type(phis.get(i).getType()), " $phi", i, " = ", name(phis.get(i).getOperand(predecessor)), ";");
+            }
+        }
+        for (int i = 0; i < phis.size(); i++) {
+            newline(indent);
+            print(name(phis.get(i)), " = ", parallel ? "$phi" + i : name(phis.get(i).getOperand(predecessor)), ";");
+        }
+        if (parallel) {
+            newline(--indent);
+            print("}");
+        }
+        if (function.getBlocks().size() != 1) {
+            newline(indent);
+            print("$block = ", target.getId(), ";");
+        }
+    }
+
+    private String global(Ir.Global global) {
+        boolean shadowed = function.getParameters().stream().anyMatch(parameter -> parameter.getName().equals(global.getName()));
+        return shadowed ? "this." + global.getName() : global.getName();
+    }
+
+    private String name(Ir.Value value) {
+        if (value instanceof Ir.Constant) {
+            return constant(((Ir.Constant) value).getValue());
+        } else if (value instanceof Ir.Parameter) {
+            return ((Ir.Parameter) value).getName();
+        } else if (value.getType() == Environment.Type.NIL) {
+            return "null";
+        }
+        return "$" + (value.getNumber() - function.getParameters().size());
+    }
+
+    private static String constant(Object value) {
+        if (value instanceof BigInteger) {
+            return Integer.toString(((BigInteger) value).intValue());
+        } else if (value instanceof BigDecimal) {
+            return Double.toString(((BigDecimal) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            return value.toString();
+        } else if (value instanceof Character) {
+            return "'" + IrPrinter.escape(value.toString(), '\'') + "'";
+        } else if (value instanceof String) {
+            return "\"" + IrPrinter.escape((String) value, '"') + "\"";
+        }
+        return "null";
+    }
+
+    private static boolean nil(Ir.Value value) {
+        return value instanceof Ir.Constant && ((Ir.Constant) value).getValue() == null;
+    }
+
+    private static String type(Environment.Type type) {
+        if (type == Environment.Type.ANY || type == Environment.Type.NIL) {
+            return "Object";
+        } else if (type == Environment.Type.INTEGER_ITERABLE) {
+            return "Iterable<Integer>";
+        }
+        return type.getJvmName();
+    }
+
+    private static boolean primitive(Environment.Type type) {
+        return type == Environment.Type.INTEGER || type == Environment.Type.DECIMAL || type == Environment.Type.BOOLEAN || type == Environment.Type.CHARACTER;
+    }
+
+    private static String initial(Environment.Type type) {
+        if (type == Environment.Type.INTEGER) {
+            return "0";
+        } else if (type == Environment.Type.DECIMAL) {
+            return "0.0";
+        } else if (type == Environment.Type.BOOLEAN) {
+            return "false";
+        } else if (type == Environment.Type.CHARACTER) {
+            return "'\\0'";
+        }
+        return "null";
+    }
+
+}
@@ -0,0 +1,231 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a program in the {@link Ir}, with the semantics of the {@link
+ * Interpreter}: values are {@link Environment.PlcObject}s, operators are
+ * applied by {@link Arithmetic}, and functions and variables which the
+ * program does not define are looked up by name in the scope. Unlike the
+ * interpreter, which evaluates some operands and conditions a second time,
+ * each expression is evaluated once.
+ *
+ * Each call keeps the values of the function's instructions in an array
+ * indexed by their {@linkplain Ir.Function#number() number}, so the program
+ * must not be changed while it runs.
+ */
+public final class IrInterpreter implements Ir.Visitor<Environment.PlcObject> {
+
+    private final Scope scope;
+    private final Map<Ir.Function, Integer> sizes = new HashMap<>();
+    private Ir.Program program;
+    private Environment.PlcObject[] globals;
+    private Environment.PlcObject[] values;
+    private Ir.Block next;
+
+    public IrInterpreter(Scope parent) {
+        scope = new Scope(parent);
+        scope.defineFunction("print", 1, args -> {
+            System.out.println(args.get(0).getValue());
+            return Environment.NIL;
+        });
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Initializes the globals of the program and returns the result of its
+     * {@code main/0}.
+     */
+    public Environment.PlcObject run(Ir.Program program) {
+        this.program = program;
+        sizes.clear();
+        globals = new Environment.PlcObject[program.getGlobals().size()];
+        call(program.getInitializer(), List.of());
+        Ir.Function main = program.getFunction("main", 0);
+        if (main == null) {
+            return scope.lookupFunction("main", 0).invoke(new ArrayList<>());
+        }
+        return call(main, List.of());
+    }
+
+    public Environment.PlcObject call(Ir.Function function, List<Environment.PlcObject> arguments) {
+        Environment.PlcObject[] caller = values;
+        values = new Environment.PlcObject[sizes.computeIfAbsent(function, Ir.Function::number)];
+        try {
+            for (int i = 0; i < arguments.size(); i++) {
+                values[i] = arguments.get(i);
+            }
+            Ir.Block previous = null;
+            Ir.Block block = function.getEntry();
+            while (true) {
+                List<Ir.Instruction> instructions = block.getInstructions();
+                int start = phis(block, previous);
+                for (int i = start; i < instructions.size() - 1; i++) {
+                    Ir.Instruction instruction = instructions.get(i);
+                    Environment.PlcObject value = visit(instruction);
+                    if (instruction.hasValue()) {
+                        values[instruction.getNumber()] = value;
+                    }
+                }
+                Ir.Instruction terminator = instructions.get(instructions.size() - 1);
+                if (terminator instanceof Ir.Return) {
+                    return visit(terminator);
+                }
+                visit(terminator);
+                previous = block;
+                block = next;
+            }
+        } finally {
+            values = caller;
+        }
+    }
+
+    /**
+     * Sets the phis of the block to their operands for the predecessor
+     * control came from, all at once since a phi may use another, and
+     * returns the index of the first instruction after them.
+     */
+    private int phis(Ir.Block block, Ir.Block previous) {
+        List<Ir.Instruction> instructions = block.getInstructions();
+        int count = 0;
+        while (count < instructions.size() && instructions.get(count) instanceof Ir.Phi) {
+            count++;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        int predecessor = block.getPredecessors().indexOf(previous);
+        Environment.PlcObject[] incoming = new Environment.PlcObject[count];
+        for (int i = 0; i < count; i++) {
+            incoming[i] = value(instructions.get(i).getOperand(predecessor));
+        }
+        for (int i = 0; i < count; i++) {
+            values[instructions.get(i).getNumber()] = incoming[i];
+        }
+        return count;
+    }
+
+    private Environment.PlcObject value(Ir.Value value) {
+        if (value instanceof Ir.Constant) {
+            Object constant = ((Ir.Constant) value).getValue();
+            return constant == null ? Environment.NIL : Environment.create(constant);
+        }
+        return values[value.getNumber()];
+    }
+
+    private List<Environment.PlcObject> values(List<Ir.Value> operands) {
+        List<Environment.PlcObject> arguments = new ArrayList<>();
+        for (Ir.Value operand : operands) {
+            arguments.add(value(operand));
+        }
+        return arguments;
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ir.Phi instruction) {
+        throw new IllegalStateException("Phis are evaluated on entry to their block.");
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ir.Binary instruction) {
+        Object left = value(instruction.getLeft()).getValue();
+        Object right = value(instruction.getRight()).getValue();
+        if (instruction.getOperator().equals("AND")) {
+            return Environment.create(Arithmetic.logical("AND", left, right));
+        }
+        return Environment.create(Arithmetic.apply(instruction.getOperator(), left, right));
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ir.Call instruction) {
+        List<Environment.PlcObject> arguments = values(instruction.getArguments());
+        if (instruction.getReceiver() != null) {
+            return value(instruction.getReceiver()).callMethod(instruction.getName(), arguments);
+        }
+        Ir.Function function = program.getFunction(instruction.getName(), arguments.size());
+        if (function != null) {
+            return call(function, arguments);
+        }
+        return scope.lookupFunction(instruction.getName(), arguments.size()).invoke(arguments);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ir.Load instruction) {
+        if (instruction.getReceiver() != null) {
+            return value(instruction.getReceiver()).getField(instruction.getName()).getValue();
+        }
+        return scope.lookupVariable(instruction.getName()).getValue();
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ir.Store instruction) {
+        if (instruction.getReceiver() != null) {
+            value(instruction.getReceiver()).setField(instruction.getName(), value(instruction.getValue()));
+        } else {
+            scope.lookupVariable(instruction.getName()).setValue(value(instruction.getValue()));
+        }
+        return Environment.NIL;
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ir.LoadGlobal instruction) {
+        return globals[instruction.getGlobal().getIndex()];
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ir.StoreGlobal instruction) {
+        globals[instruction.getGlobal().getIndex()] = value(instruction.getValue());
+        return Environment.NIL;
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ir.Iterate instruction) {
+        return Environment.create(requireType(Iterable.class, value(instruction.getOperand(0))).iterator());
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ir.HasNext instruction) {
+        return Environment.create(((Iterator<?>) value(instruction.getOperand(0)).getValue()).hasNext());
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ir.Next instruction) {
+        return (Environment.PlcObject) ((Iterator<?>) value(instruction.getOperand(0)).getValue()).next();
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ir.Jump instruction) {
+        next = instruction.getTarget();
+        return Environment.NIL;
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ir.Branch instruction) {
+        next = requireType(Boolean.class, value(instruction.getCondition())) ? instruction.getThenBlock() : instruction.getElseBlock();
+        return Environment.NIL;
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ir.Return instruction) {
+        return value(instruction.getValue());
+    }
+
+    /**
+     * Helper function to ensure an object is of the appropriate type.
+     */
+    private static <T> T requireType(Class<T> type, Environment.PlcObject object) {
+        if (type.isInstance(object.getValue())) {
+            return type.cast(object.getValue());
+        } else {
+            throw new RuntimeException("Expected type " + type.getName() + ", received " + object.getValue().getClass().getName() + ".");
+        }
+    }
+
+}
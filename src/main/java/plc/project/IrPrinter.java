@@ -0,0 +1,216 @@
+package plc.project;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Prints the {@link Ir} as text, one instruction per line, for debugging and
+ * testing passes over it:
+ *
+ * <pre>
+ * function max(a: Integer, b: Integer): Integer {
+ * &#64;0:
+ *     %0: Boolean = %a &gt; %b
+ *     branch %0, &#64;1, &#64;2
+ * ...
+ * </pre>
+ *
+ * Instructions are numbered from {@code %0} in each function, parameters are
+ * named by their name, and constants are written as literals.
+ */
+public final class IrPrinter implements Ir.Visitor<Void> {
+
+    private final PrintWriter writer;
+    private Ir.Function function;
+
+    public IrPrinter(PrintWriter writer) {
+        this.writer = writer;
+    }
+
+    public void print(Ir.Program program) {
+        for (Ir.Global global : program.getGlobals()) {
+            writer.println("global " + global.getName() + ": " + global.getType().getName());
+        }
+        if (!program.getGlobals().isEmpty()) {
+            writer.println();
+        }
+        print(program.getInitializer());
+        for (Ir.Function function : program.getFunctions()) {
+            writer.println();
+            print(function);
+        }
+        writer.flush();
+    }
+
+    public void print(Ir.Function function) {
+        this.function = function;
+        function.number();
+        String parameters = function.getParameters().stream()
+                .map(parameter -> parameter.getName() + ": " + parameter.getType().getName())
+                .collect(Collectors.joining(", "));
+        writer.println("function " + function.getName() + "(" + parameters + "): " + function.getReturnType().getName() + " {");
+        for (Ir.Block block : function.getBlocks()) {
+            writer.print(block + ":");
+            if (!block.getPredecessors().isEmpty()) {
+                writer.print(" ; preds " + blocks(block.getPredecessors()));
+            }
+            writer.println();
+            for (Ir.Instruction instruction : block.getInstructions()) {
+                writer.print("    ");
+                if (instruction.hasValue()) {
+                    writer.print(name(instruction) + ": " + instruction.getType().getName() + " = ");
+                }
+                visit(instruction);
+                writer.println();
+            }
+        }
+        writer.println("}");
+        writer.flush();
+    }
+
+    @Override
+    public Void visit(Ir.Phi instruction) {
+        writer.print("phi ");
+        for (int i = 0; i < instruction.getOperands().size(); i++) {
+            if (i != 0) {
+                writer.print(", ");
+            }
+            writer.print("[" + name(instruction.getOperand(i)) + ", " + instruction.getBlock().getPredecessors().get(i) + "]");
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Binary instruction) {
+        writer.print(name(instruction.getLeft()) + " " + instruction.getOperator() + " " + name(instruction.getRight()));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Call instruction) {
+        writer.print("call ");
+        if (instruction.getReceiver() != null) {
+            writer.print(name(instruction.getReceiver()) + ".");
+        }
+        writer.print(instruction.getName() + "(" + names(instruction.getArguments()) + ")");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Load instruction) {
+        writer.print("load " + (instruction.getReceiver() != null ? name(instruction.getReceiver()) + "." : "") + instruction.getName());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Store instruction) {
+        writer.print("store " + (instruction.getReceiver() != null ? name(instruction.getReceiver()) + "." : "") + instruction.getName() + ", " + name(instruction.getValue()));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.LoadGlobal instruction) {
+        writer.print("load global " + instruction.getGlobal().getName());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.StoreGlobal instruction) {
+        writer.print("store global " + instruction.getGlobal().getName() + ", " + name(instruction.getValue()));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Iterate instruction) {
+        writer.print("iterate " + name(instruction.getOperand(0)));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.HasNext instruction) {
+        writer.print("hasNext " + name(instruction.getOperand(0)));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Next instruction) {
+        writer.print("next " + name(instruction.getOperand(0)));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Jump instruction) {
+        writer.print("jump " + instruction.getTarget());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Branch instruction) {
+        writer.print("branch " + name(instruction.getCondition()) + ", " + instruction.getThenBlock() + ", " + instruction.getElseBlock());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Return instruction) {
+        writer.print("return " + name(instruction.getValue()));
+        return null;
+    }
+
+    private String names(List<Ir.Value> values) {
+        return values.stream().map(this::name).collect(Collectors.joining(", "));
+    }
+
+    private static String blocks(List<Ir.Block> blocks) {
+        return blocks.stream().map(Ir.Block::toString).collect(Collectors.joining(", "));
+    }
+
+    private String name(Ir.Value value) {
+        if (value instanceof Ir.Constant) {
+            return literal(((Ir.Constant) value).getValue());
+        } else if (value instanceof Ir.Parameter) {
+            return "%" + ((Ir.Parameter) value).getName();
+        }
+        return "%" + (value.getNumber() - function.getParameters().size());
+    }
+
+    /**
+     * Returns a constant as it would be written in the source.
+     */
+    static String literal(Object value) {
+        if (value == null) {
+            return "NIL";
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? "TRUE" : "FALSE";
+        } else if (value instanceof Character) {
+            return "'" + escape(value.toString(), '\'') + "'";
+        } else if (value instanceof String) {
+            return "\"" + escape((String) value, '"') + "\"";
+        }
+        return value.toString();
+    }
+
+    /**
+     * Escapes the characters which the lexer requires to be escaped in a
+     * character or string literal with the given quote.
+     */
+    static String escape(String value, char quote) {
+        StringBuilder builder = new StringBuilder();
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '\b': builder.append("\\b"); break;
+                case '\n': builder.append("\\n"); break;
+                case '\r': builder.append("\\r"); break;
+                case '\t': builder.append("\\t"); break;
+                case '\\': builder.append("\\\\"); break;
+                default:
+                    if (c == quote) {
+                        builder.append('\\');
+                    }
+                    builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,248 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks that the {@link Ir} is well formed, which every pass over it should
+ * preserve, throwing an {@link IllegalStateException} describing the first
+ * problem found:
+ *
+ * <ul>
+ *     <li>each block ends with its only terminator, and starts with its phis,
+ *     one operand for each of its predecessors,</li>
+ *     <li>the predecessors of each block are the blocks branching to it, and
+ *     every block is reachable from the entry, which has none,</li>
+ *     <li>each operand is a constant, a parameter of the function, or a value
+ *     computed by an instruction of the function which dominates its use (for
+ *     a phi, the end of the corresponding predecessor),</li>
+ *     <li>conditions are booleans, and values returned, stored to globals, or
+ *     selected by phis are assignable to the type they are used as, as the
+ *     analyzer checks (with {@code NIL} assignable to any type, as the value
+ *     of a variable without one).</li>
+ * </ul>
+ */
+public final class IrVerifier {
+
+    private Ir.Function function;
+
+    public void verify(Ir.Program program) {
+        verify(program.getInitializer());
+        for (Ir.Function function : program.getFunctions()) {
+            verify(function);
+        }
+    }
+
+    public void verify(Ir.Function function) {
+        this.function = function;
+        if (function.getBlocks().isEmpty()) {
+            throw error(null, "The function has no blocks.");
+        }
+        Map<Ir.Block, Map<Ir.Block, Integer>> edges = new HashMap<>();
+        for (Ir.Block block : function.getBlocks()) {
+            structure(block);
+            for (Ir.Block successor : block.getSuccessors()) {
+                if (successor.getFunction() != function || !function.getBlocks().contains(successor)) {
+                    throw error(block, "The successor " + successor + " is not a block of the function.");
+                }
+                edges.computeIfAbsent(successor, s -> new HashMap<>()).merge(block, 1, Integer::sum);
+            }
+        }
+        for (Ir.Block block : function.getBlocks()) {
+            Map<Ir.Block, Integer> predecessors = new HashMap<>();
+            block.getPredecessors().forEach(predecessor -> predecessors.merge(predecessor, 1, Integer::sum));
+            if (!predecessors.equals(edges.getOrDefault(block, Map.of()))) {
+                throw error(block, "The predecessors " + block.getPredecessors() + " are not the blocks branching to it.");
+            }
+        }
+        if (!function.getEntry().getPredecessors().isEmpty()) {
+            throw error(function.getEntry(), "The entry has predecessors.");
+        }
+        Map<Ir.Block, Ir.Block> dominators = dominators();
+        for (Ir.Block block : function.getBlocks()) {
+            if (!dominators.containsKey(block)) {
+                throw error(block, "The block is unreachable.");
+            }
+        }
+        for (Ir.Block block : function.getBlocks()) {
+            for (Ir.Instruction instruction : block.getInstructions()) {
+                for (int i = 0; i < instruction.getOperands().size(); i++) {
+                    operand(instruction, i, dominators);
+                }
+                types(instruction);
+            }
+        }
+    }
+
+    /**
+     * Checks the order of the instructions of the block.
+     */
+    private void structure(Ir.Block block) {
+        List<Ir.Instruction> instructions = block.getInstructions();
+        if (instructions.isEmpty() || !(instructions.get(instructions.size() - 1) instanceof Ir.Terminator)) {
+            throw error(block, "The block does not end with a terminator.");
+        }
+        boolean phis = true;
+        for (int i = 0; i < instructions.size(); i++) {
+            Ir.Instruction instruction = instructions.get(i);
+            if (instruction.getBlock() != block) {
+                throw error(block, "The instruction " + i + " belongs to another block.");
+            } else if (instruction instanceof Ir.Terminator && i != instructions.size() - 1) {
+                throw error(block, "The instruction " + i + " is a terminator before the end of the block.");
+            } else if (instruction instanceof Ir.Phi) {
+                if (!phis) {
+                    throw error(block, "The instruction " + i + " is a phi after other instructions.");
+                } else if (instruction.getOperands().size() != block.getPredecessors().size()) {
+                    throw error(block, "The phi " + i + " has " + instruction.getOperands().size() + " operands for " + block.getPredecessors().size() + " predecessors.");
+                }
+            } else {
+                phis = false;
+            }
+        }
+    }
+
+    private void operand(Ir.Instruction instruction, int index, Map<Ir.Block, Ir.Block> dominators) {
+        Ir.Value operand = instruction.getOperand(index);
+        Ir.Block block = instruction.getBlock();
+        if (operand instanceof Ir.Parameter) {
+            if (!function.getParameters().contains(operand)) {
+                throw error(block, "A parameter of another function is used.");
+            }
+        } else if (operand instanceof Ir.Instruction) {
+            Ir.Instruction definition = (Ir.Instruction) operand;
+            if (!definition.hasValue()) {
+                throw error(block, "An instruction without a value is used.");
+            } else if (definition.getBlock() == null || definition.getBlock().getFunction() != function) {
+                throw error(block, "An instruction outside the function is used.");
+            }
+            boolean dominates;
+            if (instruction instanceof Ir.Phi) {
+                dominates = dominates(definition.getBlock(), block.getPredecessors().get(index), dominators);
+            } else if (definition.getBlock() == block) {
+                dominates = block.getInstructions().indexOf(definition) < block.getInstructions().indexOf(instruction);
+            } else {
+                dominates = dominates(definition.getBlock(), block, dominators);
+            }
+            if (!dominates) {
+                throw error(block, "A value is used where its definition does not dominate.");
+            }
+        } else if (!(operand instanceof Ir.Constant)) {
+            throw error(block, "An unknown value is used.");
+        }
+    }
+
+    private void types(Ir.Instruction instruction) {
+        Ir.Block block = instruction.getBlock();
+        if (instruction instanceof Ir.Branch) {
+            require(block, Environment.Type.BOOLEAN, ((Ir.Branch) instruction).getCondition().getType(), "condition");
+        } else if (instruction instanceof Ir.Return) {
+            require(block, function.getReturnType(), ((Ir.Return) instruction).getValue().getType(), "returned value");
+        } else if (instruction instanceof Ir.StoreGlobal) {
+            require(block, ((Ir.StoreGlobal) instruction).getGlobal().getType(), ((Ir.StoreGlobal) instruction).getValue().getType(), "stored value");
+        } else if (instruction instanceof Ir.Phi) {
+            for (Ir.Value operand : instruction.getOperands()) {
+                require(block, instruction.getType(), operand.getType(), "phi operand");
+            }
+        } else if (instruction instanceof Ir.HasNext || instruction instanceof Ir.Next) {
+            require(block, Ir.ITERATOR, instruction.getOperand(0).getType(), "iterator");
+        }
+    }
+
+    private void require(Ir.Block block, Environment.Type target, Environment.Type type, String use) {
+        if (type != Environment.Type.NIL && target != type && target != Environment.Type.ANY && target != Environment.Type.COMPARABLE) {
+            throw error(block, "The " + use + " has type " + type.getName() + ", expected " + target.getName() + ".");
+        }
+    }
+
+    /**
+     * Returns the immediate dominator of each block reachable from the entry
+     * (the entry being its own), as computed by the iterative algorithm of
+     * Cooper, Harvey, and Kennedy over the reverse postorder of the blocks.
+     */
+    private Map<Ir.Block, Ir.Block> dominators() {
+        List<Ir.Block> order = postorder();
+        Map<Ir.Block, Integer> index = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            index.put(order.get(i), i);
+        }
+        Map<Ir.Block, Ir.Block> dominators = new HashMap<>();
+        dominators.put(function.getEntry(), function.getEntry());
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = order.size() - 1; i >= 0; i--) {
+                Ir.Block block = order.get(i);
+                if (block == function.getEntry()) {
+                    continue;
+                }
+                Ir.Block dominator = null;
+                for (Ir.Block predecessor : block.getPredecessors()) {
+                    if (!dominators.containsKey(predecessor)) {
+                        continue;
+                    }
+                    Ir.Block other = predecessor;
+                    while (dominator != null && dominator != other) {
+                        while (index.get(other) < index.get(dominator)) {
+                            other = dominators.get(other);
+                        }
+                        while (index.get(dominator) < index.get(other)) {
+                            dominator = dominators.get(dominator);
+                        }
+                    }
+                    dominator = other;
+                }
+                if (dominators.get(block) != dominator) {
+                    dominators.put(block, dominator);
+                    changed = true;
+                }
+            }
+        }
+        return dominators;
+    }
+
+    private List<Ir.Block> postorder() {
+        List<Ir.Block> order = new ArrayList<>();
+        Set<Ir.Block> visited = new HashSet<>();
+        List<Ir.Block> stack = new ArrayList<>();
+        List<Integer> next = new ArrayList<>();
+        stack.add(function.getEntry());
+        next.add(0);
+        visited.add(function.getEntry());
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            List<Ir.Block> successors = stack.get(top).getSuccessors();
+            if (next.get(top) < successors.size()) {
+                Ir.Block successor = successors.get(next.get(top));
+                next.set(top, next.get(top) + 1);
+                if (visited.add(successor)) {
+                    stack.add(successor);
+                    next.add(0);
+                }
+            } else {
+                order.add(stack.remove(top));
+                next.remove(top);
+            }
+        }
+        return order;
+    }
+
+    private static boolean dominates(Ir.Block dominator, Ir.Block block, Map<Ir.Block, Ir.Block> dominators) {
+        while (block != dominator) {
+            Ir.Block parent = dominators.get(block);
+            if (parent == block) {
+                return false;
+            }
+            block = parent;
+        }
+        return true;
+    }
+
+    private IllegalStateException error(Ir.Block block, String message) {
+        return new IllegalStateException("In function " + function.getName() + (block != null ? ", block " + block : "") + ": " + message);
+    }
+
+}
@@ -21,11 +21,23 @@ public final class Lexer {
 
     private final CharStream chars;
     private final List<Token> tokens = new ArrayList<>();
+    private LineMap lines;
 
     public Lexer(String input) {
         chars = new CharStream(input);
     }
 
+    /**
+     * Returns the line map of the input, for reporting token and error
+     * positions as lines and columns.
+     */
+    public LineMap getLineMap() {
+        if (lines == null) {
+            lines = new LineMap(chars.input);
+        }
+        return lines;
+    }
+
     /**
      * Repeatedly lexes the input using {@link #lexToken()}, also skipping over
      * whitespace where appropriate.
@@ -0,0 +1,348 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The characters scanned by a {@link DfaLexer}, addressed by their absolute
+ * index in the source. Inputs may be backed by memory or read incrementally,
+ * so the lexer reports through {@link #release(int)} which characters it no
+ * longer needs.
+ */
+abstract class LexerInput {
+
+    /**
+     * Returns true if there is a character at the given index, reading more
+     * of the input if necessary.
+     */
+    abstract boolean has(int index);
+
+    /**
+     * Returns the character at the given index, which must have been checked
+     * with {@link #has(int)} and not released.
+     */
+    abstract char get(int index);
+
+    abstract String substring(int start, int end);
+
+    /**
+     * Returns true if the characters starting at the given index are equal to
+     * the given string, which must lie within the available input.
+     */
+    boolean regionMatches(int start, String string) {
+        for (int i = 0; i < string.length(); i++) {
+            if (get(start + i) != string.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the characters from {@code start} to {@code end} with escape
+     * sequences decoded in a single pass. A backslash which does not start a
+     * valid escape (which the lexer only lets through right after another
+     * escape) is kept as is.
+     */
+    String unescape(int start, int end) {
+        int escape = start;
+        while (escape < end && get(escape) != '\\') {
+            escape++;
+        }
+        if (escape == end) {
+            return substring(start, end);
+        }
+        char[] chars = new char[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            char c = get(i);
+            if (c == '\\' && i + 1 < end) {
+                switch (get(i + 1)) {
+                    case 'b': c = '\b'; i++; break;
+                    case 'n': c = '\n'; i++; break;
+                    case 'r': c = '\r'; i++; break;
+                    case 't': c = '\t'; i++; break;
+                    case '\'': case '"': case '\\': c = get(++i); break;
+                    default: break;
+                }
+            }
+            chars[length++] = c;
+        }
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Returns true if characters stay available after they are released, as
+     * required by a {@link TokenBuffer}.
+     */
+    boolean isRetained() {
+        return true;
+    }
+
+    /**
+     * Indicates that characters before the given index will not be requested
+     * again.
+     */
+    void release(int index) {}
+
+    static final class StringInput extends LexerInput {
+
+        private final String input;
+
+        StringInput(String input) {
+            this.input = input;
+        }
+
+        @Override
+        boolean has(int index) {
+            return index < input.length();
+        }
+
+        @Override
+        char get(int index) {
+            return input.charAt(index);
+        }
+
+        @Override
+        String substring(int start, int end) {
+            return input.substring(start, end);
+        }
+
+        @Override
+        boolean regionMatches(int start, String string) {
+            return input.regionMatches(start, string, 0, string.length());
+        }
+
+    }
+
+    /**
+     * Reads a {@link Reader} through a fixed-size buffer. Released characters
+     * are discarded when the buffer is refilled, so the buffer only grows if a
+     * single token (plus lookahead) does not fit.
+     */
+    static final class ReaderInput extends LexerInput {
+
+        private final Reader reader;
+        private char[] buffer;
+        private int offset = 0;
+        private int length = 0;
+        private int released = 0;
+        private boolean eof = false;
+
+        ReaderInput(Reader reader, int size) {
+            this.reader = reader;
+            this.buffer = new char[size];
+        }
+
+        @Override
+        boolean has(int index) {
+            while (index >= offset + length) {
+                if (!fill()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        char get(int index) {
+            return buffer[index - offset];
+        }
+
+        @Override
+        String substring(int start, int end) {
+            return new String(buffer, start - offset, end - start);
+        }
+
+        @Override
+        void release(int index) {
+            released = index;
+        }
+
+        @Override
+        boolean isRetained() {
+            return false;
+        }
+
+        private boolean fill() {
+            if (eof) {
+                return false;
+            }
+            if (released > offset) {
+                int discard = Math.min(released, offset + length) - offset;
+                System.arraycopy(buffer, discard, buffer, 0, length - discard);
+                offset += discard;
+                length -= discard;
+            }
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            try {
+                int read = reader.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    eof = true;
+                    return false;
+                }
+                length += read;
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+    /**
+     * Reads UTF-8 bytes directly, typically from a memory-mapped file, without
+     * decoding them into a {@link String} first. Character indices are still
+     * UTF-16 indices, matching a decoded source.
+     *
+     * ASCII bytes map to characters one to one. Each non-ASCII code point
+     * (which outside of a malformed program only occurs inside string and
+     * character literals) is recorded as a mark with its character index,
+     * byte offset, and value, so any index can be located from the nearest
+     * preceding mark. Malformed sequences read as U+FFFD as the JDK's decoder
+     * reads them: one for each invalid byte, each valid prefix of a sequence
+     * which is cut short, and each encoded surrogate.
+     *
+     * Once the input has been scanned, reads are safe from multiple threads.
+     */
+    static final class Utf8Input extends LexerInput {
+
+        private final ByteBuffer bytes;
+        private int chars = 0;
+        private int frontier = 0;
+        private int[] markChars = new int[16];
+        private int[] markBytes = new int[16];
+        private int[] markPoints = new int[16];
+        private int[] markLengths = new int[16];
+        private int marks = 0;
+        private int cursor = -1;
+
+        Utf8Input(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        boolean has(int index) {
+            while (index >= chars && frontier < bytes.limit()) {
+                byte b = bytes.get(frontier);
+                if (b >= 0) {
+                    chars++;
+                    frontier++;
+                } else {
+                    decode(frontier);
+                }
+            }
+            return index < chars;
+        }
+
+        @Override
+        char get(int index) {
+            int mark = find(index);
+            if (mark == -1) {
+                return (char) bytes.get(index);
+            }
+            int offset = index - markChars[mark];
+            int point = markPoints[mark];
+            if (offset < Character.charCount(point)) {
+                return Character.charCount(point) == 1 ? (char) point
+                        : offset == 0 ? Character.highSurrogate(point) : Character.lowSurrogate(point);
+            }
+            return (char) bytes.get(markBytes[mark] + markLengths[mark] + offset - Character.charCount(point));
+        }
+
+        @Override
+        String substring(int start, int end) {
+            if (end <= start) {
+                return "";
+            }
+            int mark = find(end - 1);
+            if (mark == -1 || markChars[mark] + Character.charCount(markPoints[mark]) <= start) {
+                byte[] ascii = new byte[end - start];
+                int offset = mark == -1 ? start : markBytes[mark] + markLengths[mark] + start - markChars[mark] - Character.charCount(markPoints[mark]);
+                bytes.get(offset, ascii);
+                return new String(ascii, StandardCharsets.ISO_8859_1);
+            }
+            char[] chars = new char[end - start];
+            for (int i = start; i < end; i++) {
+                chars[i - start] = get(i);
+            }
+            return new String(chars);
+        }
+
+        /**
+         * Decodes the code point at the given byte offset and records it as a
+         * mark, advancing the frontier past it.
+         */
+        private void decode(int offset) {
+            int lead = bytes.get(offset) & 0xFF;
+            int length = lead >= 0xC2 && lead <= 0xDF ? 2 : lead >= 0xE0 && lead <= 0xEF ? 3 : lead >= 0xF0 && lead <= 0xF4 ? 4 : 1;
+            int min = lead == 0xE0 ? 0xA0 : lead == 0xF0 ? 0x90 : 0x80;
+            int max = lead == 0xF4 ? 0x8F : 0xBF;
+            int point = lead & 0x7F >> length;
+            int valid = 1;
+            for (; valid < length; valid++) {
+                int b = offset + valid < bytes.limit() ? bytes.get(offset + valid) & 0xFF : -1;
+                if (b < (valid == 1 ? min : 0x80) || b > (valid == 1 ? max : 0xBF)) {
+                    break;
+                }
+                point = point << 6 | b & 0x3F;
+            }
+            if (length == 1 || valid < length || length == 3 && Character.isSurrogate((char) point)) {
+                point = 0xFFFD;
+                length = valid;
+            }
+
+            if (marks == markChars.length) {
+                markChars = Arrays.copyOf(markChars, marks * 2);
+                markBytes = Arrays.copyOf(markBytes, marks * 2);
+                markPoints = Arrays.copyOf(markPoints, marks * 2);
+                markLengths = Arrays.copyOf(markLengths, marks * 2);
+            }
+            markChars[marks] = chars;
+            markBytes[marks] = offset;
+            markPoints[marks] = point;
+            markLengths[marks] = length;
+            marks++;
+            chars += Character.charCount(point);
+            frontier += length;
+        }
+
+        /**
+         * Returns the last mark at or before the given index, or {@code -1} if
+         * there is none. Sequential reads hit the cached cursor; anything else
+         * falls back to a binary search.
+         */
+        private int find(int index) {
+            if (marks == 0 || markChars[0] > index) {
+                return -1;
+            }
+            int mark = cursor;
+            if (mark != -1 && markChars[mark] <= index && (mark + 1 == marks || markChars[mark + 1] > index)) {
+                return mark;
+            } else if (mark + 1 < marks && markChars[mark + 1] <= index && (mark + 2 == marks || markChars[mark + 2] > index)) {
+                cursor = mark + 1;
+                return mark + 1;
+            }
+            int low = 0;
+            int high = marks - 1;
+            while (low <= high) {
+                int middle = low + high >>> 1;
+                if (markChars[middle] <= index) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            cursor = high;
+            return high;
+        }
+
+    }
+
+}
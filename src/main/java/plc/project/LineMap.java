@@ -0,0 +1,81 @@
+package plc.project;
+
+import java.util.Arrays;
+
+/**
+ * Maps character indices in a source, such as {@link Token#getIndex()} or
+ * {@link ParseException#getIndex()}, to line and column numbers. The start of
+ * each line is found in a single scan the first time it is needed, so every
+ * lookup afterwards is a binary search.
+ *
+ * Lines end at {@code \n}, {@code \r\n}, or a lone {@code \r}. Lines and
+ * columns are numbered from 1, and indices past the end of the source (which
+ * some lexer errors report) fall on the last line.
+ */
+public final class LineMap {
+
+    private final LexerInput source;
+    private int[] starts;
+
+    public LineMap(String source) {
+        this(new LexerInput.StringInput(source));
+    }
+
+    LineMap(LexerInput source) {
+        this.source = source;
+    }
+
+    public int getLineCount() {
+        return starts().length;
+    }
+
+    public int getLine(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds");
+        }
+        int[] starts = starts();
+        int line = Arrays.binarySearch(starts, index);
+        return line >= 0 ? line + 1 : -line - 1;
+    }
+
+    public int getColumn(int index) {
+        return index - starts()[getLine(index) - 1] + 1;
+    }
+
+    /**
+     * Returns the index of the first character of the given line.
+     */
+    public int getLineStart(int line) {
+        int[] starts = starts();
+        if (line < 1 || line > starts.length) {
+            throw new IndexOutOfBoundsException("Line " + line + " out of bounds for " + starts.length + " lines");
+        }
+        return starts[line - 1];
+    }
+
+    /**
+     * Returns the position of the given index as {@code line:column}.
+     */
+    public String format(int index) {
+        return getLine(index) + ":" + getColumn(index);
+    }
+
+    private int[] starts() {
+        if (starts == null) {
+            int[] starts = new int[64];
+            int lines = 1;
+            for (int i = 0; source.has(i); i++) {
+                char c = source.get(i);
+                if (c == '\n' || c == '\r' && !(source.has(i + 1) && source.get(i + 1) == '\n')) {
+                    if (lines == starts.length) {
+                        starts = Arrays.copyOf(starts, lines * 2);
+                    }
+                    starts[lines++] = i + 1;
+                }
+            }
+            this.starts = Arrays.copyOf(starts, lines);
+        }
+        return starts;
+    }
+
+}
@@ -0,0 +1,159 @@
+package plc.project;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds which slots of a resolved method's frame are live before and after
+ * each statement, meaning they may be read before they are next written, by
+ * the usual backward dataflow over its {@link ControlFlowGraph}:
+ *
+ * <pre>
+ * out(s) = in of each successor of s
+ * in(s)  = used(s) + (out(s) - defined(s))
+ * </pre>
+ *
+ * A statement uses the slots its expressions read (for an {@code IF}, {@code
+ * WHILE}, or {@code FOR}, only those of its condition or iterable) and defines
+ * the slot it declares or assigns, with a {@code FOR} defining its loop
+ * variable. Only slots of the method's own frame are considered, so fields and
+ * variables left unresolved are never live.
+ */
+public final class Liveness {
+
+    private static final int[] NONE = new int[0];
+
+    private final ControlFlowGraph graph;
+    private final Map<ControlFlowGraph.Node, BitSet> used = new HashMap<>();
+    private final Map<ControlFlowGraph.Node, BitSet> defined = new HashMap<>();
+    private final Map<ControlFlowGraph.Node, BitSet> in = new HashMap<>();
+    private final Map<ControlFlowGraph.Node, BitSet> out = new HashMap<>();
+    private final BitSet parameters = new BitSet();
+
+    public Liveness(Ast.Method method) {
+        graph = new ControlFlowGraph(method);
+        parameters.set(0, method.getParameters().size());
+        for (ControlFlowGraph.Node node : graph.getNodes()) {
+            used.put(node, new BitSet());
+            defined.put(node, new BitSet());
+            in.put(node, new BitSet());
+            out.put(node, new BitSet());
+            if (node.getStatement() != null) {
+                effects(node.getStatement(), used.get(node), defined.get(node));
+            }
+        }
+        List<ControlFlowGraph.Node> nodes = graph.getNodes();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = nodes.size() - 1; i >= 0; i--) {
+                ControlFlowGraph.Node node = nodes.get(i);
+                BitSet live = out.get(node);
+                for (ControlFlowGraph.Node successor : node.getSuccessors()) {
+                    live.or(in.get(successor));
+                }
+                BitSet before = (BitSet) live.clone();
+                before.andNot(defined.get(node));
+                before.or(used.get(node));
+                if (!before.equals(in.get(node))) {
+                    in.put(node, before);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    public ControlFlowGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the slots live before the statement runs.
+     */
+    public BitSet getLiveIn(Ast.Stmt statement) {
+        return (BitSet) in.get(graph.getNode(statement)).clone();
+    }
+
+    /**
+     * Returns the slots live after the statement runs.
+     */
+    public BitSet getLiveOut(Ast.Stmt statement) {
+        return (BitSet) out.get(graph.getNode(statement)).clone();
+    }
+
+    /**
+     * Returns the slots which may hold a value when control reaches the
+     * statement, being live around or written by a statement before it (or a
+     * parameter, for the first statement), but are not live before it, so
+     * clearing them when it is reached changes nothing. For a loop, this is
+     * each time its condition is tested.
+     */
+    public int[] getReleased(Ast.Stmt statement) {
+        ControlFlowGraph.Node node = graph.getNode(statement);
+        BitSet released = new BitSet();
+        if (node == graph.getEntry()) {
+            released.or(parameters);
+        }
+        for (ControlFlowGraph.Node predecessor : node.getPredecessors()) {
+            released.or(in.get(predecessor));
+            released.or(out.get(predecessor));
+            released.or(defined.get(predecessor));
+        }
+        released.andNot(in.get(node));
+        return released.isEmpty() ? NONE : released.stream().toArray();
+    }
+
+    private static void effects(Ast.Stmt statement, BitSet used, BitSet defined) {
+        if (statement instanceof Ast.Stmt.Expression) {
+            uses(((Ast.Stmt.Expression) statement).getExpression(), used);
+        } else if (statement instanceof Ast.Stmt.Declaration) {
+            Ast.Stmt.Declaration declaration = (Ast.Stmt.Declaration) statement;
+            declaration.getValue().ifPresent(value -> uses(value, used));
+            if (declaration.getSlot() >= 0) {
+                defined.set(declaration.getSlot());
+            }
+        } else if (statement instanceof Ast.Stmt.Assignment) {
+            Ast.Stmt.Assignment assignment = (Ast.Stmt.Assignment) statement;
+            uses(assignment.getValue(), used);
+            Ast.Expr receiver = assignment.getReceiver();
+            if (receiver instanceof Ast.Expr.Access && !((Ast.Expr.Access) receiver).getReceiver().isPresent()) {
+                Ast.Expr.Access access = (Ast.Expr.Access) receiver;
+                if (access.getDepth() == 0 && access.getSlot() >= 0) {
+                    defined.set(access.getSlot());
+                }
+            } else {
+                uses(receiver, used);
+            }
+        } else if (statement instanceof Ast.Stmt.If) {
+            uses(((Ast.Stmt.If) statement).getCondition(), used);
+        } else if (statement instanceof Ast.Stmt.While) {
+            uses(((Ast.Stmt.While) statement).getCondition(), used);
+        } else if (statement instanceof Ast.Stmt.For) {
+            Ast.Stmt.For loop = (Ast.Stmt.For) statement;
+            uses(loop.getValue(), used);
+            if (loop.getSlot() >= 0) {
+                defined.set(loop.getSlot());
+            }
+        } else if (statement instanceof Ast.Stmt.Return) {
+            uses(((Ast.Stmt.Return) statement).getValue(), used);
+        }
+    }
+
+    private static void uses(Ast.Expr expression, BitSet used) {
+        new AstWalker() {
+            @Override
+            protected Ast leave(Ast ast) {
+                if (ast instanceof Ast.Expr.Access) {
+                    Ast.Expr.Access access = (Ast.Expr.Access) ast;
+                    if (access.getDepth() == 0 && access.getSlot() >= 0) {
+                        used.set(access.getSlot());
+                    }
+                }
+                return ast;
+            }
+        }.walk(expression);
+    }
+
+}
@@ -0,0 +1,110 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Lexes a large source on several threads, producing exactly the tokens (or
+ * the first {@link ParseException}) of a sequential {@link DfaLexer}.
+ *
+ * The input is split into chunks ending at newlines, and each chunk is lexed
+ * on a {@link ForkJoinPool} as if a token started there. That guess is wrong
+ * if the newline is inside a literal, so chunks are then joined in order:
+ * since the lexer carries no state between tokens, a chunk's result is exact
+ * when the previous chunk ended at the same position where the chunk's first
+ * token begins. Otherwise, the chunk is lexed again from where the previous
+ * chunk actually ended. Token indices are absolute, so results are simply
+ * concatenated.
+ *
+ * Small inputs, or pools without parallelism, are lexed sequentially.
+ */
+public final class ParallelLexer {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final String input;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ParallelLexer(String input) {
+        this(input, ForkJoinPool.commonPool(), CHUNK_SIZE);
+    }
+
+    public ParallelLexer(String input, ForkJoinPool pool, int chunkSize) {
+        this.input = input;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    public List<Token> lex() {
+        return new ArrayList<>(lexBuffer().asList());
+    }
+
+    public TokenBuffer lexBuffer() {
+        LexerInput source = new LexerInput.StringInput(input);
+        if (input.length() <= chunkSize || pool.getParallelism() <= 1) {
+            return new DfaLexer(source, new SymbolTable()).lexBuffer();
+        }
+        TokenBuffer buffer = new TokenBuffer(source, new SymbolTable());
+
+        List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+        int from = 0;
+        while (from < input.length()) {
+            int to = input.indexOf('\n', Math.min(from + chunkSize, input.length()));
+            int end = to == -1 ? input.length() : to;
+            int start = from;
+            tasks.add(pool.submit(() -> new Chunk(source, new SymbolTable(), start, end)));
+            from = end + 1;
+        }
+
+        int position = 0;
+        for (ForkJoinTask<Chunk> task : tasks) {
+            Chunk chunk = task.join();
+            if (position != chunk.from && position != chunk.start) {
+                chunk = new Chunk(new DfaLexer(source, buffer.getSymbols()), position, chunk.to, buffer);
+            } else {
+                buffer.append(chunk.tokens);
+            }
+            if (chunk.exception != null) {
+                throw chunk.exception;
+            }
+            position = chunk.end;
+        }
+        return buffer;
+    }
+
+    /**
+     * The result of lexing from {@link #from} to {@link #to}: the index of
+     * the first token, the tokens which start before {@link #to}, and either
+     * the index of the next token or the exception which stopped lexing.
+     */
+    private static final class Chunk {
+
+        private final int from;
+        private final int to;
+        private final int start;
+        private final TokenBuffer tokens;
+        private int end;
+        private ParseException exception;
+
+        private Chunk(LexerInput source, SymbolTable symbols, int from, int to) {
+            this(new DfaLexer(source, symbols), from, to, new TokenBuffer(source, symbols));
+        }
+
+        private Chunk(DfaLexer lexer, int from, int to, TokenBuffer tokens) {
+            this.from = from;
+            this.to = to;
+            this.start = lexer.skipWhitespace(from);
+            this.tokens = tokens;
+            try {
+                end = lexer.lexRange(from, to, tokens);
+            } catch (ParseException e) {
+                exception = e;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,157 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses the fields and methods of a large source on several threads,
+ * producing exactly the {@link Ast.Source} (or the first {@link
+ * ParseException}) of a sequential {@link Parser}.
+ *
+ * A pre-scan over the token kinds finds where each declaration ends: a field
+ * at its first {@code ;}, and a method at the {@code END} matching its
+ * {@code DO}, since every block opens with {@code DO} and closes with {@code
+ * END}. Runs of declarations are then parsed on a {@link ForkJoinPool} and
+ * joined in order. The parser carries no state between declarations, so a
+ * chunk's result is exact when each of its declarations ended where the scan
+ * said it would. If the scan is wrong (such as for a keyword used as a name),
+ * the source is parsed again sequentially.
+ *
+ * Small inputs, or pools without parallelism, are parsed sequentially.
+ */
+public final class ParallelParser {
+
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    private final TokenBuffer tokens;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ParallelParser(TokenBuffer tokens) {
+        this(tokens, ForkJoinPool.commonPool(), CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a parser which splits the tokens into chunks of at least
+     * {@code chunkSize} tokens (or a single declaration, if larger).
+     */
+    public ParallelParser(TokenBuffer tokens, ForkJoinPool pool, int chunkSize) {
+        this.tokens = tokens;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    public Ast.Source parseSource() throws ParseException {
+        if (tokens.size() <= chunkSize || pool.getParallelism() <= 1) {
+            return new Parser(tokens).parseSource();
+        }
+        int[] boundaries = scan();
+        if (boundaries == null) {
+            return new Parser(tokens).parseSource();
+        }
+
+        List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+        int first = 0;
+        while (first < boundaries.length - 1) {
+            int last = first + 1;
+            while (last < boundaries.length - 1 && boundaries[last] - boundaries[first] < chunkSize) {
+                last++;
+            }
+            int from = first;
+            int to = last;
+            tasks.add(pool.submit(() -> new Chunk(tokens, boundaries, from, to)));
+            first = last;
+        }
+
+        List<Ast.Field> fields = new ArrayList<>();
+        List<Ast.Method> methods = new ArrayList<>();
+        for (ForkJoinTask<Chunk> task : tasks) {
+            Chunk chunk = task.join();
+            if (chunk.exception != null) {
+                throw chunk.exception;
+            } else if (!chunk.aligned) {
+                tasks.forEach(t -> t.cancel(false));
+                return new Parser(tokens).parseSource();
+            }
+            fields.addAll(chunk.fields);
+            methods.addAll(chunk.methods);
+        }
+        return new Ast.Source(fields, methods);
+    }
+
+    /**
+     * Returns the index of the first token of each declaration, followed by
+     * the index where the sequential parser stops (the first token which
+     * does not start with an identifier), or {@code null} if a declaration is
+     * not terminated or does not start with {@code LET} or {@code DEF}.
+     */
+    private int[] scan() {
+        int[] boundaries = new int[64];
+        int count = 0;
+        int token = 0;
+        while (true) {
+            if (count == boundaries.length) {
+                boundaries = Arrays.copyOf(boundaries, count * 2);
+            }
+            boundaries[count++] = token;
+            if (token == tokens.size() || tokens.getType(token) != Token.Type.IDENTIFIER) {
+                return Arrays.copyOf(boundaries, count);
+            }
+            Token.Kind kind = tokens.getKind(token);
+            if (kind == Token.Kind.LET) {
+                do {
+                    token++;
+                } while (token < tokens.size() && tokens.getKind(token) != Token.Kind.SEMICOLON);
+            } else if (kind == Token.Kind.DEF) {
+                int depth = 0;
+                while (++token < tokens.size()) {
+                    if (tokens.getKind(token) == Token.Kind.DO) {
+                        depth++;
+                    } else if (tokens.getKind(token) == Token.Kind.END && --depth <= 0) {
+                        break;
+                    }
+                }
+            } else {
+                return null;
+            }
+            if (token == tokens.size()) {
+                return null;
+            }
+            token++;
+        }
+    }
+
+    /**
+     * The declarations from boundary {@code from} (inclusive) to {@code to}
+     * (exclusive), and whether each one ended at the next boundary. Parsing
+     * stops at the first misaligned declaration or exception.
+     */
+    private static final class Chunk {
+
+        private final List<Ast.Field> fields = new ArrayList<>();
+        private final List<Ast.Method> methods = new ArrayList<>();
+        private boolean aligned = true;
+        private ParseException exception;
+
+        private Chunk(TokenBuffer tokens, int[] boundaries, int from, int to) {
+            Parser parser = new Parser(tokens, boundaries[from]);
+            try {
+                for (int i = from; i < to && aligned; i++) {
+                    if (tokens.getKind(boundaries[i]) == Token.Kind.LET) {
+                        fields.add(parser.parseField());
+                    } else {
+                        methods.add(parser.parseMethod());
+                    }
+                    aligned = parser.getPosition() == boundaries[i + 1];
+                }
+            } catch (ParseException e) {
+                exception = e;
+            }
+        }
+
+    }
+
+}
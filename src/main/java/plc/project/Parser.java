@@ -3,8 +3,10 @@ package plc.project;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * The parser takes the sequence of tokens emitted by the lexer and turns that
@@ -12,8 +14,8 @@ import java.util.Optional;
  * Tree (AST).
  *
  * The parser has a similar architecture to the lexer, just with {@link Token}s
- * instead of characters. As before, {@link #peek(Object...)} and {@link
- * #match(Object...)} are helpers to make the implementation easier.
+ * instead of characters. As before, {@link #peek(Token.Kind)} and {@link
+ * #match(Token.Kind)} are helpers to make the implementation easier.
  *
  * This type of parser is called <em>recursive descent</em>. Each rule in our
  * grammar will have it's own function, and reference to other rules correspond
@@ -21,10 +23,97 @@ import java.util.Optional;
  */
 public final class Parser {
 
+    private static final int LOGICAL = 1;
+    private static final int EQUALITY = 2;
+    private static final int ADDITIVE = 3;
+    private static final int MULTIPLICATIVE = 4;
+
+    /**
+     * The precedence of each binary operator, indexed by {@link
+     * Token.Kind#ordinal()}. Other kinds have precedence {@code 0}, which
+     * ends any binary expression.
+     */
+    private static final int[] PRECEDENCE = new int[Token.Kind.values().length];
+
+    static {
+        PRECEDENCE[Token.Kind.AND.ordinal()] = LOGICAL;
+        PRECEDENCE[Token.Kind.OR.ordinal()] = LOGICAL;
+        PRECEDENCE[Token.Kind.LESS.ordinal()] = EQUALITY;
+        PRECEDENCE[Token.Kind.LESS_EQUAL.ordinal()] = EQUALITY;
+        PRECEDENCE[Token.Kind.GREATER.ordinal()] = EQUALITY;
+        PRECEDENCE[Token.Kind.GREATER_EQUAL.ordinal()] = EQUALITY;
+        PRECEDENCE[Token.Kind.EQUAL_EQUAL.ordinal()] = EQUALITY;
+        PRECEDENCE[Token.Kind.NOT_EQUAL.ordinal()] = EQUALITY;
+        PRECEDENCE[Token.Kind.PLUS.ordinal()] = ADDITIVE;
+        PRECEDENCE[Token.Kind.MINUS.ordinal()] = ADDITIVE;
+        PRECEDENCE[Token.Kind.ASTERISK.ordinal()] = MULTIPLICATIVE;
+        PRECEDENCE[Token.Kind.SLASH.ordinal()] = MULTIPLICATIVE;
+    }
+
     private final TokenStream tokens;
+    private final TokenBuffer lazy;
+    private final AstInterner interner;
 
     public Parser(List<Token> tokens) {
-        this.tokens = new TokenStream(tokens);
+        this(tokens.iterator());
+    }
+
+    /**
+     * Parses tokens as they are produced, such as from {@link
+     * DfaLexer#iterator()}. Only the previous token and the lookahead are
+     * retained, so memory does not grow with the length of the input.
+     */
+    public Parser(Iterator<Token> tokens) {
+        this.tokens = new IteratorStream(tokens);
+        this.lazy = null;
+        this.interner = null;
+    }
+
+    /**
+     * Parses tokens from a {@link TokenBuffer}, reading types and indices
+     * directly from the buffer and only materializing the literals which end
+     * up in the AST.
+     */
+    public Parser(TokenBuffer tokens) {
+        this(tokens, false);
+    }
+
+    /**
+     * Parses tokens from a {@link TokenBuffer}, optionally parsing method
+     * bodies lazily. A lazy parser only finds the {@code END} matching the
+     * {@code DO} of each body, and the body is parsed the first time {@link
+     * Ast.Method#getStatements()} is called, so errors in a body are thrown
+     * from there rather than from {@link #parseSource()}. The buffer must
+     * not be modified while any body is unparsed.
+     */
+    public Parser(TokenBuffer tokens, boolean lazy) {
+        this(tokens, 0, lazy, null);
+    }
+
+    /**
+     * Parses tokens from a {@link TokenBuffer} as {@link #Parser(TokenBuffer,
+     * boolean)}, building constant expressions through the given interner so
+     * identical literals and constant subexpressions share a single node.
+     * Lazy bodies use the same interner, so they must be parsed on the thread
+     * which uses it.
+     */
+    public Parser(TokenBuffer tokens, boolean lazy, AstInterner interner) {
+        this(tokens, 0, lazy, interner);
+    }
+
+    /**
+     * Parses tokens from a {@link TokenBuffer} starting at the given token,
+     * for parsing a single declaration out of a larger source.
+     */
+    Parser(TokenBuffer tokens, int position) {
+        this(tokens, position, false, null);
+    }
+
+    private Parser(TokenBuffer tokens, int position, boolean lazy, AstInterner interner) {
+        this.tokens = new BufferStream(tokens);
+        this.tokens.index = position;
+        this.lazy = lazy ? tokens : null;
+        this.interner = interner;
     }
 
     /**
@@ -36,13 +125,13 @@ public final class Parser {
             List<Ast.Method> method = new ArrayList<>();
 
             while (peek(Token.Type.IDENTIFIER)) {
-                if (peek("LET")) {
-                    while (peek("LET")) {
+                if (peek(Token.Kind.LET)) {
+                    while (peek(Token.Kind.LET)) {
                         field.add(parseField());
                     }
                 }
-                if (peek("DEF")) {
-                    while (peek("DEF")) {
+                if (peek(Token.Kind.DEF)) {
+                    while (peek(Token.Kind.DEF)) {
                         method.add(parseMethod());
                     }
                 }
@@ -61,58 +150,58 @@ public final class Parser {
      */
     public Ast.Field parseField() throws ParseException {
         try {
-            match("LET");
+            match(Token.Kind.LET);
             String name = "";
             String typeName = "";
 
             if (peek(Token.Type.IDENTIFIER)) {
-                name = tokens.get(0).getLiteral();
+                name = tokens.getLiteral(0);
                 match(Token.Type.IDENTIFIER);
             } else {
                 if (tokens.has(0))
-                    throw new ParseException("No identifier: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                    throw new ParseException("No identifier: " + tokens.getIndex(0), tokens.getIndex(0));
                 else
                     throw errMsg("No identifier: ");
             }
 
-            if (peek(":")) {
-                match(":");
+            if (peek(Token.Kind.COLON)) {
+                match(Token.Kind.COLON);
             } else {
                 if (tokens.has(0))
-                    throw new ParseException("No operator: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                    throw new ParseException("No operator: " + tokens.getIndex(0), tokens.getIndex(0));
                 else
                     throw errMsg("No operator: ");
             }
 
             if (peek(Token.Type.IDENTIFIER)) {
-                typeName = tokens.get(0).getLiteral();
+                typeName = tokens.getLiteral(0);
                 match(Token.Type.IDENTIFIER);
             } else {
                 if (tokens.has(0))
-                    throw new ParseException("No type: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                    throw new ParseException("No type: " + tokens.getIndex(0), tokens.getIndex(0));
                 else
                     throw errMsg("No type: ");
             }
 
-            if (peek("=")) {
-                match("=");
+            if (peek(Token.Kind.EQUAL)) {
+                match(Token.Kind.EQUAL);
                 Ast.Expr value = parseExpression();
-                if (peek(";")) {
-                    match(";");
+                if (peek(Token.Kind.SEMICOLON)) {
+                    match(Token.Kind.SEMICOLON);
                     return new Ast.Field(name, typeName, Optional.of(value));
                 } else {
                     if (tokens.has(0))
-                        throw new ParseException("No semicolon: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                        throw new ParseException("No semicolon: " + tokens.getIndex(0), tokens.getIndex(0));
                     else
                         throw errMsg("No semicolon: ");
                 }
             } else {
-                if (peek(";")) {
-                    match(";");
+                if (peek(Token.Kind.SEMICOLON)) {
+                    match(Token.Kind.SEMICOLON);
                     return new Ast.Field(name, typeName, Optional.empty());
                 } else {
                     if (tokens.has(0))
-                        throw new ParseException("No semicolon: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                        throw new ParseException("No semicolon: " + tokens.getIndex(0), tokens.getIndex(0));
                     else
                         throw errMsg("No semicolon: ");
                 }
@@ -133,109 +222,115 @@ public final class Parser {
             List<String> parametersType = new ArrayList<String>();
             String returnType = "";
             List<Ast.Stmt> statements = new ArrayList<>();
+            Supplier<List<Ast.Stmt>> body = null;
             String name = "";
 
-            match("DEF");
+            match(Token.Kind.DEF);
 
             if (peek(Token.Type.IDENTIFIER)) {
-                name = tokens.get(0).getLiteral();
+                name = tokens.getLiteral(0);
                 match(Token.Type.IDENTIFIER);
             }
             else {
                 throw errMsg("No IDENTIFIER: ");
             }
 
-            if (peek("(")) {
-                match("(");
+            if (peek(Token.Kind.LEFT_PAREN)) {
+                match(Token.Kind.LEFT_PAREN);
             }
             else {
                 throw errMsg(("No Parenthesis: "));
             }
 
             while (peek(Token.Type.IDENTIFIER)) {
-                parameters.add(tokens.get(0).getLiteral());
+                parameters.add(tokens.getLiteral(0));
                 match(Token.Type.IDENTIFIER);
 
-                if (peek(":")) {
-                    match(":");
+                if (peek(Token.Kind.COLON)) {
+                    match(Token.Kind.COLON);
                 } else {
                     if (tokens.has(0))
-                        throw new ParseException("No operator: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                        throw new ParseException("No operator: " + tokens.getIndex(0), tokens.getIndex(0));
                     else
                         throw errMsg("No operator: ");
                 }
 
                 if (peek(Token.Type.IDENTIFIER)) {
-                    parametersType.add(tokens.get(0).getLiteral());
+                    parametersType.add(tokens.getLiteral(0));
                     match(Token.Type.IDENTIFIER);
                 } else {
                     if (tokens.has(0))
-                        throw new ParseException("No type: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                        throw new ParseException("No type: " + tokens.getIndex(0), tokens.getIndex(0));
                     else
                         throw errMsg("No type: ");
                 }
 
-                if (peek(",")) {
-                    match(",");
-                    if (peek(")"))
-                        throw new ParseException("No comma: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                if (peek(Token.Kind.COMMA)) {
+                    match(Token.Kind.COMMA);
+                    if (peek(Token.Kind.RIGHT_PAREN))
+                        throw new ParseException("No comma: " + tokens.getIndex(0), tokens.getIndex(0));
                 } else {
-                    if (!peek(")")) {
+                    if (!peek(Token.Kind.RIGHT_PAREN)) {
                         if (tokens.has(0))
-                            throw new ParseException("No comma: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                            throw new ParseException("No comma: " + tokens.getIndex(0), tokens.getIndex(0));
                         else
                             throw errMsg("No comma: ");
                     }
                 }
             }
 
-            if (peek(")")) {
-                match(")");
+            if (peek(Token.Kind.RIGHT_PAREN)) {
+                match(Token.Kind.RIGHT_PAREN);
             }
             else {
                 if (tokens.has(0))
-                    throw new ParseException("No Parenthesis: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                    throw new ParseException("No Parenthesis: " + tokens.getIndex(0), tokens.getIndex(0));
                 else
                     throw errMsg(("No Parenthesis: "));
             }
 
-            if (peek(":")) {
-                match(":");
+            if (peek(Token.Kind.COLON)) {
+                match(Token.Kind.COLON);
 
                 if (peek(Token.Type.IDENTIFIER)) {
-                    returnType = tokens.get(0).getLiteral();
+                    returnType = tokens.getLiteral(0);
                     match(Token.Type.IDENTIFIER);
                 } else {
                     if (tokens.has(0))
-                        throw new ParseException("No type: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                        throw new ParseException("No type: " + tokens.getIndex(0), tokens.getIndex(0));
                     else
                         throw errMsg("No type: ");
                 }
             }
 
-            if (peek("DO"))
-                match("DO");
+            if (peek(Token.Kind.DO))
+                match(Token.Kind.DO);
             else {
                 if (tokens.has(0))
-                    throw new ParseException("No DO: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                    throw new ParseException("No DO: " + tokens.getIndex(0), tokens.getIndex(0));
                 else
                     throw errMsg("No DO: ");
             }
-            while (!peek("END")) {
-                statements.add(parseStatement());
+            int end = lazy != null ? skipBody(lazy, tokens.index) : -1;
+            if (end != -1) {
+                body = lazyBody(lazy, tokens.index, end, interner);
+                tokens.index = end;
+            } else {
+                statements = parseBody();
             }
 
-            if (peek("END")) {
-                match("END");
-                if (returnType.equals("")) {
-                    return new Ast.Method(name, parameters, parametersType, Optional.empty(), statements);
+            if (peek(Token.Kind.END)) {
+                match(Token.Kind.END);
+                Optional<String> returnTypeName = returnType.equals("") ? Optional.empty() : Optional.of(returnType);
+                if (body != null) {
+                    return new Ast.Method(name, parameters, parametersType, returnTypeName, body);
                 }
                 else {
-                    return new Ast.Method(name, parameters, parametersType, Optional.of(returnType), statements);
+                    return new Ast.Method(name, parameters, parametersType, returnTypeName, statements);
                 }
             } else {
                 if (tokens.has(0))
-                    throw new ParseException("No END: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                    throw new ParseException("No END: " + tokens.getIndex(0), tokens.getIndex(0));
                 else
                     throw errMsg("No END: ");
             }
@@ -246,43 +341,89 @@ public final class Parser {
         }
     }
 
+    /**
+     * Parses the statements of a method body up to its {@code END}.
+     */
+    private List<Ast.Stmt> parseBody() throws ParseException {
+        List<Ast.Stmt> statements = new ArrayList<>();
+        while (!peek(Token.Kind.END)) {
+            statements.add(parseStatement());
+        }
+        return statements;
+    }
+
+    /**
+     * Returns the index of the {@code END} closing a body which starts at
+     * the given token, counting the {@code DO} and {@code END} of nested
+     * blocks, or {@code -1} if the body is not closed.
+     */
+    private static int skipBody(TokenBuffer tokens, int token) {
+        int depth = 0;
+        for (; token < tokens.size(); token++) {
+            Token.Kind kind = tokens.getKind(token);
+            if (kind == Token.Kind.DO) {
+                depth++;
+            } else if (kind == Token.Kind.END && depth-- == 0) {
+                return token;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a supplier which parses the body from {@code start} to the
+     * {@code END} at {@code end}. Since the end was found by counting blocks
+     * rather than parsing, a body which ends elsewhere (such as one using
+     * {@code DO} or {@code END} as a name) is an error.
+     */
+    private static Supplier<List<Ast.Stmt>> lazyBody(TokenBuffer tokens, int start, int end, AstInterner interner) {
+        return () -> {
+            Parser parser = new Parser(tokens, start, false, interner);
+            List<Ast.Stmt> statements = parser.parseBody();
+            if (parser.getPosition() != end) {
+                throw new ParseException("No END: " + tokens.getIndex(end), tokens.getIndex(end));
+            }
+            return statements;
+        };
+    }
+
     /**
      * Parses the {@code statement} rule and delegates to the necessary method.
      * If the next tokens do not start a declaration, if, while, or return
      * statement, then it is an expression/assignment statement.
      */
     public Ast.Stmt parseStatement() throws ParseException {
-        if (peek("LET")) {
+        if (peek(Token.Kind.LET)) {
             return parseDeclarationStatement();
-        } else if (peek("IF")) {
+        } else if (peek(Token.Kind.IF)) {
             return parseIfStatement();
-        } else if (peek("FOR")) {
+        } else if (peek(Token.Kind.FOR)) {
             return parseForStatement();
-        } else if (peek("WHILE")) {
+        } else if (peek(Token.Kind.WHILE)) {
             return parseWhileStatement();
-        } else if (peek("RETURN")) {
+        } else if (peek(Token.Kind.RETURN)) {
             return parseReturnStatement();
         } else {
             Ast.Expr current = parseExpression();
-            if (peek("=")) {
-                match("=");
+            if (peek(Token.Kind.EQUAL)) {
+                match(Token.Kind.EQUAL);
                 Ast.Expr value = parseExpression();
-                if (peek(";")) {
-                    match(";");
+                if (peek(Token.Kind.SEMICOLON)) {
+                    match(Token.Kind.SEMICOLON);
                     return new Ast.Stmt.Assignment(current, value);
                 } else {
                     if (tokens.has(0))
-                        throw new ParseException("No semicolon: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                        throw new ParseException("No semicolon: " + tokens.getIndex(0), tokens.getIndex(0));
                     else
                         throw errMsg("No semicolon: ");
                 }
             } else {
-                if (peek(";")) {
-                    match(";");
+                if (peek(Token.Kind.SEMICOLON)) {
+                    match(Token.Kind.SEMICOLON);
                     return new Ast.Stmt.Expression(current);
                 } else {
                     if (tokens.has(0))
-                        throw new ParseException("No semicolon: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                        throw new ParseException("No semicolon: " + tokens.getIndex(0), tokens.getIndex(0));
                     else
                         throw errMsg("No semicolon: ");
                 }
@@ -297,58 +438,58 @@ public final class Parser {
      */
     public Ast.Stmt.Declaration parseDeclarationStatement() throws ParseException {
         try {
-            match("LET");
+            match(Token.Kind.LET);
             String name = "";
             String typeName = "";
 
             if (peek(Token.Type.IDENTIFIER)) {
-                name = tokens.get(0).getLiteral();
+                name = tokens.getLiteral(0);
                 match(Token.Type.IDENTIFIER);
             } else {
                 if (tokens.has(0))
-                    throw new ParseException("No ID: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                    throw new ParseException("No ID: " + tokens.getIndex(0), tokens.getIndex(0));
                 else
                     throw errMsg("No ID: ");
             }
 
-            if (peek(":")) {
-                match(":");
+            if (peek(Token.Kind.COLON)) {
+                match(Token.Kind.COLON);
                 if (peek(Token.Type.IDENTIFIER)) {
-                    typeName = tokens.get(0).getLiteral();
+                    typeName = tokens.getLiteral(0);
                     match(Token.Type.IDENTIFIER);
                 } else {
                     if (tokens.has(0))
-                        throw new ParseException("No type: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                        throw new ParseException("No type: " + tokens.getIndex(0), tokens.getIndex(0));
                     else
                         throw errMsg("No type: ");
                 }
             }
 
-            if (peek("=")) {
-                match("=");
+            if (peek(Token.Kind.EQUAL)) {
+                match(Token.Kind.EQUAL);
                 Ast.Expr value = parseExpression();
-                if (peek(";")) {
-                    match(";");
+                if (peek(Token.Kind.SEMICOLON)) {
+                    match(Token.Kind.SEMICOLON);
                     if (typeName.equals(""))
                         return new Ast.Stmt.Declaration(name, Optional.empty(), Optional.of(value));
                     else
                         return new Ast.Stmt.Declaration(name, Optional.of(typeName), Optional.of(value));
                 } else {
                     if (tokens.has(0))
-                        throw new ParseException("No semicolon: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                        throw new ParseException("No semicolon: " + tokens.getIndex(0), tokens.getIndex(0));
                     else
                         throw errMsg("No semicolon: ");
                 }
             } else {
-                if (peek(";")) {
-                    match(";");
+                if (peek(Token.Kind.SEMICOLON)) {
+                    match(Token.Kind.SEMICOLON);
                     if (typeName.equals(""))
                         return new Ast.Stmt.Declaration(name, Optional.empty(), Optional.empty());
                     else
                         return new Ast.Stmt.Declaration(name, Optional.of(typeName), Optional.empty());
                 } else {
                     if (tokens.has(0))
-                        throw new ParseException("No semicolon: " + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+                        throw new ParseException("No semicolon: " + tokens.getIndex(0), tokens.getIndex(0));
                     else
                         throw errMsg("No semicolon: ");
                 }
@@ -368,20 +509,20 @@ public final class Parser {
             List<Ast.Stmt> thenStmt = new ArrayList<>();
             List<Ast.Stmt> elseStmt= new ArrayList<>();
 
-            match("IF");
+            match(Token.Kind.IF);
 
             Ast.Expr expr = parseExpression();
 
-            if (match("DO")) {
-                while (!peek("ELSE") && !peek("END")) {
+            if (match(Token.Kind.DO)) {
+                while (!peek(Token.Kind.ELSE) && !peek(Token.Kind.END)) {
                     thenStmt.add(parseStatement());
                 }
-                if (match("ELSE")) {
-                    while (!peek("END"))
+                if (match(Token.Kind.ELSE)) {
+                    while (!peek(Token.Kind.END))
                         elseStmt.add(parseStatement());
                 }
-                if (peek("END")) {
-                    match("END");
+                if (peek(Token.Kind.END)) {
+                    match(Token.Kind.END);
                     return new Ast.Stmt.If(expr, thenStmt, elseStmt);
                 }
             }
@@ -400,15 +541,15 @@ public final class Parser {
      */
     public Ast.Stmt.For parseForStatement() throws ParseException {
         try {
-            match("FOR");
+            match(Token.Kind.FOR);
             String name = "";
 
             if (peek(Token.Type.IDENTIFIER)) {
-                name = tokens.get(0).getLiteral();
+                name = tokens.getLiteral(0);
                 match(Token.Type.IDENTIFIER);
 
-                if (peek("IN")) {
-                    match("IN");
+                if (peek(Token.Kind.IN)) {
+                    match(Token.Kind.IN);
                 }
                 else {
                     throw errMsg("No IN ");
@@ -416,8 +557,8 @@ public final class Parser {
 
                 Ast.Expr value = parseExpression();
 
-                if (peek("DO")) {
-                    match("DO");
+                if (peek(Token.Kind.DO)) {
+                    match(Token.Kind.DO);
                 }
                 else {
                     throw errMsg("No DO ");
@@ -425,12 +566,12 @@ public final class Parser {
 
                 List<Ast.Stmt> statements = new ArrayList<>();
 
-                while (!peek("END")) {
+                while (!peek(Token.Kind.END)) {
                     statements.add(parseStatement());
                 }
 
-                if (peek("END")) {
-                    match("END");
+                if (peek(Token.Kind.END)) {
+                    match(Token.Kind.END);
                     return new Ast.Stmt.For(name, value, statements);
                 }
                 else {
@@ -451,22 +592,22 @@ public final class Parser {
      */
     public Ast.Stmt.While parseWhileStatement() throws ParseException {
         try {
-            match("WHILE");
+            match(Token.Kind.WHILE);
             List<Ast.Stmt> statements = new ArrayList<>();
             Ast.Expr condition = parseExpression();
 
-            if (peek("DO")) {
-                match("DO");
+            if (peek(Token.Kind.DO)) {
+                match(Token.Kind.DO);
             }
             else {
                 throw errMsg("No DO ");
             }
 
-            while (!peek("END")) {
+            while (!peek(Token.Kind.END)) {
                 statements.add(parseStatement());
             }
 
-            if (match("END")) {
+            if (match(Token.Kind.END)) {
                 return new Ast.Stmt.While(condition, statements);
             }
             else {
@@ -484,12 +625,12 @@ public final class Parser {
      */
     public Ast.Stmt.Return parseReturnStatement() throws ParseException {
         try {
-            match("RETURN");
+            match(Token.Kind.RETURN);
 
             Ast.Expr value = parseExpression();
 
-            if (peek(";")) {
-                match(";");
+            if (peek(Token.Kind.SEMICOLON)) {
+                match(Token.Kind.SEMICOLON);
                 return new Ast.Stmt.Return(value);
             }
 
@@ -510,66 +651,51 @@ public final class Parser {
      * Parses the {@code logical-expression} rule.
      */
     public Ast.Expr parseLogicalExpression() throws ParseException {
-        Ast.Expr left = parseEqualityExpression();
-
-        while (match("AND") || match("OR")) {
-            Token op = tokens.get(-1);
-
-            Ast.Expr right = parseEqualityExpression();
-
-            left = new Ast.Expr.Binary(op.getLiteral(), left, right);
-        }
-
-        return left;
+        return parseBinaryExpression(LOGICAL);
     }
 
     /**
      * Parses the {@code equality-expression} rule.
      */
     public Ast.Expr parseEqualityExpression() throws ParseException {
-        Ast.Expr left = parseAdditiveExpression();
-
-        while (match("<") || match("<=") || match(">") || match(">=")
-                || match("==") || match("!=")) {
-            Token op = tokens.get(-1);
-
-            Ast.Expr right = parseAdditiveExpression();
-
-            left = new Ast.Expr.Binary(op.getLiteral(), left, right);
-        }
-
-        return left;
+        return parseBinaryExpression(EQUALITY);
     }
 
     /**
      * Parses the {@code additive-expression} rule.
      */
     public Ast.Expr parseAdditiveExpression() throws ParseException {
-        Ast.Expr left = parseMultiplicativeExpression();
-
-        while (match("+") || match("-")) {
-            Token op = tokens.get(-1);
-
-            Ast.Expr right = parseMultiplicativeExpression();
-
-            left = new Ast.Expr.Binary(op.getLiteral(), left, right);
-        }
-
-        return left;
+        return parseBinaryExpression(ADDITIVE);
     }
 
     /**
      * Parses the {@code multiplicative-expression} rule.
      */
     public Ast.Expr parseMultiplicativeExpression() throws ParseException {
+        return parseBinaryExpression(MULTIPLICATIVE);
+    }
+
+    /**
+     * Parses the binary expression rules from the given precedence level up
+     * by precedence climbing. Operators at the same level are folded to the
+     * left in the loop, and only a tighter operator recurses, so the depth of
+     * the recursion is bounded by the number of levels rather than the length
+     * of the expression.
+     */
+    private Ast.Expr parseBinaryExpression(int precedence) throws ParseException {
         Ast.Expr left = parseSecondaryExpression();
 
-        while (match("*") || match("/")) {
-            Token op = tokens.get(-1);
+        while (tokens.has(0)) {
+            Token.Kind kind = tokens.getKind(0);
+            int next = PRECEDENCE[kind.ordinal()];
+            if (next < precedence) {
+                break;
+            }
+            tokens.advance();
 
-            Ast.Expr right = parseSecondaryExpression();
+            Ast.Expr right = parseBinaryExpression(next + 1);
 
-            left = new Ast.Expr.Binary(op.getLiteral(), left, right);
+            left = interner == null ? new Ast.Expr.Binary(kind.getLiteral(), left, right) : interner.binary(kind.getLiteral(), left, right);
         }
 
         return left;
@@ -581,27 +707,27 @@ public final class Parser {
     public Ast.Expr parseSecondaryExpression() throws ParseException {
         Ast.Expr expr = parsePrimaryExpression();
 
-        while (match(".")) {
+        while (match(Token.Kind.PERIOD)) {
             if (!match(Token.Type.IDENTIFIER)) {
-                throw new ParseException("No identifier: ", tokens.get(0).getIndex());
+                throw new ParseException("No identifier: ", tokens.getIndex(0));
             }
 
-            String name = tokens.get(-1).getLiteral();
+            String name = tokens.getLiteral(-1);
 
-            if (!match("(")) {
+            if (!match(Token.Kind.LEFT_PAREN)) {
                 expr = new Ast.Expr.Access(Optional.of(expr), name);
             } else {
                 List<Ast.Expr> args = new ArrayList<>();
 
-                while (!match(")")) {
+                while (!match(Token.Kind.RIGHT_PAREN)) {
                     args.add(parseExpression());
-                    if (match(",")) {
+                    if (match(Token.Kind.COMMA)) {
                         args.add(parseExpression());
                     }
                 }
 
-                if (tokens.has(0) && !match(")")) {
-                    throw new ParseException("No identifier: " + tokens.get(-1).getIndex(), tokens.get(-1).getIndex());
+                if (tokens.has(0) && !match(Token.Kind.RIGHT_PAREN)) {
+                    throw new ParseException("No identifier: " + tokens.getIndex(-1), tokens.getIndex(-1));
                 }
 
                 expr = new Ast.Expr.Function(Optional.of(expr), name, args);
@@ -618,45 +744,40 @@ public final class Parser {
      * not strictly necessary.
      */
     public Ast.Expr parsePrimaryExpression() throws ParseException {
-        if (match("NIL")) {
-            return new Ast.Expr.Literal(null);
+        if (match(Token.Kind.NIL)) {
+            return literal(null);
         }
-        else if (match("TRUE")) {
-            return new Ast.Expr.Literal(true);
+        else if (match(Token.Kind.TRUE)) {
+            return literal(true);
         }
-        else if (match("FALSE")) {
-            return new Ast.Expr.Literal(false);
+        else if (match(Token.Kind.FALSE)) {
+            return literal(false);
         }
         else if (match(Token.Type.INTEGER)) {
-            return new Ast.Expr.Literal(new BigInteger(tokens.get(-1).getLiteral()));
+            return literal(new BigInteger(tokens.getLiteral(-1)));
         }
         else if (match(Token.Type.DECIMAL)) {
-            return new Ast.Expr.Literal(new BigDecimal(tokens.get(-1).getLiteral()));
+            return literal(new BigDecimal(tokens.getLiteral(-1)));
         }
         else if (match(Token.Type.CHARACTER)) {
-            String s = noEscape();
-
-            return new Ast.Expr.Literal(s.charAt(1));
+            return literal(tokens.getValue(-1).charAt(0));
         }
         else if (match(Token.Type.STRING)) {
-            String s = noEscape();
-            s = s.substring(1, s.length() - 1);
-
-            return new Ast.Expr.Literal(s);
+            return literal(tokens.getValue(-1));
         }
         else if (match(Token.Type.IDENTIFIER)) {
-            String name = tokens.get(-1).getLiteral();
+            String name = tokens.getLiteral(-1);
             List<Ast.Expr> args = new ArrayList<>();
 
-            if (match("(")) {
-                if (!peek(")")) {
+            if (match(Token.Kind.LEFT_PAREN)) {
+                if (!peek(Token.Kind.RIGHT_PAREN)) {
                     args.add(parseExpression());
 
-                    while (match(",")) {
+                    while (match(Token.Kind.COMMA)) {
                         args.add(parseExpression());
                     }
                 }
-                if (match(")")) {
+                if (match(Token.Kind.RIGHT_PAREN)) {
                     return new Ast.Expr.Function(Optional.empty(), name, args);
                 }
                 else {
@@ -667,108 +788,110 @@ public final class Parser {
                 return new Ast.Expr.Access(Optional.empty(), name);
             }
         }
-        else if (match("(")) {
+        else if (match(Token.Kind.LEFT_PAREN)) {
             Ast.Expr expr = parseExpression();
-            if (!match(")")) {
+            if (!match(Token.Kind.RIGHT_PAREN)) {
                 throw errMsg("No Parenthesis: ");
             }
-            return new Ast.Expr.Group(expr);
+            return interner == null ? new Ast.Expr.Group(expr) : interner.group(expr);
         }
         else {
-            throw new ParseException("No token: " + tokens.get(-1).getIndex(), tokens.get(-1).getIndex());
+            throw new ParseException("No token: " + tokens.getIndex(-1), tokens.getIndex(-1));
         }
     }
 
-    private String noEscape() {
-        String s = tokens.get(-1).getLiteral();
-
-        s = s.replace("\\b", "\b");
-        s = s.replace("\\n", "\n");
-        s = s.replace("\\r", "\r");
-        s = s.replace("\\t", "\t");
-        s = s.replace("\\'", "'");
-        s = s.replace("\\\"", "\"");
-        s = s.replace("\\\\", "\\");
+    /**
+     * Returns a literal for the value, shared through the interner if there
+     * is one.
+     */
+    private Ast.Expr.Literal literal(Object value) {
+        return interner == null ? new Ast.Expr.Literal(value) : interner.literal(value);
+    }
 
-        return s;
+    /**
+     * Returns the index of the next token in the stream.
+     */
+    int getPosition() {
+        return tokens.index;
     }
 
     private ParseException errMsg(String message) {
         if (tokens.has(0)) {
-            return new ParseException(message + tokens.get(0).getIndex(), tokens.get(0).getIndex());
+            return new ParseException(message + tokens.getIndex(0), tokens.getIndex(0));
         } else {
-            return new ParseException(message + (tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length()),
-                    (tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length()));
+            return new ParseException(message + (tokens.getIndex(-1) + tokens.getLiteral(-1).length()),
+                    (tokens.getIndex(-1) + tokens.getLiteral(-1).length()));
         }
     }
 
     /**
-     * As in the lexer, returns {@code true} if the current sequence of tokens
-     * matches the given patterns. Unlike the lexer, the pattern is not a regex;
-     * instead it is either a {@link Token.Type}, which matches if the token's
-     * type is the same, or a {@link String}, which matches if the token's
-     * literal is the same.
-     *
-     * In other words, {@code Token(IDENTIFIER, "literal")} is matched by both
-     * {@code peek(Token.Type.IDENTIFIER)} and {@code peek("literal")}.
+     * Returns {@code true} if the next token has the given kind. Keywords and
+     * operators are tagged with their own {@link Token.Kind} by the lexer, so
+     * this is a single comparison rather than a literal check.
      */
-    private boolean peek(Object... patterns) {
-        for (int i = 0; i < patterns.length; i++) {
-            if (!tokens.has(i)) {
-                return false;
-            } else if (patterns[i] instanceof Token.Type) {
-                if (patterns[i] != tokens.get(i).getType()) {
-                    return false;
-                }
-            } else if (patterns[i] instanceof String) {
-                if (!patterns[i].equals(tokens.get(i).getLiteral())) {
-                    return false;
-                }
-            } else {
-                throw new AssertionError("Invalid pattern object: " + patterns[i].getClass());
-            }
-        }
-        return true;
+    private boolean peek(Token.Kind kind) {
+        return tokens.has(0) && tokens.getKind(0) == kind;
     }
 
     /**
-     * As in the lexer, returns {@code true} if {@link #peek(Object...)} is true
-     * and advances the token stream.
+     * Returns {@code true} if the next token has the given type. Unlike {@link
+     * #peek(Token.Kind)}, this also matches keywords as identifiers.
      */
-    private boolean match(Object... patterns) {
-        boolean peek = peek(patterns);
+    private boolean peek(Token.Type type) {
+        return tokens.has(0) && tokens.getType(0) == type;
+    }
 
+    /**
+     * Returns {@code true} if {@link #peek(Token.Kind)} is true and advances
+     * the token stream.
+     */
+    private boolean match(Token.Kind kind) {
+        boolean peek = peek(kind);
         if (peek) {
-            for (int i = 0; i < patterns.length; i++) {
-                tokens.advance();
-            }
+            tokens.advance();
         }
         return peek;
     }
 
+    /**
+     * Returns {@code true} if {@link #peek(Token.Type)} is true and advances
+     * the token stream.
+     */
+    private boolean match(Token.Type type) {
+        boolean peek = peek(type);
+        if (peek) {
+            tokens.advance();
+        }
+        return peek;
+    }
 
-    private static final class TokenStream {
-
-        private final List<Token> tokens;
-        private int index = 0;
+    private abstract static class TokenStream {
 
-        private TokenStream(List<Token> tokens) {
-            this.tokens = tokens;
-        }
+        protected int index = 0;
 
         /**
          * Returns true if there is a token at index + offset.
          */
-        public boolean has(int offset) {
-            return index + offset < tokens.size();
-        }
+        public abstract boolean has(int offset);
+
+        public abstract Token.Kind getKind(int offset);
+
+        public abstract Token.Type getType(int offset);
 
         /**
-         * Gets the token at index + offset.
+         * Returns the literal of the token at index + offset.
          */
-        public Token get(int offset) {
-            return tokens.get(index + offset);
-        }
+        public abstract String getLiteral(int offset);
+
+        /**
+         * Returns the source index of the token at index + offset.
+         */
+        public abstract int getIndex(int offset);
+
+        /**
+         * Returns the decoded value of the literal at index + offset.
+         */
+        public abstract String getValue(int offset);
 
         /**
          * Advances to the next token, incrementing the index.
@@ -779,4 +902,116 @@ public final class Parser {
 
     }
 
+    private static final class BufferStream extends TokenStream {
+
+        private final TokenBuffer tokens;
+
+        private BufferStream(TokenBuffer tokens) {
+            this.tokens = tokens;
+        }
+
+        @Override
+        public boolean has(int offset) {
+            return index + offset < tokens.size();
+        }
+
+        @Override
+        public Token.Kind getKind(int offset) {
+            return tokens.getKind(index + offset);
+        }
+
+        @Override
+        public Token.Type getType(int offset) {
+            return tokens.getType(index + offset);
+        }
+
+        @Override
+        public String getLiteral(int offset) {
+            return tokens.getLiteral(index + offset);
+        }
+
+        @Override
+        public int getIndex(int offset) {
+            return tokens.getIndex(index + offset);
+        }
+
+        @Override
+        public String getValue(int offset) {
+            return tokens.getValue(index + offset);
+        }
+
+    }
+
+    /**
+     * Pulls tokens from an iterator on demand, keeping only the previous token
+     * and the lookahead in a small ring buffer.
+     */
+    private static final class IteratorStream extends TokenStream {
+
+        private final Iterator<Token> source;
+        private Token[] window = new Token[8];
+        private int size = 0;
+
+        private IteratorStream(Iterator<Token> source) {
+            this.source = source;
+        }
+
+        @Override
+        public boolean has(int offset) {
+            while (index + offset >= size && source.hasNext()) {
+                if (size - index + 1 == window.length) {
+                    window = resize(window.length * 2);
+                }
+                window[size++ & window.length - 1] = source.next();
+            }
+            return index + offset < size;
+        }
+
+        @Override
+        public Token.Kind getKind(int offset) {
+            return get(offset).getKind();
+        }
+
+        @Override
+        public Token.Type getType(int offset) {
+            return get(offset).getType();
+        }
+
+        @Override
+        public String getLiteral(int offset) {
+            return get(offset).getLiteral();
+        }
+
+        @Override
+        public int getIndex(int offset) {
+            return get(offset).getIndex();
+        }
+
+        @Override
+        public String getValue(int offset) {
+            return get(offset).getValue();
+        }
+
+        /**
+         * Gets the token at index + offset. Only the previous token is kept
+         * once the stream has advanced past it.
+         */
+        private Token get(int offset) {
+            int i = index + offset;
+            if (i < 0 || i < index - 1 || !has(offset)) {
+                throw new IndexOutOfBoundsException("Index " + i + " out of bounds for token stream");
+            }
+            return window[i & window.length - 1];
+        }
+
+        private Token[] resize(int length) {
+            Token[] resized = new Token[length];
+            for (int i = Math.max(index - 1, 0); i < size; i++) {
+                resized[i & length - 1] = window[i & window.length - 1];
+            }
+            return resized;
+        }
+
+    }
+
 }
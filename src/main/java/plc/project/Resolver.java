@@ -0,0 +1,196 @@
+package plc.project;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns each field, parameter, local variable, and loop variable a slot in
+ * a frame, and each access the depth and slot of the variable it refers to, so
+ * the {@link Interpreter} reads and writes variables by index rather than by
+ * name.
+ *
+ * Fields are slots of the frame of the source. Each method has one frame,
+ * with its parameters first, holding the variables of all its blocks; a
+ * block's slots are reused once it ends. Inside a method, depth {@code 0} is
+ * the method's frame and {@code 1} the source's. An access to a name which is
+ * not declared in the source (such as one defined in the scope passed to the
+ * interpreter) is left unresolved, and is looked up by name as before.
+ * Statements are only resolved as part of a method, after which each is given
+ * the slots which are dead when it is reached, found by {@link Liveness}, so
+ * the interpreter does not keep their values alive until the method returns.
+ */
+public final class Resolver implements Ast.Visitor<Void> {
+
+    private final Map<String, Integer> fields = new HashMap<>();
+    private final Deque<Map<String, Integer>> blocks = new ArrayDeque<>();
+    private int next = 0;
+    private int size = 0;
+
+    @Override
+    public Void visit(Ast.Source ast) {
+        fields.clear();
+        ast.getFields().forEach(this::visit);
+        ast.getMethods().forEach(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Field ast) {
+        ast.getValue().ifPresent(this::visit);
+        if (fields.containsKey(ast.getName())) {
+            throw new RuntimeException("The variable " + ast.getName() + " is already defined in this scope.");
+        }
+        fields.put(ast.getName(), fields.size());
+        ast.setSlot(fields.get(ast.getName()));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Method ast) {
+        next = 0;
+        size = 0;
+        blocks.push(new HashMap<>());
+        try {
+            ast.getParameters().forEach(this::declare);
+            ast.getStatements().forEach(this::visit);
+        } finally {
+            blocks.clear();
+        }
+        ast.setFrameSize(size);
+        Liveness liveness = new Liveness(ast);
+        for (ControlFlowGraph.Node node : liveness.getGraph().getNodes()) {
+            if (node.getStatement() != null) {
+                node.getStatement().setReleased(liveness.getReleased(node.getStatement()));
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Expression ast) {
+        visit(ast.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Declaration ast) {
+        ast.getValue().ifPresent(this::visit);
+        ast.setSlot(declare(ast.getName()));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Assignment ast) {
+        visit(ast.getReceiver());
+        visit(ast.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.If ast) {
+        visit(ast.getCondition());
+        block(ast.getThenStatements(), null);
+        block(ast.getElseStatements(), null);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.For ast) {
+        visit(ast.getValue());
+        block(ast.getStatements(), ast);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.While ast) {
+        visit(ast.getCondition());
+        block(ast.getStatements(), null);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Return ast) {
+        visit(ast.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Literal ast) {
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Group ast) {
+        visit(ast.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Binary ast) {
+        visit(ast.getLeft());
+        visit(ast.getRight());
+        return null;
+    }
+
+    /**
+     * Resolves the access to the innermost declaration of its name. Accesses
+     * with a receiver are fields of an object, which are not resolved.
+     */
+    @Override
+    public Void visit(Ast.Expr.Access ast) {
+        if (ast.getReceiver().isPresent()) {
+            visit(ast.getReceiver().get());
+            return null;
+        }
+        for (Map<String, Integer> block : blocks) {
+            Integer slot = block.get(ast.getName());
+            if (slot != null) {
+                ast.setAddress(0, slot);
+                return null;
+            }
+        }
+        Integer slot = fields.get(ast.getName());
+        if (slot != null) {
+            ast.setAddress(blocks.isEmpty() ? 0 : 1, slot);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Function ast) {
+        ast.getReceiver().ifPresent(this::visit);
+        ast.getArguments().forEach(this::visit);
+        return null;
+    }
+
+    /**
+     * Resolves the statements of a block, declaring the variable of the loop
+     * first if there is one, and frees the slots of the block afterwards.
+     */
+    private void block(Iterable<Ast.Stmt> statements, Ast.Stmt.For loop) {
+        int start = next;
+        blocks.push(new HashMap<>());
+        try {
+            if (loop != null) {
+                loop.setSlot(declare(loop.getName()));
+            }
+            statements.forEach(this::visit);
+        } finally {
+            blocks.pop();
+            next = start;
+        }
+    }
+
+    private int declare(String name) {
+        Map<String, Integer> block = blocks.peek();
+        if (block.containsKey(name)) {
+            throw new RuntimeException("The variable " + name + " is already defined in this scope.");
+        }
+        block.put(name, next);
+        size = Math.max(size, next + 1);
+        return next++;
+    }
+
+}
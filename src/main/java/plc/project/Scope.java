@@ -1,6 +1,7 @@
 package plc.project;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,7 +11,11 @@ public final class Scope {
 
     private final Scope parent;
     private final Map<String, Environment.Variable> variables = new HashMap<>();
-    private final Map<String, Environment.Function> functions = new HashMap<>();
+    /**
+     * Functions by name, then indexed by arity, so lookups use the (interned)
+     * name directly instead of building a {@code name/arity} key.
+     */
+    private final Map<String, Environment.Function[]> functions = new HashMap<>();
 
     public Scope(Scope parent) {
         this.parent = parent;
@@ -35,8 +40,9 @@ public final class Scope {
     }
 
     public Environment.Variable lookupVariable(String name) {
-        if (variables.containsKey(name)) {
-            return variables.get(name);
+        Environment.Variable variable = variables.get(name);
+        if (variable != null) {
+            return variable;
         } else if (parent != null) {
             return parent.lookupVariable(name);
         } else {
@@ -53,18 +59,24 @@ public final class Scope {
     }
 
     public Environment.Function defineFunction(String name, String jvmName, List<Environment.Type> parameterTypes, Environment.Type returnType, java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
-        if (functions.containsKey(name + "/" + parameterTypes.size())) {
+        if (getFunction(name, parameterTypes.size()) != null) {
             throw new RuntimeException("The function " + name + "/" + parameterTypes.size() + " is already defined in this scope.");
         } else {
             Environment.Function func = new Environment.Function(name, jvmName, parameterTypes, returnType, function);
-            functions.put(func.getName() + "/" + func.getParameterTypes().size(), func);
+            Environment.Function[] overloads = functions.get(name);
+            if (overloads == null || overloads.length <= parameterTypes.size()) {
+                overloads = overloads == null ? new Environment.Function[parameterTypes.size() + 1] : Arrays.copyOf(overloads, parameterTypes.size() + 1);
+                functions.put(name, overloads);
+            }
+            overloads[parameterTypes.size()] = func;
             return func;
         }
     }
 
     public Environment.Function lookupFunction(String name, int arity) {
-        if (functions.containsKey(name + "/" + arity)) {
-            return functions.get(name + "/" + arity);
+        Environment.Function function = getFunction(name, arity);
+        if (function != null) {
+            return function;
         } else if (parent != null) {
             return parent.lookupFunction(name, arity);
         } else {
@@ -72,12 +84,25 @@ public final class Scope {
         }
     }
 
+    private Environment.Function getFunction(String name, int arity) {
+        Environment.Function[] overloads = functions.get(name);
+        return overloads != null && arity < overloads.length ? overloads[arity] : null;
+    }
+
     @Override
     public String toString() {
+        List<String> keys = new ArrayList<>();
+        functions.forEach((name, overloads) -> {
+            for (int arity = 0; arity < overloads.length; arity++) {
+                if (overloads[arity] != null) {
+                    keys.add(name + "/" + arity);
+                }
+            }
+        });
         return "Scope{" +
                 "parent=" + parent +
                 ", variables=" + variables.keySet() +
-                ", functions=" + functions.keySet() +
+                ", functions=" + keys +
                 '}';
     }
 
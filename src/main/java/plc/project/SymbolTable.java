@@ -0,0 +1,100 @@
+package plc.project;
+
+import java.util.Arrays;
+
+/**
+ * Interns identifier names so each distinct name is stored once and is
+ * represented by a dense integer symbol. The keywords of {@link Token.Kind}
+ * are interned first, which lets the lexer tell a keyword from an identifier
+ * by its symbol alone.
+ *
+ * Since names come back as the same {@link String} instance, a name repeated
+ * through the source is stored once, and two equal names from the same table
+ * are found equal by the identity check in {@link String#equals}.
+ * A table may be shared between lexers, but is not thread-safe.
+ */
+public final class SymbolTable {
+
+    private static final Token.Kind[] KEYWORDS = Arrays.stream(Token.Kind.values())
+            .filter(kind -> kind.getLiteral() != null && kind.getType() == Token.Type.IDENTIFIER)
+            .toArray(Token.Kind[]::new);
+
+    private String[] names = new String[64];
+    private int[] hashes = new int[64];
+    private int[] table = new int[128];
+    private int size = 0;
+
+    public SymbolTable() {
+        Arrays.fill(table, -1);
+        for (Token.Kind keyword : KEYWORDS) {
+            intern(keyword.getLiteral());
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getName(int symbol) {
+        if (symbol < 0 || symbol >= size) {
+            throw new IndexOutOfBoundsException("Index " + symbol + " out of bounds for length " + size);
+        }
+        return names[symbol];
+    }
+
+    /**
+     * Returns the keyword kind of the given symbol, or {@link
+     * Token.Kind#IDENTIFIER} if it is not a keyword.
+     */
+    public Token.Kind getKind(int symbol) {
+        return symbol < KEYWORDS.length ? KEYWORDS[symbol] : Token.Kind.IDENTIFIER;
+    }
+
+    public int intern(String name) {
+        return intern(new LexerInput.StringInput(name), 0, name.length());
+    }
+
+    /**
+     * Interns the given range of the input, only copying it out if the name
+     * has not been seen before.
+     */
+    int intern(LexerInput input, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + input.get(i);
+        }
+
+        int slot = hash & table.length - 1;
+        for (int symbol = table[slot]; symbol != -1; symbol = table[slot]) {
+            if (hashes[symbol] == hash && names[symbol].length() == length && input.regionMatches(start, names[symbol])) {
+                return symbol;
+            }
+            slot = slot + 1 & table.length - 1;
+        }
+
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        names[size] = input.substring(start, start + length);
+        hashes[size] = hash;
+        table[slot] = size;
+        if (++size * 2 > table.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        Arrays.fill(table, -1);
+        for (int symbol = 0; symbol < size; symbol++) {
+            int slot = hashes[symbol] & table.length - 1;
+            while (table[slot] != -1) {
+                slot = slot + 1 & table.length - 1;
+            }
+            table[slot] = symbol;
+        }
+    }
+
+}
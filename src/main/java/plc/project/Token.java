@@ -1,5 +1,8 @@
 package plc.project;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public final class Token {
 
     public enum Type {
@@ -11,14 +14,119 @@ public final class Token {
         OPERATOR
     }
 
+    /**
+     * A finer classification than {@link Type} which gives every keyword and
+     * operator the parser recognizes its own kind, so it can dispatch without
+     * comparing literals. Other tokens have the kind matching their type.
+     */
+    public enum Kind {
+        IDENTIFIER(Type.IDENTIFIER, null),
+        INTEGER(Type.INTEGER, null),
+        DECIMAL(Type.DECIMAL, null),
+        CHARACTER(Type.CHARACTER, null),
+        STRING(Type.STRING, null),
+        OPERATOR(Type.OPERATOR, null),
+        LET(Type.IDENTIFIER, "LET"),
+        DEF(Type.IDENTIFIER, "DEF"),
+        DO(Type.IDENTIFIER, "DO"),
+        END(Type.IDENTIFIER, "END"),
+        IF(Type.IDENTIFIER, "IF"),
+        ELSE(Type.IDENTIFIER, "ELSE"),
+        FOR(Type.IDENTIFIER, "FOR"),
+        IN(Type.IDENTIFIER, "IN"),
+        WHILE(Type.IDENTIFIER, "WHILE"),
+        RETURN(Type.IDENTIFIER, "RETURN"),
+        NIL(Type.IDENTIFIER, "NIL"),
+        TRUE(Type.IDENTIFIER, "TRUE"),
+        FALSE(Type.IDENTIFIER, "FALSE"),
+        AND(Type.IDENTIFIER, "AND"),
+        OR(Type.IDENTIFIER, "OR"),
+        PLUS(Type.OPERATOR, "+"),
+        MINUS(Type.OPERATOR, "-"),
+        ASTERISK(Type.OPERATOR, "*"),
+        SLASH(Type.OPERATOR, "/"),
+        LESS(Type.OPERATOR, "<"),
+        LESS_EQUAL(Type.OPERATOR, "<="),
+        GREATER(Type.OPERATOR, ">"),
+        GREATER_EQUAL(Type.OPERATOR, ">="),
+        EQUAL_EQUAL(Type.OPERATOR, "=="),
+        NOT_EQUAL(Type.OPERATOR, "!="),
+        EQUAL(Type.OPERATOR, "="),
+        COLON(Type.OPERATOR, ":"),
+        SEMICOLON(Type.OPERATOR, ";"),
+        COMMA(Type.OPERATOR, ","),
+        PERIOD(Type.OPERATOR, "."),
+        LEFT_PAREN(Type.OPERATOR, "("),
+        RIGHT_PAREN(Type.OPERATOR, ")");
+
+        private static final Map<String, Kind> LITERALS = new HashMap<>();
+        private static final Kind[] TYPES = new Kind[Type.values().length];
+
+        static {
+            for (Kind kind : values()) {
+                if (kind.ordinal() < TYPES.length) {
+                    TYPES[kind.ordinal()] = kind;
+                }
+                if (kind.literal != null) {
+                    LITERALS.put(kind.literal, kind);
+                }
+            }
+        }
+
+        private final Type type;
+        private final String literal;
+
+        Kind(Type type, String literal) {
+            this.type = type;
+            this.literal = literal;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Returns the literal of a keyword or operator kind, or {@code null}
+         * for kinds which cover many literals.
+         */
+        public String getLiteral() {
+            return literal;
+        }
+
+        /**
+         * Returns the general kind for tokens of the given type.
+         */
+        public static Kind of(Type type) {
+            return TYPES[type.ordinal()];
+        }
+
+        public static Kind of(Type type, String literal) {
+            Kind kind = LITERALS.get(literal);
+            return kind != null && kind.type == type ? kind : TYPES[type.ordinal()];
+        }
+
+    }
+
     private final Type type;
     private final String literal;
     private final int index;
+    private final Kind kind;
+    private final String value;
 
     public Token(Type type, String literal, int index) {
+        this(Kind.of(type, literal), type, literal, index);
+    }
+
+    Token(Kind kind, Type type, String literal, int index) {
+        this(kind, type, literal, index, null);
+    }
+
+    Token(Kind kind, Type type, String literal, int index, String value) {
         this.type = type;
         this.literal = literal;
         this.index = index;
+        this.kind = kind;
+        this.value = value;
     }
 
     public Type getType() {
@@ -33,6 +141,23 @@ public final class Token {
         return index;
     }
 
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the contents of a character or string literal with its escape
+     * sequences decoded, or {@code null} for other tokens. Tokens from a
+     * {@link DfaLexer} carry the value decoded while lexing; otherwise, it is
+     * decoded from the literal.
+     */
+    public String getValue() {
+        if (value != null || type != Type.CHARACTER && type != Type.STRING) {
+            return value;
+        }
+        return new LexerInput.StringInput(literal).unescape(1, literal.length() - 1);
+    }
+
     @Override
     public boolean equals(Object obj) {
         return obj instanceof Token
@@ -0,0 +1,226 @@
+package plc.project;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact, index-addressed list of tokens. Rather than a {@link Token} per
+ * token, the buffer stores parallel arrays of kind, start index, and length
+ * which point into the source, plus the interned symbol of each identifier.
+ * Literals are only materialized when requested through {@link
+ * #getLiteral(int)}, and identifiers, keywords, and operators are then shared
+ * rather than copied.
+ *
+ * Buffers are produced by {@link DfaLexer#lexBuffer()} and consumed by {@link
+ * Parser#Parser(TokenBuffer)}.
+ */
+public final class TokenBuffer {
+
+    private static final Token.Kind[] KINDS = Token.Kind.values();
+
+    private LexerInput source;
+    private final SymbolTable symbols;
+    private int[] kinds = new int[64];
+    private int[] starts = new int[64];
+    private int[] lengths = new int[64];
+    private int[] identifiers = new int[64];
+    private int size = 0;
+    private LineMap lines;
+
+    TokenBuffer(LexerInput source, SymbolTable symbols) {
+        this.source = source;
+        this.symbols = symbols;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Token.Kind getKind(int token) {
+        return KINDS[kinds[check(token)]];
+    }
+
+    public Token.Type getType(int token) {
+        return getKind(token).getType();
+    }
+
+    public int getIndex(int token) {
+        return starts[check(token)];
+    }
+
+    public int getLength(int token) {
+        return lengths[check(token)];
+    }
+
+    /**
+     * Returns the interned symbol of an identifier or keyword token, or
+     * {@code -1} for other tokens.
+     */
+    public int getSymbol(int token) {
+        return identifiers[check(token)];
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Returns the line map of the source, which is built at most once per
+     * source and shared by everything holding the buffer.
+     */
+    public LineMap getLineMap() {
+        if (lines == null) {
+            lines = new LineMap(source);
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the literal of the given token. Only literals which are not
+     * already known (numbers, characters, strings, and unrecognized operators)
+     * are copied out of the source.
+     */
+    public String getLiteral(int token) {
+        String literal = KINDS[kinds[check(token)]].getLiteral();
+        if (identifiers[token] != -1) {
+            return symbols.getName(identifiers[token]);
+        } else if (literal != null) {
+            return literal;
+        }
+        return source.substring(starts[token], starts[token] + lengths[token]);
+    }
+
+    /**
+     * Returns the decoded contents of a character or string token, copied
+     * directly out of the source, or {@code null} for other tokens.
+     */
+    public String getValue(int token) {
+        Token.Kind kind = KINDS[kinds[check(token)]];
+        if (kind != Token.Kind.CHARACTER && kind != Token.Kind.STRING) {
+            return null;
+        }
+        return source.unescape(starts[token] + 1, starts[token] + lengths[token] - 1);
+    }
+
+    /**
+     * Returns true if the literal of the given token is equal to the given
+     * string, without materializing the literal.
+     */
+    public boolean literalEquals(int token, String literal) {
+        return lengths[check(token)] == literal.length() && source.regionMatches(starts[token], literal);
+    }
+
+    public Token get(int token) {
+        return new Token(getKind(token), getType(token), getLiteral(token), getIndex(token), getValue(token));
+    }
+
+    /**
+     * Returns a view of the buffer as {@link Token}s, which are materialized
+     * on each access.
+     */
+    public List<Token> asList() {
+        return new AbstractList<Token>() {
+
+            @Override
+            public Token get(int index) {
+                return TokenBuffer.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+        };
+    }
+
+    void add(Token.Kind kind, int start, int length, int symbol) {
+        if (size == kinds.length) {
+            grow(size * 2);
+        }
+        kinds[size] = kind.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        identifiers[size] = symbol;
+        size++;
+    }
+
+    /**
+     * Appends all tokens of another buffer over the same source, re-interning
+     * its identifiers into this buffer's symbol table.
+     */
+    void append(TokenBuffer other) {
+        if (size + other.size > kinds.length) {
+            grow(Math.max(size * 2, size + other.size));
+        }
+        System.arraycopy(other.kinds, 0, kinds, size, other.size);
+        System.arraycopy(other.starts, 0, starts, size, other.size);
+        System.arraycopy(other.lengths, 0, lengths, size, other.size);
+        int[] mapping = new int[other.symbols.size()];
+        Arrays.fill(mapping, -1);
+        for (int i = 0; i < other.size; i++) {
+            int symbol = other.identifiers[i];
+            if (symbol != -1 && other.symbols != symbols) {
+                if (mapping[symbol] == -1) {
+                    mapping[symbol] = symbols.intern(other.symbols.getName(symbol));
+                }
+                symbol = mapping[symbol];
+            }
+            identifiers[size + i] = symbol;
+        }
+        size += other.size;
+    }
+
+    /**
+     * Replaces the tokens from {@code from} (inclusive) to {@code to}
+     * (exclusive) with all tokens of the replacement, which must share this
+     * buffer's symbol table, and shifts the indices of the following tokens
+     * by {@code shift}. The buffer then refers to the given source.
+     */
+    void splice(LexerInput source, int from, int to, TokenBuffer replacement, int shift) {
+        int tail = size - to;
+        int end = from + replacement.size;
+        if (end + tail > kinds.length) {
+            grow(Math.max(kinds.length * 2, end + tail));
+        }
+        if (end != to) {
+            System.arraycopy(kinds, to, kinds, end, tail);
+            System.arraycopy(starts, to, starts, end, tail);
+            System.arraycopy(lengths, to, lengths, end, tail);
+            System.arraycopy(identifiers, to, identifiers, end, tail);
+        }
+        System.arraycopy(replacement.kinds, 0, kinds, from, replacement.size);
+        System.arraycopy(replacement.starts, 0, starts, from, replacement.size);
+        System.arraycopy(replacement.lengths, 0, lengths, from, replacement.size);
+        System.arraycopy(replacement.identifiers, 0, identifiers, from, replacement.size);
+        if (shift != 0) {
+            for (int i = end; i < end + tail; i++) {
+                starts[i] += shift;
+            }
+        }
+        size = end + tail;
+        this.source = source;
+        this.lines = null;
+    }
+
+    private void grow(int capacity) {
+        kinds = Arrays.copyOf(kinds, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        identifiers = Arrays.copyOf(identifiers, capacity);
+    }
+
+    private int check(int token) {
+        if (token < 0 || token >= size) {
+            throw new IndexOutOfBoundsException("Index " + token + " out of bounds for length " + size);
+        }
+        return token;
+    }
+
+    @Override
+    public String toString() {
+        return asList().toString();
+    }
+
+}
@@ -0,0 +1,176 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A cached AST must equal the AST it was built from, including the types,
+ * variables, and functions set by the analyzer and the addresses set by the
+ * resolver, and any entry which does not match the source or the format
+ * must be a miss.
+ */
+public class AstCacheTests {
+
+    private static final String PROGRAM = "DEF main(): Integer DO\n" +
+            "    LET x: Integer = 1 + 2 * 3;\n" +
+            "    LET d: Decimal = 1.25;\n" +
+            "    LET s = \"hi\";\n" +
+            "    LET b = TRUE AND 1 > 0 OR FALSE;\n" +
+            "    print('c');\n" +
+            "    WHILE FALSE DO print(\"loop\"); END\n" +
+            "    IF TRUE DO print(1.5); ELSE print(FALSE); END\n" +
+            "    RETURN 7 - 2;\n" +
+            "END\n";
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @MethodSource
+    void testRoundTrip(String test, String input) throws IOException {
+        AstCache cache = new AstCache(directory);
+        Ast.Source expected = new Parser(new DfaLexer(input).lexBuffer()).parseSource();
+        cache.put(input, expected);
+        Ast.Source actual = cache.get(input);
+        Assertions.assertTrue(actual.getMethods().stream().noneMatch(Ast.Method::isParsed));
+        Assertions.assertEquals(expected, actual);
+    }
+
+    private static Stream<Arguments> testRoundTrip() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Fields", "LET x: Integer = 1; LET y: Decimal; LET z: String = \"z\";"),
+                Arguments.of("Statements", "DEF f() DO LET a = NIL; LET b: Decimal; a = 1.5; obj.field = a; print(a); RETURN a; END"),
+                Arguments.of("Blocks", "DEF f() DO IF a DO b(); ELSE c(); d(); END FOR i IN list DO IF x DO END END WHILE y DO z(); END END"),
+                Arguments.of("Expressions", "DEF f() DO RETURN (a + b) * c.d - g(1, '3', \"4\") / f() AND x.y OR NIL != 4.0; END"),
+                Arguments.of("Generated", new ProgramGenerator(0).lines(300).methods(5).depth(3).generate())
+        );
+    }
+
+    @Test
+    void testAnalyzed() throws IOException {
+        AstCache cache = new AstCache(directory);
+        Ast.Source expected = cache.load(PROGRAM);
+        Assertions.assertTrue(Files.exists(cache.getPath(PROGRAM)));
+        Ast.Source actual = cache.get(PROGRAM);
+        Assertions.assertNotSame(expected, actual);
+        Assertions.assertEquals(expected, actual);
+
+        Ast.Stmt.Declaration declaration = (Ast.Stmt.Declaration) actual.getMethods().get(0).getStatements().get(0);
+        Assertions.assertSame(Environment.Type.INTEGER, declaration.getVariable().getType());
+        Assertions.assertSame(Environment.Type.INTEGER, declaration.getValue().get().getType());
+        Assertions.assertEquals(Environment.Type.INTEGER, actual.getMethods().get(0).getFunction().getReturnType());
+        Assertions.assertEquals(
+                new Interpreter(new Scope(null)).visit(new Parser(new Lexer(PROGRAM).lex()).parseSource()).getValue(),
+                new Interpreter(new Scope(null)).visit(actual).getValue()
+        );
+    }
+
+    /**
+     * A hit must keep what the resolver set, or the interpreter would fall
+     * back to looking variables up by name.
+     */
+    @Test
+    void testResolved() throws IOException {
+        AstCache cache = new AstCache(directory);
+        Ast.Source expected = cache.load(PROGRAM);
+        Ast.Source actual = cache.get(PROGRAM);
+        Assertions.assertEquals(addresses(expected), addresses(actual));
+        Ast.Method method = actual.getMethods().get(0);
+        Assertions.assertEquals(expected.getMethods().get(0).getFrameSize(), method.getFrameSize());
+        Assertions.assertNotEquals(-1, method.getFrameSize());
+        Assertions.assertEquals(0, ((Ast.Stmt.Declaration) method.getStatements().get(0)).getSlot());
+        Assertions.assertArrayEquals(new int[] {0}, method.getStatements().get(1).getReleased());
+    }
+
+    @Test
+    void testMiss() throws IOException {
+        AstCache cache = new AstCache(directory.resolve("missing"));
+        Assertions.assertNull(cache.get(PROGRAM));
+        Ast.Source ast = cache.load(PROGRAM);
+        Assertions.assertEquals(ast, cache.get(PROGRAM));
+        Assertions.assertNull(cache.get(PROGRAM + " "));
+    }
+
+    @Test
+    void testVersion() throws IOException {
+        AstCache cache = new AstCache(directory);
+        cache.load(PROGRAM);
+        Path path = cache.getPath(PROGRAM);
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).putInt(4, AstCache.VERSION + 1);
+        Files.write(path, bytes);
+        Assertions.assertNull(cache.get(PROGRAM));
+    }
+
+    @Test
+    void testCorrupt() throws IOException {
+        AstCache cache = new AstCache(directory);
+        cache.load(PROGRAM);
+        Path path = cache.getPath(PROGRAM);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+        Assertions.assertNull(cache.get(PROGRAM));
+        Files.write(path, bytes);
+        Files.move(path, cache.getPath(PROGRAM + " "));
+        Assertions.assertNull(cache.get(PROGRAM + " "));
+    }
+
+    /**
+     * A method body is only decoded when its statements are requested, so a
+     * corrupt body must be caught by the checksum when the entry is read.
+     */
+    @Test
+    void testCorruptBody() throws IOException {
+        AstCache cache = new AstCache(directory);
+        cache.load(PROGRAM);
+        Path path = cache.getPath(PROGRAM);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 6] ^= 0x40;
+        Files.write(path, bytes);
+        Assertions.assertNull(cache.get(PROGRAM));
+    }
+
+    /**
+     * Returns the slots, addresses, frame sizes, and released slots of the
+     * AST in preorder.
+     */
+    private static List<String> addresses(Ast.Source ast) {
+        List<String> addresses = new ArrayList<>();
+        new AstWalker() {
+            @Override
+            protected boolean enter(Ast ast) {
+                if (ast instanceof Ast.Field) {
+                    addresses.add("field " + ((Ast.Field) ast).getSlot());
+                } else if (ast instanceof Ast.Method) {
+                    addresses.add("method " + ((Ast.Method) ast).getFrameSize());
+                } else if (ast instanceof Ast.Stmt) {
+                    addresses.add("released " + Arrays.toString(((Ast.Stmt) ast).getReleased()));
+                    if (ast instanceof Ast.Stmt.Declaration) {
+                        addresses.add("declaration " + ((Ast.Stmt.Declaration) ast).getSlot());
+                    } else if (ast instanceof Ast.Stmt.For) {
+                        addresses.add("for " + ((Ast.Stmt.For) ast).getSlot());
+                    }
+                } else if (ast instanceof Ast.Expr.Access) {
+                    addresses.add("access " + ((Ast.Expr.Access) ast).getDepth() + " " + ((Ast.Expr.Access) ast).getSlot());
+                }
+                return true;
+            }
+        }.walk(ast);
+        return addresses;
+    }
+
+}
@@ -0,0 +1,77 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+/**
+ * Interning must not change the AST, only which nodes are shared: constant
+ * expressions are shared and anything referring to a name is not.
+ */
+public class AstInternerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testParse(String test, String input) {
+        TokenBuffer tokens = new DfaLexer(input).lexBuffer();
+        Assertions.assertEquals(new Parser(tokens).parseSource(), new Parser(tokens, false, new AstInterner()).parseSource());
+        Assertions.assertEquals(new Parser(tokens).parseSource(), new Parser(tokens, true, new AstInterner()).parseSource());
+    }
+
+    private static Stream<Arguments> testParse() {
+        return Stream.of(
+                Arguments.of("Fields", "LET x: Integer = 1; LET y: Integer = 1; LET z: String = \"z\";"),
+                Arguments.of("Expressions", "DEF f() DO RETURN (1 + 2) * x - (1 + 2) * 3 / f() AND NIL OR 'c' != 4.0; END"),
+                Arguments.of("Generated", new ProgramGenerator(0).lines(300).methods(5).depth(3).generate())
+        );
+    }
+
+    @Test
+    void testLiteral() {
+        AstInterner interner = new AstInterner();
+        Assertions.assertSame(interner.literal(new BigInteger("1")), interner.literal(new BigInteger("1")));
+        Assertions.assertSame(interner.literal(null), interner.literal(null));
+        Assertions.assertSame(interner.literal(true), interner.literal(true));
+        Assertions.assertNotSame(interner.literal(new BigDecimal("1.0")), interner.literal(new BigDecimal("1.00")));
+        Assertions.assertNotSame(interner.literal('a'), interner.literal("a"));
+        Assertions.assertSame(interner.value(new String("a")), interner.value(new String("a")));
+        Assertions.assertTrue(interner.isInterned(interner.literal("a")));
+        Assertions.assertFalse(interner.isInterned(new Ast.Expr.Literal("a")));
+    }
+
+    @Test
+    void testSharing() {
+        AstInterner interner = new AstInterner();
+        Ast.Source ast = new Parser(new DfaLexer("DEF f() DO print((1 + 2) * 3); print((1 + 2) * 3); print(x + 1); print(x + 1); END").lexBuffer(), false, interner).parseSource();
+        Ast.Expr first = ((Ast.Expr.Function) ((Ast.Stmt.Expression) ast.getMethods().get(0).getStatements().get(0)).getExpression()).getArguments().get(0);
+        Ast.Expr second = ((Ast.Expr.Function) ((Ast.Stmt.Expression) ast.getMethods().get(0).getStatements().get(1)).getExpression()).getArguments().get(0);
+        Ast.Expr third = ((Ast.Expr.Function) ((Ast.Stmt.Expression) ast.getMethods().get(0).getStatements().get(2)).getExpression()).getArguments().get(0);
+        Ast.Expr fourth = ((Ast.Expr.Function) ((Ast.Stmt.Expression) ast.getMethods().get(0).getStatements().get(3)).getExpression()).getArguments().get(0);
+        Assertions.assertSame(first, second);
+        Assertions.assertNotSame(third, fourth);
+        Assertions.assertFalse(interner.isInterned(third));
+        Assertions.assertSame(((Ast.Expr.Binary) third).getRight(), ((Ast.Expr.Binary) fourth).getRight());
+        Assertions.assertEquals(6, interner.size());
+    }
+
+    @Test
+    void testAnalyzer() {
+        String input = "DEF main(): Integer DO LET x: Integer = 1 + 2; LET y: Integer = 1 + 2; print(1 + 2); RETURN 1 + 2; END";
+        Ast.Source expected = new Parser(new DfaLexer(input).lexBuffer()).parseSource();
+        Ast.Source actual = new Parser(new DfaLexer(input).lexBuffer(), false, new AstInterner()).parseSource();
+        new Analyzer(new Scope(null)).visit(expected);
+        new Analyzer(new Scope(null)).visit(actual);
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(
+                new Interpreter(new Scope(null)).visit(expected).getValue(),
+                new Interpreter(new Scope(null)).visit(actual).getValue()
+        );
+    }
+
+}
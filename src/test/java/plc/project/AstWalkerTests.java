@@ -0,0 +1,204 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A walk must visit every node in order and rebuild only what was replaced,
+ * and must not overflow the stack on trees deeper than any recursive visitor
+ * could handle.
+ */
+public class AstWalkerTests {
+
+    private static final String SOURCE = "LET x: Integer = 1;\n" +
+            "DEF f(a: Integer): Integer DO\n" +
+            "    LET y = (a + 1) * 2;\n" +
+            "    print(y);\n" +
+            "    IF y > 1 DO print(1); ELSE y = g(1, 2); END\n" +
+            "    FOR i IN list DO print(i); END\n" +
+            "    WHILE y < 5 DO y = y + 1; END\n" +
+            "    RETURN obj.field;\n" +
+            "END\n";
+
+    @Test
+    void testOrder() {
+        List<String> events = new ArrayList<>();
+        Ast.Source ast = parse(SOURCE);
+        Ast result = new AstWalker() {
+
+            @Override
+            protected boolean enter(Ast ast) {
+                events.add("+" + ast.getClass().getSimpleName());
+                return true;
+            }
+
+            @Override
+            protected Ast leave(Ast ast) {
+                events.add("-" + ast.getClass().getSimpleName());
+                return ast;
+            }
+
+        }.walk(ast);
+        Assertions.assertSame(ast, result);
+        Assertions.assertEquals(List.of("+Source", "+Field", "+Literal", "-Literal", "-Field", "+Method", "+Declaration", "+Binary", "+Group", "+Binary"),
+                events.subList(0, 10));
+        Assertions.assertEquals("-Source", events.get(events.size() - 1));
+        Assertions.assertEquals(events.stream().filter(e -> e.startsWith("+")).count(), events.stream().filter(e -> e.startsWith("-")).count());
+    }
+
+    @Test
+    void testReplace() {
+        Ast.Source ast = parse(SOURCE);
+        Ast.Source result = new AstWalker() {
+
+            @Override
+            protected Ast leave(Ast ast) {
+                if (ast instanceof Ast.Expr.Literal && BigInteger.ONE.equals(((Ast.Expr.Literal) ast).getLiteral())) {
+                    return new Ast.Expr.Literal(BigInteger.TWO);
+                }
+                return ast;
+            }
+
+        }.walk(ast);
+        Assertions.assertEquals(parse(SOURCE.replace("1", "2")), result);
+        Assertions.assertNotSame(ast.getMethods().get(0), result.getMethods().get(0));
+        Ast.Stmt unchanged = ast.getMethods().get(0).getStatements().get(3);
+        Assertions.assertSame(unchanged, result.getMethods().get(0).getStatements().get(3));
+    }
+
+    @Test
+    void testRemove() {
+        Ast.Source result = new AstWalker() {
+
+            @Override
+            protected Ast leave(Ast ast) {
+                if (ast instanceof Ast.Stmt.Expression || ast instanceof Ast.Field) {
+                    return null;
+                }
+                return ast;
+            }
+
+        }.walk(parse(SOURCE));
+        Assertions.assertEquals(parse(SOURCE.replaceAll("print\\(\\w\\);", "").replace("LET x: Integer = 1;", "")), result);
+    }
+
+    @Test
+    void testRemoveRequired() {
+        AstWalker walker = new AstWalker() {
+
+            @Override
+            protected Ast leave(Ast ast) {
+                return ast instanceof Ast.Expr.Literal ? null : ast;
+            }
+
+        };
+        Assertions.assertThrows(IllegalStateException.class, () -> walker.walk(parse(SOURCE)));
+        Assertions.assertEquals(parse("LET x: Integer;"), walker.walk(parse("LET x: Integer = 1;")));
+    }
+
+    @Test
+    void testReplaceType() {
+        AstWalker walker = new AstWalker() {
+
+            @Override
+            protected Ast leave(Ast ast) {
+                return ast instanceof Ast.Expr.Group ? new Ast.Stmt.Return(((Ast.Expr.Group) ast).getExpression()) : ast;
+            }
+
+        };
+        Assertions.assertThrows(IllegalStateException.class, () -> walker.walk(parse(SOURCE)));
+    }
+
+    @Test
+    void testSkip() {
+        List<Ast> visited = new ArrayList<>();
+        new AstWalker() {
+
+            @Override
+            protected boolean enter(Ast ast) {
+                visited.add(ast);
+                return !(ast instanceof Ast.Method);
+            }
+
+        }.walk(parse(SOURCE));
+        Assertions.assertEquals(4, visited.size());
+    }
+
+    @Test
+    void testParent() {
+        Ast.Source ast = parse(SOURCE);
+        List<Ast> parents = new ArrayList<>();
+        new AstWalker() {
+
+            @Override
+            protected Ast leave(Ast ast) {
+                if (ast instanceof Ast.Expr.Access && ((Ast.Expr.Access) ast).getName().equals("field")) {
+                    parents.add(getParent());
+                }
+                return ast;
+            }
+
+        }.walk(ast);
+        Assertions.assertEquals(List.of(ast.getMethods().get(0).getStatements().get(5)), parents);
+    }
+
+    @Test
+    void testResolved() {
+        Ast.Source ast = parse("DEF main(): Integer DO RETURN 1 + 2 * 3; END");
+        new Analyzer(new Scope(null)).visit(ast);
+        Ast.Source result = new AstWalker() {
+
+            @Override
+            protected Ast leave(Ast ast) {
+                if (ast instanceof Ast.Expr.Literal && BigInteger.TWO.equals(((Ast.Expr.Literal) ast).getLiteral())) {
+                    Ast.Expr.Literal literal = new Ast.Expr.Literal(BigInteger.valueOf(4));
+                    literal.setType(Environment.Type.INTEGER);
+                    return literal;
+                }
+                return ast;
+            }
+
+        }.walk(ast);
+        Ast.Source expected = parse("DEF main(): Integer DO RETURN 1 + 4 * 3; END");
+        new Analyzer(new Scope(null)).visit(expected);
+        Assertions.assertEquals(expected, result);
+        Assertions.assertSame(ast.getMethods().get(0).getFunction(), result.getMethods().get(0).getFunction());
+    }
+
+    @Test
+    void testDeep() {
+        Ast.Expr expr = new Ast.Expr.Literal(BigInteger.ONE);
+        for (int i = 0; i < 1_000_000; i++) {
+            expr = i % 2 == 0 ? new Ast.Expr.Group(expr) : new Ast.Expr.Binary("+", new Ast.Expr.Access(java.util.Optional.empty(), "x"), expr);
+        }
+        int[] count = new int[1];
+        Ast.Expr result = new AstWalker() {
+
+            @Override
+            protected Ast leave(Ast ast) {
+                count[0]++;
+                return ast instanceof Ast.Expr.Access ? new Ast.Expr.Access(java.util.Optional.empty(), "y") : ast;
+            }
+
+        }.walk(expr);
+        Assertions.assertEquals(1_500_001, count[0]);
+        for (int i = 0; i < 1_000_000; i++) {
+            if (result instanceof Ast.Expr.Group) {
+                result = ((Ast.Expr.Group) result).getExpression();
+            } else {
+                Assertions.assertEquals("y", ((Ast.Expr.Access) ((Ast.Expr.Binary) result).getLeft()).getName());
+                result = ((Ast.Expr.Binary) result).getRight();
+            }
+        }
+        Assertions.assertEquals(new Ast.Expr.Literal(BigInteger.ONE), result);
+    }
+
+    private static Ast.Source parse(String input) {
+        return new Parser(new DfaLexer(input).lexBuffer()).parseSource();
+    }
+
+}
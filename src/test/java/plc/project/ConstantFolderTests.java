@@ -0,0 +1,127 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+/**
+ * Folding must give the values the interpreter computes, leave anything that
+ * would fail at runtime in place, and only propagate fields which are never
+ * assigned.
+ */
+public class ConstantFolderTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testExpression(String test, String input, String expected) {
+        Ast.Expr ast = parseExpression(input);
+        Assertions.assertEquals(parseExpression(expected), new ConstantFolder().fold(ast));
+        Assertions.assertEquals(parseExpression(input), ast);
+    }
+
+    private static Stream<Arguments> testExpression() {
+        return Stream.of(
+                Arguments.of("Integer", "60 * 60 * 24", "86400"),
+                Arguments.of("String", "\"prefix\" + \"-\" + \"suffix\"", "\"prefix-suffix\""),
+                Arguments.of("Concatenation", "\"n=\" + 1 + 'c'", "\"n=1c\""),
+                Arguments.of("Decimal", "1.1 + 2.2", "1.1 + 2.2"),
+                Arguments.of("Decimal Product", "1.5 * 2.0 - 0.5", "1.5 * 2.0 - 0.5"),
+                Arguments.of("Decimal Equality", "1.0 == 1.00", "1.0 == 1.00"),
+                Arguments.of("Decimal Concatenation", "\"x\" + 1.50", "\"x\" + 1.50"),
+                Arguments.of("Decimal Comparison", "1.5 < 2.25 AND 1.0 >= 1.00", "TRUE"),
+                Arguments.of("Integer Overflow", "2147483647 * 2 / 2", "2147483647 * 2 / 2"),
+                Arguments.of("Integer Overflow Comparison", "2147483647 + 1 > 0", "2147483647 + 1 > 0"),
+                Arguments.of("Integer Minimum", "-2147483647 - 1", "-2147483648"),
+                Arguments.of("Group", "(1 + 2) * x", "3 * x"),
+                Arguments.of("Partial", "x + 1 + 2", "x + 1 + 2"),
+                Arguments.of("Comparison", "1 < 2 AND 'a' != 'b'", "TRUE"),
+                Arguments.of("Mismatched Comparison", "1 < 2.0", "FALSE"),
+                Arguments.of("Or", "FALSE OR 1 == 1", "TRUE"),
+                Arguments.of("Division", "7 / 2", "3"),
+                Arguments.of("Division By Zero", "1 / (2 - 2)", "1 / 0"),
+                Arguments.of("Decimal Division", "1.0 / 3.0", "1.0 / 3.0"),
+                Arguments.of("Type Error", "1 + TRUE", "1 + TRUE"),
+                Arguments.of("Nil", "NIL == NIL", "NIL == NIL")
+        );
+    }
+
+    @Test
+    void testPropagation() {
+        Ast.Source ast = parse("LET a: Integer = 60;\n" +
+                "LET b: Integer = a * 60;\n" +
+                "LET c: Integer = 1;\n" +
+                "DEF main(): Integer DO\n" +
+                "    c = b;\n" +
+                "    IF TRUE DO LET a = 2; print(a); END\n" +
+                "    RETURN a * b + c;\n" +
+                "END\n");
+        new Resolver().visit(ast);
+        Ast.Source expected = parse("LET a: Integer = 60;\n" +
+                "LET b: Integer = 3600;\n" +
+                "LET c: Integer = 1;\n" +
+                "DEF main(): Integer DO\n" +
+                "    c = 3600;\n" +
+                "    IF TRUE DO LET a = 2; print(a); END\n" +
+                "    RETURN 216000 + c;\n" +
+                "END\n");
+        Ast.Source actual = new ConstantFolder().fold(ast);
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(BigInteger.valueOf(219600), new Interpreter(new Scope(null)).visit(actual).getValue());
+    }
+
+    @Test
+    void testUnresolved() {
+        Ast.Source ast = parse("LET a: Integer = 60; DEF main(): Integer DO RETURN a * 2; END");
+        Assertions.assertEquals(ast, new ConstantFolder().fold(ast));
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testInterpreter(String test, String input) {
+        Ast.Source ast = parse(input);
+        new Resolver().visit(ast);
+        Ast.Source folded = new ConstantFolder().fold(ast);
+        Assertions.assertNotEquals(ast, folded);
+        Assertions.assertEquals(
+                new Interpreter(new Scope(null)).visit(ast).getValue(),
+                new Interpreter(new Scope(null)).visit(folded).getValue()
+        );
+    }
+
+    private static Stream<Arguments> testInterpreter() {
+        return Stream.of(
+                Arguments.of("Generated", new ProgramGenerator(0).lines(300).generate()),
+                Arguments.of("Generated Methods", new ProgramGenerator(1).lines(300).methods(10).generate()),
+                Arguments.of("Generated Nesting", new ProgramGenerator(2).lines(300).depth(8).generate())
+        );
+    }
+
+    @Test
+    void testGenerator() {
+        Ast.Source ast = parse("DEF main(): Integer DO print(\"a\" + \"b\"); print(1.1 + 2.2); print(2147483647 * 2 / 2); print(2147483647 + 1 > 0); RETURN 60 * 60 * 24; END");
+        new Analyzer(new Scope(null)).visit(ast);
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(new ConstantFolder().fold(ast));
+        Assertions.assertTrue(writer.toString().contains("System.out.println(\"ab\");"), writer.toString());
+        Assertions.assertTrue(writer.toString().contains("System.out.println(1.1 + 2.2);"), writer.toString());
+        Assertions.assertTrue(writer.toString().contains("System.out.println(2147483647 * 2 / 2);"), writer.toString());
+        Assertions.assertTrue(writer.toString().contains("System.out.println(2147483647 + 1 > 0);"), writer.toString());
+        Assertions.assertTrue(writer.toString().contains("return 86400;"), writer.toString());
+    }
+
+    private static Ast.Expr parseExpression(String input) {
+        return new Parser(new DfaLexer(input).lexBuffer()).parseExpression();
+    }
+
+    private static Ast.Source parse(String input) {
+        return new Parser(new DfaLexer(input).lexBuffer()).parseSource();
+    }
+
+}
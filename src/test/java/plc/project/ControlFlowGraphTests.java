@@ -0,0 +1,89 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The edges of each statement are checked by the indices of the nodes, which
+ * follow the order of the statements in the method.
+ */
+public class ControlFlowGraphTests {
+
+    @Test
+    void testEdges() {
+        Ast.Method method = parse("DEF f(a: Integer): Integer DO\n" +
+                "    LET x = a;\n" +
+                "    IF x > 1 DO x = 1; END\n" +
+                "    WHILE x < 10 DO x = x + 1; END\n" +
+                "    FOR i IN list DO RETURN i; END\n" +
+                "    RETURN x;\n" +
+                "END");
+        ControlFlowGraph graph = new ControlFlowGraph(method);
+        Assertions.assertEquals(List.of(
+                "Declaration -> [1]",
+                "If -> [2, 3]",
+                "Assignment -> [3]",
+                "While -> [4, 5]",
+                "Assignment -> [3]",
+                "For -> [6, 7]",
+                "Return -> [8]",
+                "Return -> [8]",
+                "exit -> []"
+        ), describe(graph));
+        Assertions.assertSame(graph.getNodes().get(0), graph.getEntry());
+        Assertions.assertEquals(List.of(graph.getNodes().get(6), graph.getNodes().get(7)), graph.getExit().getPredecessors());
+        Assertions.assertEquals(List.of(graph.getNodes().get(1), graph.getNodes().get(2), graph.getNodes().get(4)), graph.getNodes().get(3).getPredecessors());
+    }
+
+    @Test
+    void testNested() {
+        Ast.Method method = parse("DEF f(a: Integer): Integer DO\n" +
+                "    WHILE a > 0 DO\n" +
+                "        IF a > 5 DO a = a - 2; ELSE WHILE FALSE DO END END\n" +
+                "    END\n" +
+                "    print(a);\n" +
+                "END");
+        ControlFlowGraph graph = new ControlFlowGraph(method);
+        Assertions.assertEquals(List.of(
+                "While -> [1, 4]",
+                "If -> [2, 3]",
+                "Assignment -> [0]",
+                "While -> [3, 0]",
+                "Expression -> [5]",
+                "exit -> []"
+        ), describe(graph));
+    }
+
+    @Test
+    void testEmpty() {
+        ControlFlowGraph graph = new ControlFlowGraph(parse("DEF f() DO END"));
+        Assertions.assertSame(graph.getExit(), graph.getEntry());
+        Assertions.assertEquals(1, graph.getNodes().size());
+    }
+
+    @Test
+    void testUnknownStatement() {
+        ControlFlowGraph graph = new ControlFlowGraph(parse("DEF f() DO print(1); END"));
+        Ast.Stmt other = parse("DEF f() DO print(1); END").getStatements().get(0);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> graph.getNode(other));
+    }
+
+    private static List<String> describe(ControlFlowGraph graph) {
+        List<String> nodes = new ArrayList<>();
+        for (ControlFlowGraph.Node node : graph.getNodes()) {
+            nodes.add(node + " -> " + node.getSuccessors().stream()
+                    .map(successor -> graph.getNodes().indexOf(successor))
+                    .collect(Collectors.toList()));
+        }
+        return nodes;
+    }
+
+    private static Ast.Method parse(String input) {
+        return new Parser(new DfaLexer(input).lexBuffer()).parseSource().getMethods().get(0);
+    }
+
+}
@@ -0,0 +1,116 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+/**
+ * Elimination must only remove code which can never run, keep declarations in
+ * their own scope, and count every node it removes.
+ */
+public class DeadCodeEliminatorTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testStatements(String test, String input, String expected, int eliminated) {
+        Ast.Source ast = parse("DEF main(): Integer DO " + input + " END");
+        DeadCodeEliminator eliminator = new DeadCodeEliminator();
+        Assertions.assertEquals(parse("DEF main(): Integer DO " + expected + " END"), eliminator.eliminate(ast));
+        Assertions.assertEquals(eliminated, eliminator.getEliminated());
+        Assertions.assertEquals(parse("DEF main(): Integer DO " + input + " END"), ast);
+    }
+
+    private static Stream<Arguments> testStatements() {
+        return Stream.of(
+                Arguments.of("Return", "RETURN 1; print(2); print(3);", "RETURN 1;", 6),
+                Arguments.of("If True", "IF TRUE DO print(1); ELSE print(2); END RETURN 0;", "print(1); RETURN 0;", 5),
+                Arguments.of("If False", "IF FALSE DO print(1); END RETURN 0;", "RETURN 0;", 5),
+                Arguments.of("If Declaration", "IF TRUE DO LET x = 1; print(x); ELSE print(2); END RETURN 0;", "IF TRUE DO LET x = 1; print(x); END RETURN 0;", 3),
+                Arguments.of("Else Declaration", "IF FALSE DO print(1); ELSE LET x = 2; print(x); END RETURN 0;", "IF TRUE DO LET x = 2; print(x); END RETURN 0;", 4),
+                Arguments.of("Returning If", "IF x DO RETURN 1; ELSE RETURN 2; END print(3);", "IF x DO RETURN 1; ELSE RETURN 2; END", 3),
+                Arguments.of("Returning Branch", "IF TRUE DO RETURN 1; END RETURN 2;", "RETURN 1;", 4),
+                Arguments.of("While False", "WHILE FALSE DO print(1); END RETURN 0;", "RETURN 0;", 5),
+                Arguments.of("Nested", "WHILE x DO IF TRUE DO RETURN 1; END print(2); END RETURN 0;", "WHILE x DO RETURN 1; END RETURN 0;", 5),
+                Arguments.of("Condition", "IF x DO print(1); END WHILE x == 1 DO print(2); END RETURN 0;", "IF x DO print(1); END WHILE x == 1 DO print(2); END RETURN 0;", 0)
+        );
+    }
+
+    @Test
+    void testUnchanged() {
+        Ast.Source ast = parse("DEF f(): Integer DO RETURN 1; END DEF main(): Integer DO IF x DO RETURN f(); END RETURN 0; END");
+        DeadCodeEliminator eliminator = new DeadCodeEliminator();
+        Assertions.assertSame(ast, eliminator.eliminate(ast));
+        Assertions.assertEquals(0, eliminator.getEliminated());
+    }
+
+    @Test
+    void testMethods() {
+        Ast.Source ast = parse("LET a: Integer = g();\n" +
+                "DEF f(n: Integer): Integer DO RETURN h(n); END\n" +
+                "DEF g(): Integer DO RETURN 1; END\n" +
+                "DEF h(n: Integer): Integer DO RETURN n; END\n" +
+                "DEF h(): Integer DO RETURN 2; END\n" +
+                "DEF unused(): Integer DO RETURN unused(); END\n" +
+                "DEF dead(): Integer DO RETURN 3; END\n" +
+                "DEF main(): Integer DO IF FALSE DO dead(); END RETURN f(a); END\n");
+        Ast.Source expected = parse("LET a: Integer = g();\n" +
+                "DEF f(n: Integer): Integer DO RETURN h(n); END\n" +
+                "DEF g(): Integer DO RETURN 1; END\n" +
+                "DEF h(n: Integer): Integer DO RETURN n; END\n" +
+                "DEF main(): Integer DO RETURN f(a); END\n");
+        DeadCodeEliminator eliminator = new DeadCodeEliminator();
+        Assertions.assertEquals(expected, eliminator.eliminate(ast));
+        Assertions.assertEquals(4 + 3 + 3 + 3, eliminator.getEliminated());
+    }
+
+    @Test
+    void testWithoutMain() {
+        Ast.Source ast = parse("DEF f(): Integer DO RETURN 1; END DEF g(): Integer DO RETURN 2; END");
+        Assertions.assertSame(ast, new DeadCodeEliminator().eliminate(ast));
+    }
+
+    @Test
+    void testFolded() {
+        Ast.Source ast = parse("LET debug: Boolean = FALSE;\n" +
+                "DEF log(): Integer DO print(\"log\"); RETURN 0; END\n" +
+                "DEF main(): Integer DO\n" +
+                "    IF debug DO log(); END\n" +
+                "    IF 1 < 2 DO RETURN 4; END\n" +
+                "    RETURN 5;\n" +
+                "END\n");
+        new Resolver().visit(ast);
+        Ast.Source eliminated = new DeadCodeEliminator().eliminate(new ConstantFolder().fold(ast));
+        Assertions.assertEquals(parse("LET debug: Boolean = FALSE; DEF main(): Integer DO RETURN 4; END"), eliminated);
+        Assertions.assertEquals(BigInteger.valueOf(4), new Interpreter(new Scope(null)).visit(eliminated).getValue());
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testInterpreter(String test, String input) {
+        Ast.Source ast = parse(input);
+        new Resolver().visit(ast);
+        Ast.Source eliminated = new DeadCodeEliminator().eliminate(new ConstantFolder().fold(ast));
+        Assertions.assertEquals(
+                new Interpreter(new Scope(null)).visit(ast).getValue(),
+                new Interpreter(new Scope(null)).visit(eliminated).getValue()
+        );
+    }
+
+    private static Stream<Arguments> testInterpreter() {
+        return Stream.of(
+                Arguments.of("Generated", new ProgramGenerator(0).lines(300).generate()),
+                Arguments.of("Generated Methods", new ProgramGenerator(1).lines(300).methods(10).generate()),
+                Arguments.of("Generated Nesting", new ProgramGenerator(2).lines(300).depth(8).generate())
+        );
+    }
+
+    private static Ast.Source parse(String input) {
+        return new Parser(new DfaLexer(input).lexBuffer()).parseSource();
+    }
+
+}
@@ -0,0 +1,202 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * The {@link DfaLexer} must behave exactly like {@link Lexer}, so these tests
+ * compare the two directly rather than against hand-written token lists.
+ */
+public class DfaLexerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testEquivalence(String test, String input) {
+        test(input, source -> new DfaLexer(source).lex());
+    }
+
+    private static Stream<Arguments> testEquivalence() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Whitespace", " \b\t\r\n\u000B\f"),
+                Arguments.of("Identifiers", "getName thelegend27 ___ a-b-c"),
+                Arguments.of("Numbers", "1 123.456 -1.0 +5 1. .5 1-2"),
+                Arguments.of("Signs", "- + -a +( 1.-2"),
+                Arguments.of("Characters", "'c' '\\n' ''' '\\''"),
+                Arguments.of("Empty Character", "''"),
+                Arguments.of("Multiple Character", "'abc'"),
+                Arguments.of("Newline Character", "'\n'"),
+                Arguments.of("Unterminated Character", "'c"),
+                Arguments.of("Strings", "\"\" \"abc\" \"Hello,\\nWorld\" \"multi\nline\""),
+                Arguments.of("Escape Before Quote", "\"\\n\" x"),
+                Arguments.of("Escape At End", "\"\\n"),
+                Arguments.of("Backslash At End", "\"\\"),
+                Arguments.of("Invalid Escape", "\"invalid\\escape\""),
+                Arguments.of("Unterminated String", "\"unterminated"),
+                Arguments.of("Operators", "<= >= == != = ! < > ( ) ; . , <=="),
+                Arguments.of("Unicode", "\u00e9 \u2028 \"\u00e9\ud83d\ude00\" '\u00e9' '\ud83d\ude00'"),
+                Arguments.of("Program", "LET x: Integer = 5;\nDEF main(): Integer DO\n    print(\"Hello, World!\");\n    RETURN x + 1;\nEND")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testEquivalence")
+    void testReaderEquivalence(String test, String input) {
+        test(input, source -> new DfaLexer(new StringReader(source), 2).lex());
+    }
+
+    @ParameterizedTest
+    @MethodSource("testEquivalence")
+    void testIteratorEquivalence(String test, String input) {
+        test(input, source -> {
+            List<Token> tokens = new ArrayList<>();
+            new DfaLexer(Channels.newChannel(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8))))
+                    .iterator().forEachRemaining(tokens::add);
+            return tokens;
+        });
+    }
+
+    @ParameterizedTest
+    @MethodSource("testEquivalence")
+    void testUtf8Equivalence(String test, String input) {
+        test(input, source -> new DfaLexer(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8))).lex());
+        test(input, source -> new ArrayList<>(new DfaLexer(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8))).lexBuffer().asList()));
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testValue(String test, String input, String expected) {
+        Token token = new Lexer(input).lex().get(0);
+        Assertions.assertEquals(expected, token.getValue());
+        Assertions.assertEquals(expected, new DfaLexer(input).lex().get(0).getValue());
+        Assertions.assertEquals(expected, new DfaLexer(input).lexBuffer().getValue(0));
+        Assertions.assertEquals(expected, new DfaLexer(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8))).lexBuffer().getValue(0));
+    }
+
+    private static Stream<Arguments> testValue() {
+        return Stream.of(
+                Arguments.of("Character", "'c'", "c"),
+                Arguments.of("Escaped Character", "'\\n'", "\n"),
+                Arguments.of("String", "\"abc\"", "abc"),
+                Arguments.of("Escapes", "\"\\bx\\nx\\rx\\tx\\'x\\\"x\\\\x\"", "\bx\nx\rx\tx'x\"x\\x"),
+                Arguments.of("Escaped Backslash", "\"a\\\\nb\"", "a\\nb"),
+                Arguments.of("Unicode", "\"\u00e9\\t\ud83d\ude00\"", "\u00e9\t\ud83d\ude00"),
+                Arguments.of("Skipped Backslash", "\"\\n\\q\"", "\n\\q"),
+                Arguments.of("Identifier", "abc", null)
+        );
+    }
+
+    /**
+     * Malformed bytes inside a literal must read as the replacement
+     * characters the JDK's decoder gives.
+     */
+    @ParameterizedTest
+    @MethodSource
+    void testMalformedUtf8(String test, int[] malformed) {
+        byte[] bytes = new byte[malformed.length + 2];
+        bytes[0] = bytes[bytes.length - 1] = '"';
+        for (int i = 0; i < malformed.length; i++) {
+            bytes[i + 1] = (byte) malformed[i];
+        }
+        String expected = new String(bytes, 1, malformed.length, StandardCharsets.UTF_8);
+        Assertions.assertEquals(expected, new DfaLexer(ByteBuffer.wrap(bytes)).lexBuffer().getValue(0));
+    }
+
+    @Test
+    void testRandomUtf8() {
+        Random random = new Random(0);
+        for (int i = 0; i < 5000; i++) {
+            int[] malformed = new int[random.nextInt(8)];
+            for (int j = 0; j < malformed.length; j++) {
+                malformed[j] = random.nextInt(8) == 0 ? 'a' : 0x80 + random.nextInt(0x80);
+            }
+            testMalformedUtf8("Random", malformed);
+        }
+    }
+
+    private static Stream<Arguments> testMalformedUtf8() {
+        return Stream.of(
+                Arguments.of("Invalid Lead F8", new int[] {0xF8, 0x88, 0x80}),
+                Arguments.of("Invalid Lead F5", new int[] {0xF5, 0x80, 0x80, 0x80}),
+                Arguments.of("Invalid Lead FF", new int[] {0xFF, 0x41}),
+                Arguments.of("Overlong Lead C0", new int[] {0xC0, 0x80}),
+                Arguments.of("Continuation", new int[] {0x80, 0xBF}),
+                Arguments.of("Overlong Three Bytes", new int[] {0xE0, 0x80, 0x80}),
+                Arguments.of("Surrogate", new int[] {0xED, 0xA0, 0x80}),
+                Arguments.of("Truncated", new int[] {0xE2, 0x82, 0x41, 0xF0, 0x9F, 0x98, 0x41, 0xC2}),
+                Arguments.of("Invalid Second Byte", new int[] {0xE0, 0x9F, 0x80, 0xF0, 0x8F, 0xF4, 0x90}),
+                Arguments.of("Above Maximum", new int[] {0xF4, 0x90, 0x80, 0x80}),
+                Arguments.of("Valid", new int[] {0xE2, 0x82, 0xAC, 0xF0, 0x9F, 0x98, 0x80})
+        );
+    }
+
+    @Test
+    void testMappedFile(@TempDir Path directory) throws IOException {
+        String input = "LET s: String = \"\u00e9t\u00e9 \ud83d\ude00\";\nDEF main(): Integer DO print(s); RETURN 0; END";
+        Path path = directory.resolve("source.plc");
+        Files.write(path, input.getBytes(StandardCharsets.UTF_8));
+        TokenBuffer tokens = DfaLexer.map(path).lexBuffer();
+        Assertions.assertEquals(new Lexer(input).lex(), new ArrayList<>(tokens.asList()));
+        Assertions.assertEquals(new Parser(new Lexer(input).lex()).parseSource(), new Parser(tokens).parseSource());
+    }
+
+    @Test
+    void testStreamingParser() {
+        String input = "LET x: Integer = 5;\nDEF main(): Integer DO\n    WHILE x > 0 DO x = x - 1; END\n    RETURN f(obj.field, \"s\");\nEND";
+        Assertions.assertEquals(
+                new Parser(new Lexer(input).lex()).parseSource(),
+                new Parser(new DfaLexer(new StringReader(input), 4).iterator()).parseSource()
+        );
+    }
+
+    @Test
+    void testRandomInputs() {
+        String[] alphabet = "aZ_-+09.'\"\\bnrt=<>!(); \n\t\u00e9\u20ac".split("");
+        Random random = new Random(0);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                builder.append(random.nextInt(50) == 0 ? "\ud83d\ude00" : alphabet[random.nextInt(alphabet.length)]);
+            }
+            test(builder.toString(), source -> new DfaLexer(source).lex());
+            test(builder.toString(), source -> new DfaLexer(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8))).lex());
+        }
+    }
+
+    /**
+     * Asserts that the given lexer produces the same tokens as {@link Lexer},
+     * or throws a {@link ParseException} with the same message and index.
+     */
+    static void test(String input, Function<String, List<Token>> lexer) {
+        List<Token> expected;
+        try {
+            expected = new Lexer(input).lex();
+        } catch (ParseException e) {
+            ParseException actual = Assertions.assertThrows(ParseException.class, () -> lexer.apply(input), input);
+            Assertions.assertEquals(e.getMessage(), actual.getMessage(), input);
+            Assertions.assertEquals(e.getIndex(), actual.getIndex(), input);
+            return;
+        }
+        Assertions.assertEquals(expected, lexer.apply(input), input);
+    }
+
+}
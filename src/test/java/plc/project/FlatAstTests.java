@@ -0,0 +1,92 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+/**
+ * The encoding must decode to the tree it was built from, whether encoded
+ * from a tree or while parsing.
+ */
+public class FlatAstTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testRoundTrip(String test, String input) {
+        TokenBuffer tokens = new DfaLexer(input).lexBuffer();
+        Ast.Source expected = new Parser(tokens).parseSource();
+        Assertions.assertEquals(expected, FlatAst.of(expected).toAst());
+        Assertions.assertEquals(expected, FlatAst.parse(tokens).toAst());
+    }
+
+    private static Stream<Arguments> testRoundTrip() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Fields", "LET x: Integer = 1; LET y: Decimal; LET z: String = \"z\";"),
+                Arguments.of("Interleaved", "LET x: Integer = 1; DEF f() DO END LET y: Boolean = TRUE; DEF g(): Integer DO RETURN x; END"),
+                Arguments.of("Parameters", "DEF f(a: Integer, b: String): Character DO RETURN 'c'; END"),
+                Arguments.of("Statements", "DEF f() DO LET a = NIL; LET b: Decimal; a = 1.5; obj.field = a; print(a); RETURN a; END"),
+                Arguments.of("Blocks", "DEF f() DO IF a DO b(); ELSE c(); d(); END FOR i IN list DO IF x DO END END WHILE y DO z(); END END"),
+                Arguments.of("Expressions", "DEF f() DO RETURN (a + b) * c.d - g(1, '3', \"4\") / f() AND x.y OR NIL != 4.0; END"),
+                Arguments.of("Generated", new ProgramGenerator(0).lines(300).methods(5).depth(3).generate())
+        );
+    }
+
+    @Test
+    void testAccessors() {
+        FlatAst ast = FlatAst.parse(new DfaLexer("LET x: Integer = 1 + 1; DEF main(n: Integer): Integer DO IF n DO RETURN x; END END").lexBuffer());
+        int root = ast.getRoot();
+        Assertions.assertEquals(FlatAst.Kind.SOURCE, ast.getKind(root));
+        Assertions.assertEquals(1, ast.getFieldCount(root));
+        int field = ast.getField(root, 0);
+        Assertions.assertEquals("x", ast.getName(field));
+        Assertions.assertEquals("Integer", ast.getTypeName(field));
+        int binary = ast.getValue(field);
+        Assertions.assertEquals("+", ast.getOperator(binary));
+        Assertions.assertEquals(BigInteger.ONE, ast.getLiteral(ast.getLeft(binary)));
+        Assertions.assertSame(ast.getLiteral(ast.getLeft(binary)), ast.getLiteral(ast.getRight(binary)));
+
+        int method = ast.getMethod(root, 0);
+        Assertions.assertEquals("main", ast.getName(method));
+        Assertions.assertEquals("n", ast.getParameter(method, 0));
+        Assertions.assertEquals("Integer", ast.getParameterTypeName(method, 0));
+        int statement = ast.getStatement(method, 0);
+        Assertions.assertEquals(FlatAst.Kind.IF, ast.getKind(statement));
+        Assertions.assertEquals(FlatAst.Kind.ACCESS, ast.getKind(ast.getCondition(statement)));
+        Assertions.assertEquals(-1, ast.getReceiver(ast.getCondition(statement)));
+        Assertions.assertEquals(1, ast.getStatementCount(statement));
+        Assertions.assertEquals(0, ast.getElseStatementCount(statement));
+        Assertions.assertEquals(FlatAst.Kind.RETURN, ast.getKind(ast.getStatement(statement, 0)));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ast.getOperator(field));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> ast.getStatement(method, 1));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> ast.getKind(ast.size()));
+    }
+
+    @Test
+    void testVisitor() {
+        String input = new ProgramGenerator(1).lines(300).methods(10).generate();
+        TokenBuffer tokens = new DfaLexer(input).lexBuffer();
+        Ast.Source ast = FlatAst.parse(tokens).toAst();
+        Assertions.assertEquals(
+                new Interpreter(new Scope(null)).visit(new Parser(tokens).parseSource()).getValue(),
+                new Interpreter(new Scope(null)).visit(ast).getValue()
+        );
+        Assertions.assertEquals(1, ast.getMethods().stream().filter(Ast.Method::isParsed).count());
+    }
+
+    @Test
+    void testParseException() {
+        TokenBuffer tokens = new DfaLexer("DEF f() DO RETURN 1; END DEF g() DO RETURN 1 +; END").lexBuffer();
+        ParseException expected = Assertions.assertThrows(ParseException.class, () -> new Parser(tokens).parseSource());
+        ParseException actual = Assertions.assertThrows(ParseException.class, () -> FlatAst.parse(tokens));
+        Assertions.assertEquals(expected.getMessage(), actual.getMessage());
+        Assertions.assertEquals(expected.getIndex(), actual.getIndex());
+    }
+
+}
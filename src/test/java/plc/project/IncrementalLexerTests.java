@@ -0,0 +1,107 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Each edit is checked against lexing the edited source from scratch, and the
+ * reported diff against the tokens before the edit.
+ */
+public class IncrementalLexerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testEdit(String test, String input, int offset, int removed, String text, int index, int removedTokens, int insertedTokens) {
+        IncrementalLexer lexer = new IncrementalLexer(input);
+        IncrementalLexer.Edit edit = test(lexer, input, offset, removed, text);
+        Assertions.assertEquals(index, edit.getIndex(), "index");
+        Assertions.assertEquals(removedTokens, edit.getRemoved(), "removed");
+        Assertions.assertEquals(insertedTokens, edit.getInserted(), "inserted");
+    }
+
+    private static Stream<Arguments> testEdit() {
+        return Stream.of(
+                Arguments.of("Rename", "LET x = 5;", 4, 1, "y", 1, 1, 1),
+                Arguments.of("Extend Identifier", "LET x = 5;", 5, 0, "yz", 1, 1, 1),
+                Arguments.of("Insert Token", "f(x) + g(y)", 4, 0, " * 2", 4, 0, 2),
+                Arguments.of("Merge Tokens", "a b c", 1, 1, "", 0, 2, 1),
+                Arguments.of("Split Token", "abc d", 1, 0, " ", 0, 1, 2),
+                Arguments.of("Decimal Lookahead", "1.x", 2, 1, "5", 0, 3, 1),
+                Arguments.of("Comparison Lookahead", "x < y", 3, 0, "=", 1, 1, 1),
+                Arguments.of("Open String", "a b c d", 2, 3, "\"b c\"", 1, 2, 1),
+                Arguments.of("Close String", "a \"b c\" d", 2, 5, "b c", 1, 1, 2),
+                Arguments.of("Whitespace", "x   =   5", 2, 1, "", 1, 0, 0),
+                Arguments.of("Empty", "", 0, 0, "x", 0, 0, 1),
+                Arguments.of("Delete All", "LET x = 5;", 0, 10, "", 0, 5, 0)
+        );
+    }
+
+    @Test
+    void testParseException() {
+        IncrementalLexer lexer = new IncrementalLexer("x = \"a\";");
+        TokenBuffer tokens = lexer.getTokens();
+        ParseException exception = Assertions.assertThrows(ParseException.class, () -> lexer.edit("x = \"a\\q\";", 6, 0, 2));
+        Assertions.assertEquals("Error: Invalid Escape", exception.getMessage());
+        Assertions.assertEquals(7, exception.getIndex());
+        Assertions.assertSame(tokens, lexer.getTokens());
+    }
+
+    @Test
+    void testRandomEdits() {
+        String[] alphabet = "aZ_-+09.'\"\\bnrt=<>!(); \n\t".split("");
+        Random random = new Random(0);
+        String source = "LET x: Integer = 5;\nDEF main(): Integer DO\n    print(\"Hello, World!\");\n    RETURN x + 1.5;\nEND";
+        IncrementalLexer lexer = new IncrementalLexer(source);
+        for (int i = 0; i < 5000; i++) {
+            int offset = random.nextInt(source.length() + 1);
+            int removed = random.nextInt(Math.min(4, source.length() - offset) + 1);
+            StringBuilder text = new StringBuilder();
+            for (int j = random.nextInt(4); j > 0; j--) {
+                text.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            String edited = source.substring(0, offset) + text + source.substring(offset + removed);
+            try {
+                new Lexer(edited).lex();
+            } catch (ParseException e) {
+                continue;
+            }
+            test(lexer, source, offset, removed, text.toString());
+            source = edited;
+        }
+    }
+
+    /**
+     * Applies the edit and asserts that the tokens match lexing the edited
+     * source from scratch, and that the diff covers every changed token.
+     */
+    private static IncrementalLexer.Edit test(IncrementalLexer lexer, String input, int offset, int removed, String text) {
+        String source = input.substring(0, offset) + text + input.substring(offset + removed);
+        List<Token> before = new ArrayList<>(lexer.getTokens().asList());
+        IncrementalLexer.Edit edit = lexer.edit(source, offset, removed, text.length());
+        List<Token> after = new ArrayList<>(edit.getTokens().asList());
+        Assertions.assertEquals(new Lexer(source).lex(), after, source);
+        TokenBuffer expected = new DfaLexer(source).lexBuffer();
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.getKind(i), edit.getTokens().getKind(i), source);
+        }
+
+        int delta = text.length() - removed;
+        Assertions.assertEquals(before.size() - edit.getRemoved() + edit.getInserted(), after.size(), source);
+        Assertions.assertEquals(before.subList(0, edit.getIndex()), after.subList(0, edit.getIndex()), source);
+        for (int i = edit.getIndex() + edit.getRemoved(); i < before.size(); i++) {
+            Token token = before.get(i);
+            Assertions.assertEquals(new Token(token.getType(), token.getLiteral(), token.getIndex() + delta),
+                    after.get(i - edit.getRemoved() + edit.getInserted()), source);
+        }
+        return edit;
+    }
+
+}
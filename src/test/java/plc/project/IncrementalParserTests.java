@@ -0,0 +1,108 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Each edit is checked against parsing the edited source from scratch, and
+ * the declarations outside the edit must be the same instances as before.
+ * Random edits are only checked when they parse, since {@link
+ * Parser#parseSource()} does not terminate on a stray top-level identifier.
+ */
+public class IncrementalParserTests {
+
+    private static final String SOURCE = "LET x: Integer = 1;\nDEF f(): Integer DO\n    RETURN x;\nEND\nLET y: Integer;\nDEF g() DO\n    IF x DO print(1); END\nEND\nDEF h() DO\nEND\n";
+
+    @ParameterizedTest
+    @MethodSource
+    void testEdit(String test, String text, String replacement, List<String> changed) {
+        IncrementalParser parser = new IncrementalParser(SOURCE);
+        List<Ast> before = declarations(parser.getSource());
+        int offset = SOURCE.indexOf(text);
+        String edited = SOURCE.substring(0, offset) + replacement + SOURCE.substring(offset + text.length());
+        Ast.Source ast = parser.edit(edited, offset, text.length(), replacement.length());
+        Assertions.assertEquals(new Parser(new Lexer(edited).lex()).parseSource(), ast);
+        List<String> actual = new ArrayList<>();
+        for (Ast declaration : declarations(ast)) {
+            if (before.stream().noneMatch(old -> old == declaration)) {
+                actual.add(name(declaration));
+            }
+        }
+        Assertions.assertEquals(changed, actual);
+    }
+
+    private static Stream<Arguments> testEdit() {
+        return Stream.of(
+                Arguments.of("Field Value", "= 1", "= 2", List.of("x")),
+                Arguments.of("Method Body", "RETURN x", "RETURN x + 1", List.of("f")),
+                Arguments.of("Nested Block", "print(1)", "print(2)", List.of("g")),
+                Arguments.of("Rename Method", "DEF h", "DEF k", List.of("k")),
+                Arguments.of("Whitespace", "\nEND\nLET", "\n\n  END\nLET", List.of()),
+                Arguments.of("Delete Field", "LET y: Integer;\n", "", List.of()),
+                Arguments.of("Insert Field", "DEF h", "LET z: Integer;\nDEF h", List.of("z")),
+                Arguments.of("Split Method", "    IF x", "END\nDEF i() DO\n    IF x", List.of("g", "i")),
+                Arguments.of("Merge Methods", "END\nDEF h() DO\n", "", List.of("g")),
+                Arguments.of("Append", "DEF h() DO\nEND\n", "DEF h() DO\nEND\nLET z: Decimal;", List.of("z"))
+        );
+    }
+
+    @Test
+    void testParseException() {
+        IncrementalParser parser = new IncrementalParser(SOURCE);
+        String broken = SOURCE.replace("RETURN x;", "RETURN x");
+        int offset = SOURCE.indexOf("RETURN x;") + 8;
+        ParseException exception = Assertions.assertThrows(ParseException.class, () -> parser.edit(broken, offset, 1, 0));
+        Assertions.assertEquals(broken.indexOf("END"), exception.getIndex());
+        Assertions.assertNull(parser.getSource());
+        Assertions.assertEquals(new Parser(new Lexer(SOURCE).lex()).parseSource(), parser.edit(SOURCE, offset, 0, 1));
+    }
+
+    @Test
+    void testRandomEdits() {
+        String[] fragments = {"x", "1", " ", "\n", ";", "+", "(", ")", "DO", "END", "DEF f() DO ", "LET z: Integer;", "RETURN 1;", "print(x);"};
+        Random random = new Random(0);
+        String source = new ProgramGenerator(0).lines(100).methods(8).generate();
+        IncrementalParser parser = new IncrementalParser(source);
+        int edits = 0;
+        for (int i = 0; i < 5000 && edits < 500; i++) {
+            int offset = random.nextInt(source.length() + 1);
+            int removed = random.nextInt(Math.min(12, source.length() - offset) + 1);
+            String text = random.nextBoolean() ? "" : fragments[random.nextInt(fragments.length)];
+            String edited = source.substring(0, offset) + text + source.substring(offset + removed);
+            Ast.Source actual;
+            try {
+                actual = parser.edit(edited, offset, removed, text.length());
+            } catch (ParseException e) {
+                if (parser.getSource() != null) {
+                    continue;
+                }
+                Ast.Source reverted = parser.edit(source, offset, text.length(), removed);
+                Assertions.assertEquals(new Parser(new DfaLexer(source).lexBuffer()).parseSource(), reverted);
+                continue;
+            }
+            Assertions.assertEquals(new Parser(new DfaLexer(edited).lexBuffer()).parseSource(), actual, edited);
+            source = edited;
+            edits++;
+        }
+        Assertions.assertEquals(500, edits);
+    }
+
+    private static List<Ast> declarations(Ast.Source source) {
+        List<Ast> declarations = new ArrayList<>(source.getFields());
+        declarations.addAll(source.getMethods());
+        return declarations;
+    }
+
+    private static String name(Ast declaration) {
+        return declaration instanceof Ast.Field ? ((Ast.Field) declaration).getName() : ((Ast.Method) declaration).getName();
+    }
+
+}
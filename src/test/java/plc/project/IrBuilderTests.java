@@ -0,0 +1,174 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.stream.Stream;
+
+/**
+ * Lowering must give well-formed SSA, with phis only where definitions of a
+ * variable meet, and the printed form is checked exactly for a few programs.
+ */
+public class IrBuilderTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testPrint(String test, String input, String expected) {
+        Ir.Program program = new IrBuilder().lower(parse(input));
+        new IrVerifier().verify(program);
+        Assertions.assertEquals(expected.replace("\n", System.lineSeparator()), print(program));
+    }
+
+    private static Stream<Arguments> testPrint() {
+        return Stream.of(
+                Arguments.of("Straight Line",
+                        "LET scale: Integer = 60 * 60;\n" +
+                        "DEF main(): Integer DO\n" +
+                        "    LET x = 1;\n" +
+                        "    x = x + scale;\n" +
+                        "    print(\"x=\" + x);\n" +
+                        "    RETURN x;\n" +
+                        "END",
+                        "global scale: Integer\n" +
+                        "\n" +
+                        "function <init>(): Nil {\n" +
+                        "@0:\n" +
+                        "    %0: Integer = 60 * 60\n" +
+                        "    store global scale, %0\n" +
+                        "    return NIL\n" +
+                        "}\n" +
+                        "\n" +
+                        "function main(): Integer {\n" +
+                        "@0:\n" +
+                        "    %0: Integer = load global scale\n" +
+                        "    %1: Integer = 1 + %0\n" +
+                        "    %2: String = \"x=\" + %1\n" +
+                        "    %3: Nil = call print(%2)\n" +
+                        "    return %1\n" +
+                        "}\n"
+                ),
+                Arguments.of("If",
+                        "DEF max(a: Integer, b: Integer): Integer DO\n" +
+                        "    LET m = a;\n" +
+                        "    IF b > a DO m = b; END\n" +
+                        "    RETURN m;\n" +
+                        "END",
+                        "function <init>(): Nil {\n" +
+                        "@0:\n" +
+                        "    return NIL\n" +
+                        "}\n" +
+                        "\n" +
+                        "function max(a: Integer, b: Integer): Integer {\n" +
+                        "@0:\n" +
+                        "    %0: Boolean = %b > %a\n" +
+                        "    branch %0, @1, @2\n" +
+                        "@1: ; preds @0\n" +
+                        "    jump @3\n" +
+                        "@2: ; preds @0\n" +
+                        "    jump @3\n" +
+                        "@3: ; preds @1, @2\n" +
+                        "    %1: Integer = phi [%b, @1], [%a, @2]\n" +
+                        "    return %1\n" +
+                        "}\n"
+                ),
+                Arguments.of("While",
+                        "DEF sum(n: Integer): Integer DO\n" +
+                        "    LET total = 0;\n" +
+                        "    LET i = 0;\n" +
+                        "    WHILE i < n OR FALSE DO\n" +
+                        "        total = total + i;\n" +
+                        "        i = i + 1;\n" +
+                        "    END\n" +
+                        "    RETURN total;\n" +
+                        "END",
+                        "function <init>(): Nil {\n" +
+                        "@0:\n" +
+                        "    return NIL\n" +
+                        "}\n" +
+                        "\n" +
+                        "function sum(n: Integer): Integer {\n" +
+                        "@0:\n" +
+                        "    jump @1\n" +
+                        "@1: ; preds @0, @4\n" +
+                        "    %0: Integer = phi [0, @0], [%5, @4]\n" +
+                        "    %1: Integer = phi [0, @0], [%4, @4]\n" +
+                        "    %2: Boolean = %0 < %n\n" +
+                        "    branch %2, @3, @2\n" +
+                        "@2: ; preds @1\n" +
+                        "    jump @3\n" +
+                        "@3: ; preds @1, @2\n" +
+                        "    %3: Boolean = phi [TRUE, @1], [FALSE, @2]\n" +
+                        "    branch %3, @4, @5\n" +
+                        "@4: ; preds @3\n" +
+                        "    %4: Integer = %1 + %0\n" +
+                        "    %5: Integer = %0 + 1\n" +
+                        "    jump @1\n" +
+                        "@5: ; preds @3\n" +
+                        "    return %1\n" +
+                        "}\n"
+                )
+        );
+    }
+
+    @Test
+    void testTrivialPhis() {
+        Ir.Program program = new IrBuilder().lower(parse("DEF main(): Integer DO\n" +
+                "    LET x = 1;\n" +
+                "    LET y = 2;\n" +
+                "    WHILE y < 10 DO\n" +
+                "        IF y > 5 DO y = y + x; ELSE y = y + 2; END\n" +
+                "    END\n" +
+                "    RETURN x + y;\n" +
+                "END"));
+        new IrVerifier().verify(program);
+        long phis = program.getFunctions().get(0).getBlocks().stream().mapToLong(block -> block.getPhis().size()).sum();
+        Assertions.assertEquals(2, phis, print(program));
+    }
+
+    @Test
+    void testUnreachable() {
+        Ir.Program program = new IrBuilder().lower(parse("DEF main(): Integer DO\n" +
+                "    IF TRUE DO RETURN 1; ELSE RETURN 2; END\n" +
+                "    print(3);\n" +
+                "    RETURN 3;\n" +
+                "END"));
+        new IrVerifier().verify(program);
+        Assertions.assertEquals(3, program.getFunctions().get(0).getBlocks().size(), print(program));
+    }
+
+    @Test
+    void testRedefined() {
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> new IrBuilder().lower(parse("DEF main(): Integer DO LET x = 1; LET x = 2; RETURN x; END")));
+        Assertions.assertEquals("The variable x is already defined in this scope.", exception.getMessage());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testGenerated(String test, String input) {
+        new IrVerifier().verify(new IrBuilder().lower(parse(input)));
+    }
+
+    private static Stream<Arguments> testGenerated() {
+        return Stream.of(
+                Arguments.of("Generated", new ProgramGenerator(0).lines(300).generate()),
+                Arguments.of("Generated Methods", new ProgramGenerator(1).lines(300).methods(10).generate()),
+                Arguments.of("Generated Nesting", new ProgramGenerator(2).lines(300).depth(8).generate())
+        );
+    }
+
+    static String print(Ir.Program program) {
+        StringWriter writer = new StringWriter();
+        new IrPrinter(new PrintWriter(writer)).print(program);
+        return writer.toString();
+    }
+
+    private static Ast.Source parse(String input) {
+        return new Parser(new DfaLexer(input).lexBuffer()).parseSource();
+    }
+
+}
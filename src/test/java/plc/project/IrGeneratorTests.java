@@ -0,0 +1,179 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * The generated Java is checked exactly for small programs, and compiled and
+ * run for larger ones, which must return what the IR interpreter returns.
+ */
+public class IrGeneratorTests {
+
+    @Test
+    void testStraightLine() {
+        Ir.Program program = new IrBuilder().lower(parse("LET scale: Integer = 60 * 60;\n" +
+                "LET name: String;\n" +
+                "DEF main(): Integer DO\n" +
+                "    print(\"x=\" + scale);\n" +
+                "    RETURN scale;\n" +
+                "END"));
+        Assertions.assertEquals(String.join(System.lineSeparator(),
+                "public class Main {",
+                "",
+                "    int scale;",
+                "    String name;",
+                "",
+                "    Main() {",
+                "        int $0 = 60 * 60;",
+                "        scale = $0;",
+                "        return;",
+                "    }",
+                "",
+                "    public static void main(String[] args) {",
+                "        System.exit(new Main().main());",
+                "    }",
+                "",
+                "    int main() {",
+                "        int $0 = scale;",
+                "        String $1 = \"x=\" + $0;",
+                "        System.out.println($1);",
+                "        int $3 = scale;",
+                "        return $3;",
+                "    }",
+                "",
+                "}"
+        ), generate(program));
+    }
+
+    @Test
+    void testBlocks() {
+        Ir.Program program = new IrBuilder().lower(parse("DEF max(a: Integer, b: Integer): Integer DO\n" +
+                "    LET m = a;\n" +
+                "    IF b > a DO m = b; END\n" +
+                "    RETURN m;\n" +
+                "END"));
+        Assertions.assertEquals(String.join(System.lineSeparator(),
+                "public class Main {",
+                "",
+                "    public static void main(String[] args) {",
+                "        System.exit(new Main().main());",
+                "    }",
+                "",
+                "    int max(int a, int b) {",
+                "        boolean $0 = false;",
+                "        int $1 = 0;",
+                "        int $block = 0;",
+                "        while (true) {",
+                "            switch ($block) {",
+                "                case 0:",
+                "                    $0 = b > a;",
+                "                    if ($0) {",
+                "                        $block = 1;",
+                "                    } else {",
+                "                        $block = 2;",
+                "                    }",
+                "                    break;",
+                "                case 1:",
+                "                    $1 = b;",
+                "                    $block = 3;",
+                "                    break;",
+                "                case 2:",
+                "                    $1 = a;",
+                "                    $block = 3;",
+                "                    break;",
+                "                case 3:",
+                "                    return $1;",
+                "            }",
+                "        }",
+                "    }",
+                "",
+                "}"
+        ), generate(program));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testCompiled(String test, String input, @TempDir Path directory) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assumptions.assumeTrue(compiler != null, "No Java compiler is available.");
+        Ir.Program program = new IrBuilder().lower(parse(input));
+        new IrVerifier().verify(program);
+        Object expected = new IrInterpreter(new Scope(null)).run(program).getValue();
+
+        String source = generate(program);
+        Files.writeString(directory.resolve("Main.java"), source);
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int status = compiler.run(null, null, errors, "-d", directory.toString(), directory.resolve("Main.java").toString());
+        Assertions.assertEquals(0, status, errors + source);
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {directory.toUri().toURL()}, null)) {
+            Class<?> main = loader.loadClass("Main");
+            java.lang.reflect.Constructor<?> constructor = main.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            java.lang.reflect.Method method = main.getDeclaredMethod("main");
+            method.setAccessible(true);
+            Object actual = method.invoke(constructor.newInstance());
+            Assertions.assertEquals(((BigInteger) expected).intValue(), actual);
+        }
+    }
+
+    private static Stream<Arguments> testCompiled() {
+        return Stream.of(
+                Arguments.of("Recursion", "DEF fib(n: Integer): Integer DO\n" +
+                        "    IF n < 2 DO RETURN n; END\n" +
+                        "    RETURN fib(n - 1) + fib(n - 2);\n" +
+                        "END\n" +
+                        "DEF main(): Integer DO RETURN fib(15); END"),
+                Arguments.of("Fields", "LET total: Integer = 0;\n" +
+                        "DEF add(n: Integer) DO total = total + n; END\n" +
+                        "DEF main(): Integer DO\n" +
+                        "    LET i = 0;\n" +
+                        "    WHILE i < 10 OR FALSE DO add(i); i = i + 1; END\n" +
+                        "    RETURN total;\n" +
+                        "END"),
+                Arguments.of("Swap", "DEF main(): Integer DO\n" +
+                        "    LET a = 1;\n" +
+                        "    LET b = 2;\n" +
+                        "    LET i = 0;\n" +
+                        "    WHILE i < 5 DO LET t = a; a = b; b = t; i = i + 1; END\n" +
+                        "    RETURN a * 10 + b;\n" +
+                        "END"),
+                Arguments.of("Strings", "LET greeting: String = \"hello \";\n" +
+                        "DEF main(): Integer DO\n" +
+                        "    LET s = greeting + '!' + 1;\n" +
+                        "    IF s == \"hello !1\" AND \"a\" < \"b\" DO RETURN 1; END\n" +
+                        "    RETURN 0;\n" +
+                        "END"),
+                Arguments.of("Generated", new ProgramGenerator(0).lines(300).generate()),
+                Arguments.of("Generated Methods", new ProgramGenerator(1).lines(300).methods(10).generate()),
+                Arguments.of("Generated Nesting", new ProgramGenerator(2).lines(300).depth(8).generate())
+        );
+    }
+
+    private static String generate(Ir.Program program) {
+        StringWriter writer = new StringWriter();
+        new IrGenerator(new PrintWriter(writer)).generate(program);
+        return writer.toString();
+    }
+
+    private static Ast.Source parse(String input) {
+        return new Parser(new DfaLexer(input).lexBuffer()).parseSource();
+    }
+
+}
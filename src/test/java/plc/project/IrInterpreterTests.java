@@ -0,0 +1,136 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Programs lowered to the IR must compute what the interpreter computes for
+ * the resolved source.
+ */
+public class IrInterpreterTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testProgram(String test, String input, Object expected) {
+        Ast.Source ast = parse(input);
+        new Resolver().visit(ast);
+        Object interpreted = new Interpreter(scope()).visit(ast).getValue();
+        Ir.Program program = new IrBuilder().lower(ast);
+        new IrVerifier().verify(program);
+        Object actual = new IrInterpreter(scope()).run(program).getValue();
+        Assertions.assertEquals(interpreted, actual);
+        if (expected != null) {
+            Assertions.assertEquals(expected, actual);
+        }
+    }
+
+    private static Stream<Arguments> testProgram() {
+        return Stream.of(
+                Arguments.of("Recursion", "DEF fib(n: Integer): Integer DO\n" +
+                        "    IF n < 2 DO RETURN n; END\n" +
+                        "    RETURN fib(n - 1) + fib(n - 2);\n" +
+                        "END\n" +
+                        "DEF main(): Integer DO RETURN fib(15); END", BigInteger.valueOf(610)),
+                Arguments.of("Fields", "LET total: Integer = 0;\n" +
+                        "DEF add(n: Integer) DO total = total + n; END\n" +
+                        "DEF main(): Integer DO\n" +
+                        "    LET i = 0;\n" +
+                        "    WHILE i < limit DO add(i); i = i + 1; END\n" +
+                        "    RETURN total;\n" +
+                        "END", BigInteger.valueOf(45)),
+                Arguments.of("Shadowing", "LET x: Integer = 1;\n" +
+                        "DEF main(): Integer DO\n" +
+                        "    LET y = x;\n" +
+                        "    IF TRUE DO LET x = 10; y = y + x; END\n" +
+                        "    RETURN y + x;\n" +
+                        "END", BigInteger.valueOf(12)),
+                Arguments.of("Swap", "DEF main(): Integer DO\n" +
+                        "    LET a = 1;\n" +
+                        "    LET b = 2;\n" +
+                        "    LET i = 0;\n" +
+                        "    WHILE i < 5 DO LET t = a; a = b; b = t; i = i + 1; END\n" +
+                        "    RETURN a * 10 + b;\n" +
+                        "END", BigInteger.valueOf(21)),
+                Arguments.of("For", "DEF main(): Integer DO\n" +
+                        "    LET total = 0;\n" +
+                        "    FOR i IN list DO IF i != 2 DO total = total + i; END END\n" +
+                        "    RETURN total;\n" +
+                        "END", BigInteger.valueOf(4)),
+                Arguments.of("Strings", "LET greeting: String = \"hello\";\n" +
+                        "DEF main(): Integer DO\n" +
+                        "    LET s = greeting + ' ' + 1.5;\n" +
+                        "    IF s == \"hello 1.5\" AND 'a' < 'b' DO RETURN 1; END\n" +
+                        "    RETURN 0;\n" +
+                        "END", BigInteger.ONE),
+                Arguments.of("Generated", new ProgramGenerator(0).lines(300).generate(), null),
+                Arguments.of("Generated Methods", new ProgramGenerator(1).lines(300).methods(10).generate(), null),
+                Arguments.of("Generated Nesting", new ProgramGenerator(2).lines(300).depth(8).generate(), null)
+        );
+    }
+
+    /**
+     * Each operand and condition is evaluated once, where the interpreter
+     * evaluates the operand deciding an {@code AND}/{@code OR} again for its
+     * value, and the condition of an {@code IF} again when it is false.
+     */
+    @Test
+    void testEvaluatedOnce() {
+        Ir.Program program = new IrBuilder().lower(parse("LET calls: Integer = 0;\n" +
+                "DEF call(): Boolean DO calls = calls + 1; RETURN TRUE; END\n" +
+                "DEF main(): Integer DO\n" +
+                "    IF TRUE OR call() DO calls = calls + 10; END\n" +
+                "    IF FALSE OR call() DO calls = calls + 100; END\n" +
+                "    IF call() AND FALSE DO calls = 0; END\n" +
+                "    RETURN calls;\n" +
+                "END"));
+        Assertions.assertEquals(BigInteger.valueOf(112), new IrInterpreter(scope()).run(program).getValue());
+    }
+
+    /**
+     * The interpreter calls the left operand of the {@code OR} twice and the
+     * left operand of the {@code AND} twice, where the IR calls each once.
+     */
+    @Test
+    void testSideEffects() {
+        Ast.Source ast = parse("LET calls: Integer = 0;\n" +
+                "DEF call(): Boolean DO calls = calls + 1; RETURN TRUE; END\n" +
+                "DEF main(): Integer DO\n" +
+                "    IF call() OR FALSE DO END\n" +
+                "    IF call() AND call() DO END\n" +
+                "    RETURN calls;\n" +
+                "END");
+        new Resolver().visit(ast);
+        Assertions.assertEquals(BigInteger.valueOf(5), new Interpreter(scope()).visit(ast).getValue());
+        Assertions.assertEquals(BigInteger.valueOf(3), new IrInterpreter(scope()).run(new IrBuilder().lower(ast)).getValue());
+    }
+
+    @Test
+    void testError() {
+        Ir.Program program = new IrBuilder().lower(parse("DEF main(): Integer DO LET zero = 0; RETURN 1 / zero; END"));
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> new IrInterpreter(scope()).run(program));
+        Assertions.assertEquals("Edge Case: You can't divide by zero.", exception.getMessage());
+    }
+
+    private static Scope scope() {
+        Scope scope = new Scope(null);
+        scope.defineVariable("limit", Environment.create(BigInteger.TEN));
+        List<Environment.PlcObject> list = Stream.of(1, 2, 3)
+                .map(i -> Environment.create(BigInteger.valueOf(i)))
+                .collect(Collectors.toList());
+        scope.defineVariable("list", Environment.create(list));
+        return scope;
+    }
+
+    private static Ast.Source parse(String input) {
+        return new Parser(new DfaLexer(input).lexBuffer()).parseSource();
+    }
+
+}
@@ -0,0 +1,100 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Each malformed function is built by hand, since lowering never produces
+ * one, and must be rejected with a description of the problem.
+ */
+public class IrVerifierTests {
+
+    @Test
+    void testValid() {
+        Ir.Function function = new Ir.Function("max", Environment.Type.INTEGER);
+        Ir.Parameter a = function.addParameter("a", Environment.Type.INTEGER);
+        Ir.Parameter b = function.addParameter("b", Environment.Type.INTEGER);
+        Ir.Block entry = function.addBlock();
+        Ir.Block then = function.addBlock();
+        Ir.Block join = function.addBlock();
+        Ir.Binary condition = entry.add(new Ir.Binary(">", b, a, Environment.Type.BOOLEAN));
+        entry.add(new Ir.Branch(condition, then, join));
+        then.add(new Ir.Jump(join));
+        Ir.Phi phi = join.add(new Ir.Phi(Environment.Type.INTEGER));
+        phi.addIncoming(a);
+        phi.addIncoming(b);
+        join.add(new Ir.Return(phi));
+        Assertions.assertDoesNotThrow(() -> new IrVerifier().verify(function));
+    }
+
+    @Test
+    void testMissingTerminator() {
+        Ir.Function function = new Ir.Function("main", Environment.Type.INTEGER);
+        function.addBlock().add(new Ir.Binary("+", new Ir.Constant(BigInteger.ONE), new Ir.Constant(BigInteger.ONE), Environment.Type.INTEGER));
+        test(function, "In function main, block @0: The block does not end with a terminator.");
+    }
+
+    @Test
+    void testPhiOperands() {
+        Ir.Function function = new Ir.Function("main", Environment.Type.INTEGER);
+        Ir.Block entry = function.addBlock();
+        Ir.Block next = function.addBlock();
+        entry.add(new Ir.Jump(next));
+        Ir.Phi phi = next.add(new Ir.Phi(Environment.Type.INTEGER));
+        next.add(new Ir.Return(phi));
+        test(function, "In function main, block @1: The phi 0 has 0 operands for 1 predecessors.");
+    }
+
+    @Test
+    void testDominance() {
+        Ir.Function function = new Ir.Function("main", Environment.Type.INTEGER);
+        Ir.Block entry = function.addBlock();
+        Ir.Block then = function.addBlock();
+        Ir.Block join = function.addBlock();
+        entry.add(new Ir.Branch(new Ir.Constant(true), then, join));
+        Ir.Binary value = then.add(new Ir.Binary("+", new Ir.Constant(BigInteger.ONE), new Ir.Constant(BigInteger.ONE), Environment.Type.INTEGER));
+        then.add(new Ir.Jump(join));
+        join.add(new Ir.Return(value));
+        test(function, "In function main, block @2: A value is used where its definition does not dominate.");
+    }
+
+    @Test
+    void testCondition() {
+        Ir.Function function = new Ir.Function("main", Environment.Type.INTEGER);
+        Ir.Block entry = function.addBlock();
+        Ir.Block then = function.addBlock();
+        Ir.Block other = function.addBlock();
+        entry.add(new Ir.Branch(new Ir.Constant(BigInteger.ONE), then, other));
+        then.add(new Ir.Return(new Ir.Constant(BigInteger.ONE)));
+        other.add(new Ir.Return(new Ir.Constant(BigInteger.ZERO)));
+        test(function, "In function main, block @0: The condition has type Integer, expected Boolean.");
+    }
+
+    @Test
+    void testUnreachable() {
+        Ir.Function function = new Ir.Function("main", Environment.Type.INTEGER);
+        function.addBlock().add(new Ir.Return(new Ir.Constant(BigInteger.ONE)));
+        function.addBlock().add(new Ir.Return(new Ir.Constant(BigInteger.ZERO)));
+        test(function, "In function main, block @1: The block is unreachable.");
+    }
+
+    @Test
+    void testProgram() {
+        Ir.Function initializer = new Ir.Function("<init>", Environment.Type.NIL);
+        initializer.addBlock().add(new Ir.Return(new Ir.Constant(null)));
+        Ir.Function main = new Ir.Function("main", Environment.Type.INTEGER);
+        main.addBlock().add(new Ir.Return(new Ir.Constant("one")));
+        Ir.Program program = new Ir.Program(List.of(), initializer, List.of(main));
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, () -> new IrVerifier().verify(program));
+        Assertions.assertEquals("In function main, block @0: The returned value has type String, expected Integer.", exception.getMessage());
+    }
+
+    private static void test(Ir.Function function, String expected) {
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, () -> new IrVerifier().verify(function));
+        Assertions.assertEquals(expected, exception.getMessage());
+    }
+
+}
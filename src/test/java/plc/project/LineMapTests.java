@@ -0,0 +1,96 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class LineMapTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testPosition(String test, String input, int index, int line, int column) {
+        LineMap lines = new LineMap(input);
+        Assertions.assertEquals(line, lines.getLine(index), "line");
+        Assertions.assertEquals(column, lines.getColumn(index), "column");
+    }
+
+    private static Stream<Arguments> testPosition() {
+        return Stream.of(
+                Arguments.of("Empty", "", 0, 1, 1),
+                Arguments.of("First Line", "abc\ndef", 2, 1, 3),
+                Arguments.of("Newline", "abc\ndef", 3, 1, 4),
+                Arguments.of("Second Line", "abc\ndef", 4, 2, 1),
+                Arguments.of("Carriage Return Newline", "a\r\nb", 3, 2, 1),
+                Arguments.of("Lone Carriage Return", "a\rb", 2, 2, 1),
+                Arguments.of("Trailing Newline", "a\n", 2, 2, 1),
+                Arguments.of("Past End", "a\nb", 5, 2, 4)
+        );
+    }
+
+    @Test
+    void testLineStart() {
+        LineMap lines = new LineMap("a\nbc\r\nd");
+        Assertions.assertEquals(3, lines.getLineCount());
+        Assertions.assertEquals(0, lines.getLineStart(1));
+        Assertions.assertEquals(2, lines.getLineStart(2));
+        Assertions.assertEquals(6, lines.getLineStart(3));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> lines.getLineStart(4));
+    }
+
+    @Test
+    void testParseException() {
+        String input = "LET x = 5;\nLET y = \"unterminated;\n";
+        TokenBuffer tokens = new DfaLexer("LET x: Integer = 5;\nLET y = 6;\n").lexBuffer();
+        ParseException exception = Assertions.assertThrows(ParseException.class, () -> new Parser(tokens).parseSource());
+        Assertions.assertEquals("2:7", tokens.getLineMap().format(exception.getIndex()));
+
+        Lexer lexer = new Lexer(input);
+        exception = Assertions.assertThrows(ParseException.class, lexer::lex);
+        Assertions.assertEquals("3:1", lexer.getLineMap().format(exception.getIndex()));
+    }
+
+    @Test
+    void testLexers() {
+        String input = "a\n\u00e9 \"\ud83d\ude00\"\r\nb\rc";
+        DfaLexer utf8 = new DfaLexer(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)));
+        for (int i = 0; i <= input.length(); i++) {
+            Assertions.assertEquals(new Lexer(input).getLineMap().format(i), utf8.getLineMap().format(i));
+            Assertions.assertEquals(new Lexer(input).getLineMap().format(i), new DfaLexer(input).lexBuffer().getLineMap().format(i));
+        }
+        Assertions.assertThrows(IllegalStateException.class, () -> new DfaLexer(new StringReader(input)).getLineMap());
+    }
+
+    @Test
+    void testRandomInputs() {
+        Random random = new Random(0);
+        for (int i = 0; i < 200; i++) {
+            StringBuilder builder = new StringBuilder();
+            for (int j = random.nextInt(50); j > 0; j--) {
+                builder.append("ab\n\r".charAt(random.nextInt(4)));
+            }
+            String input = builder.toString();
+            LineMap lines = new LineMap(input);
+            int line = 1;
+            int column = 1;
+            for (int index = 0; index <= input.length(); index++) {
+                Assertions.assertEquals(line + ":" + column, lines.format(index), input);
+                char c = index < input.length() ? input.charAt(index) : 0;
+                if (c == '\n' || c == '\r' && !input.startsWith("\n", index + 1)) {
+                    line++;
+                    column = 1;
+                } else {
+                    column++;
+                }
+            }
+        }
+    }
+
+}
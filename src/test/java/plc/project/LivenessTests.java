@@ -0,0 +1,130 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Slots are checked by number as the {@link Resolver} assigns them, with the
+ * parameters first, and the released slots are checked as the resolver sets
+ * them on each statement.
+ */
+public class LivenessTests {
+
+    @Test
+    void testLoop() {
+        Ast.Method method = resolve("DEF f(a: Integer, b: Integer): Integer DO\n" +
+                "    LET big = a;\n" +
+                "    LET n = 0;\n" +
+                "    WHILE n < 3 DO n = n + big; END\n" +
+                "    RETURN n;\n" +
+                "END");
+        Liveness liveness = new Liveness(method);
+        Ast.Stmt.While loop = (Ast.Stmt.While) method.getStatements().get(2);
+        Assertions.assertEquals(slots(0), liveness.getLiveIn(method.getStatements().get(0)));
+        Assertions.assertEquals(slots(2, 3), liveness.getLiveIn(loop));
+        Assertions.assertEquals(slots(2, 3), liveness.getLiveOut(loop.getStatements().get(0)));
+        Assertions.assertEquals(slots(3), liveness.getLiveIn(method.getStatements().get(3)));
+        Assertions.assertEquals(slots(), liveness.getLiveOut(method.getStatements().get(3)));
+        Assertions.assertEquals(List.of("[1]", "[0]", "[]", "[]", "[2]"), released(method));
+    }
+
+    @Test
+    void testBranches() {
+        Ast.Method method = resolve("DEF f(c: Boolean): Integer DO\n" +
+                "    IF c DO LET s = \"s\"; print(s); ELSE LET t = 1; print(t); END\n" +
+                "    LET u = 2;\n" +
+                "    RETURN u;\n" +
+                "END");
+        Assertions.assertEquals(List.of("[]", "[0]", "[]", "[0]", "[]", "[1]", "[]"), released(method));
+    }
+
+    @Test
+    void testDeadStore() {
+        Ast.Method method = resolve("DEF f(): Integer DO\n" +
+                "    LET x = \"unused\";\n" +
+                "    x = \"overwritten\";\n" +
+                "    LET y = 1;\n" +
+                "    RETURN y;\n" +
+                "END");
+        Liveness liveness = new Liveness(method);
+        Assertions.assertEquals(slots(), liveness.getLiveOut(method.getStatements().get(0)));
+        Assertions.assertEquals(List.of("[]", "[0]", "[0]", "[]"), released(method));
+    }
+
+    @Test
+    void testFor() {
+        Ast.Method method = resolve("DEF f(): Integer DO\n" +
+                "    LET total = 0;\n" +
+                "    FOR i IN list DO LET j = i; total = total + j; END\n" +
+                "    RETURN total;\n" +
+                "END");
+        Liveness liveness = new Liveness(method);
+        Ast.Stmt.For loop = (Ast.Stmt.For) method.getStatements().get(1);
+        Assertions.assertEquals(1, loop.getSlot());
+        Assertions.assertEquals(slots(0), liveness.getLiveIn(loop));
+        Assertions.assertEquals(slots(0, 1), liveness.getLiveOut(loop));
+        Assertions.assertEquals(List.of("[]", "[2]", "[]", "[1]", "[1]"), released(method));
+    }
+
+    /**
+     * Statements rebuilt by folding and eliminating dead code must keep the
+     * slots the resolver released on them.
+     */
+    @Test
+    void testRewritten() {
+        Ast.Source ast = new Parser(new DfaLexer("DEF f(a: Integer): Integer DO\n" +
+                "    LET big = a;\n" +
+                "    LET n = 1 + 2;\n" +
+                "    WHILE n < 3 * 4 DO n = n + big; IF FALSE DO print(0); END END\n" +
+                "    RETURN n;\n" +
+                "END").lexBuffer()).parseSource();
+        new Resolver().visit(ast);
+        Assertions.assertEquals(List.of("[]", "[0]", "[]", "[]", "[]", "[]", "[1]"), released(ast.getMethods().get(0)));
+        Ast.Source rewritten = new DeadCodeEliminator().eliminate(new ConstantFolder().fold(ast));
+        Ast.Method method = rewritten.getMethods().get(0);
+        Assertions.assertNotSame(ast.getMethods().get(0).getStatements().get(1), method.getStatements().get(1));
+        Assertions.assertNotSame(ast.getMethods().get(0).getStatements().get(2), method.getStatements().get(2));
+        Assertions.assertEquals(List.of("[]", "[0]", "[]", "[]", "[1]"), released(method));
+    }
+
+    @Test
+    void testFieldsAndUnresolved() {
+        Ast.Source ast = new Parser(new DfaLexer("LET x: Integer = 1;\n" +
+                "DEF f(): Integer DO print(x); RETURN limit; END").lexBuffer()).parseSource();
+        new Resolver().visit(ast);
+        Liveness liveness = new Liveness(ast.getMethods().get(0));
+        for (Ast.Stmt statement : ast.getMethods().get(0).getStatements()) {
+            Assertions.assertEquals(slots(), liveness.getLiveIn(statement));
+        }
+    }
+
+    private static List<String> released(Ast.Method method) {
+        List<String> released = new ArrayList<>();
+        for (ControlFlowGraph.Node node : new ControlFlowGraph(method).getNodes()) {
+            if (node.getStatement() != null) {
+                released.add(Arrays.toString(node.getStatement().getReleased()));
+            }
+        }
+        return released;
+    }
+
+    private static BitSet slots(int... slots) {
+        BitSet set = new BitSet();
+        for (int slot : slots) {
+            set.set(slot);
+        }
+        return set;
+    }
+
+    private static Ast.Method resolve(String input) {
+        Ast.Source ast = new Parser(new DfaLexer(input).lexBuffer()).parseSource();
+        new Resolver().visit(ast);
+        return ast.getMethods().get(0);
+    }
+
+}
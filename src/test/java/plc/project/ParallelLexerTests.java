@@ -0,0 +1,69 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Small chunk sizes put chunk boundaries inside literals and tokens, which
+ * must be detected and lexed again.
+ */
+public class ParallelLexerTests {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @ParameterizedTest
+    @MethodSource
+    void testEquivalence(String test, String input) {
+        for (int size = 1; size <= 8; size++) {
+            int chunkSize = size;
+            DfaLexerTests.test(input, source -> new ParallelLexer(source, POOL, chunkSize).lex());
+        }
+    }
+
+    private static Stream<Arguments> testEquivalence() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Newlines", "\n\n\n\n"),
+                Arguments.of("Lines", "LET x = 5;\nLET y = 6;\nLET z = 7;\n"),
+                Arguments.of("Multiline String", "x\n\"a\nb\nc\nd\"\ny\nz"),
+                Arguments.of("Newline Character", "x\n'\n'\ny"),
+                Arguments.of("Quote In String", "\"\n'\n\" 'x'\n\"\n\""),
+                Arguments.of("Error In Literal", "x\n\"a\n\\q\nb\"\ny"),
+                Arguments.of("Error Later", "x\ny\n'ab'\n\"unterminated"),
+                Arguments.of("Unterminated String", "x\ny\n\"a\nb\nc"),
+                Arguments.of("Program", "LET x: Integer = 5;\nDEF main(): Integer DO\n    print(\"Hello,\nWorld!\");\n    RETURN x + 1;\nEND")
+        );
+    }
+
+    @Test
+    void testSymbols() {
+        TokenBuffer tokens = new ParallelLexer("x\ny\nx\nLET\ny", POOL, 1).lexBuffer();
+        Assertions.assertEquals(tokens.getSymbol(0), tokens.getSymbol(2));
+        Assertions.assertEquals(tokens.getSymbol(1), tokens.getSymbol(4));
+        Assertions.assertEquals(Token.Kind.LET, tokens.getKind(3));
+        Assertions.assertEquals("y", tokens.getLiteral(4));
+    }
+
+    @Test
+    void testRandomInputs() {
+        String[] alphabet = "aZ_-+09.'\"\\bnrt=<>!(); \n\n\n\t".split("");
+        Random random = new Random(0);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                builder.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            int chunkSize = 1 + random.nextInt(8);
+            DfaLexerTests.test(builder.toString(), source -> new ParallelLexer(source, POOL, chunkSize).lex());
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Small chunk sizes give every declaration its own chunk, so each one is
+ * parsed on its own and joined.
+ */
+public class ParallelParserTests {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @ParameterizedTest
+    @MethodSource
+    void testEquivalence(String test, String input) {
+        for (int chunkSize = 1; chunkSize <= 16; chunkSize *= 2) {
+            test(input, chunkSize);
+        }
+    }
+
+    private static Stream<Arguments> testEquivalence() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Fields", "LET x: Integer = 1; LET y: Decimal; LET z: String = \"z\";"),
+                Arguments.of("Methods", "DEF f() DO END DEF g(a: Integer): Integer DO RETURN a; END"),
+                Arguments.of("Interleaved", "LET x: Integer = 1; DEF f() DO END LET y: Integer; DEF g() DO print(x); END"),
+                Arguments.of("Nested Blocks", "DEF f() DO IF x DO WHILE y DO z(); END ELSE FOR i IN l DO END END END DEF g() DO END"),
+                Arguments.of("Trailing Tokens", "DEF f() DO END ; DEF g() DO END"),
+                Arguments.of("Keyword Name", "DEF DO() DO RETURN 1; END DEF g() DO END"),
+                Arguments.of("Missing End", "DEF f() DO x(); DEF g() DO END"),
+                Arguments.of("Missing Do", "DEF f() END DEF g() DO END"),
+                Arguments.of("Missing Semicolon", "LET x: Integer = 1 DEF f() DO END"),
+                Arguments.of("Error In Later Method", "DEF f() DO x(); END DEF g() DO y; END DEF h() DO z(); END"),
+                Arguments.of("Errors In Two Methods", "DEF f() DO x(); END DEF g() DO 1 +; END DEF h() DO RETURN; END")
+        );
+    }
+
+    @Test
+    void testGeneratedProgram() {
+        String source = new ProgramGenerator(0).lines(2000).methods(100).depth(3).generate();
+        for (int chunkSize = 1; chunkSize <= 4096; chunkSize *= 8) {
+            test(source, chunkSize);
+        }
+    }
+
+    /**
+     * Asserts that the parallel parser produces the same AST as {@link
+     * Parser}, or throws a {@link ParseException} with the same message and
+     * index.
+     */
+    private static void test(String input, int chunkSize) {
+        TokenBuffer tokens = new DfaLexer(input).lexBuffer();
+        Ast.Source expected;
+        try {
+            expected = new Parser(tokens).parseSource();
+        } catch (ParseException e) {
+            ParseException actual = Assertions.assertThrows(ParseException.class, () -> new ParallelParser(tokens, POOL, chunkSize).parseSource(), input);
+            Assertions.assertEquals(e.getMessage(), actual.getMessage(), input);
+            Assertions.assertEquals(e.getIndex(), actual.getIndex(), input);
+            return;
+        }
+        Assertions.assertEquals(expected, new ParallelParser(tokens, POOL, chunkSize).parseSource(), input);
+    }
+
+}
@@ -12,6 +12,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -303,6 +304,10 @@ final class ParserTests {
                 Arguments.of("Escape Character",
                         Arrays.asList(new Token(Token.Type.STRING, "\"Hello,\\nWorld!\"", 0)),
                         new Ast.Expr.Literal("Hello,\nWorld!")
+                ),
+                Arguments.of("Escaped Backslash",
+                        Arrays.asList(new Token(Token.Type.STRING, "\"C:\\\\new\"", 0)),
+                        new Ast.Expr.Literal("C:\\new")
                 )
         );
     }
@@ -473,6 +478,100 @@ final class ParserTests {
         );
     }
 
+    @ParameterizedTest
+    @MethodSource
+    void testPrecedence(String test, String input, Ast.Expr expected) {
+        Assertions.assertEquals(expected, new Parser(new Lexer(input).lex()).parseExpression());
+    }
+
+    private static Stream<Arguments> testPrecedence() {
+        Ast.Expr a = new Ast.Expr.Access(Optional.empty(), "a");
+        Ast.Expr b = new Ast.Expr.Access(Optional.empty(), "b");
+        Ast.Expr c = new Ast.Expr.Access(Optional.empty(), "c");
+        Ast.Expr d = new Ast.Expr.Access(Optional.empty(), "d");
+        return Stream.of(
+                Arguments.of("Left Associative", "a - b - c",
+                        new Ast.Expr.Binary("-", new Ast.Expr.Binary("-", a, b), c)
+                ),
+                Arguments.of("Tighter Right", "a + b * c",
+                        new Ast.Expr.Binary("+", a, new Ast.Expr.Binary("*", b, c))
+                ),
+                Arguments.of("Tighter Left", "a / b - c",
+                        new Ast.Expr.Binary("-", new Ast.Expr.Binary("/", a, b), c)
+                ),
+                Arguments.of("All Levels", "a OR b == c + d * a",
+                        new Ast.Expr.Binary("OR", a, new Ast.Expr.Binary("==", b,
+                                new Ast.Expr.Binary("+", c, new Ast.Expr.Binary("*", d, a))))
+                ),
+                Arguments.of("Descending", "a * b + c < d AND a",
+                        new Ast.Expr.Binary("AND", new Ast.Expr.Binary("<",
+                                new Ast.Expr.Binary("+", new Ast.Expr.Binary("*", a, b), c), d), a)
+                ),
+                Arguments.of("Mixed", "a < b * c != d",
+                        new Ast.Expr.Binary("!=", new Ast.Expr.Binary("<", a, new Ast.Expr.Binary("*", b, c)), d)
+                ),
+                Arguments.of("Group", "(a + b) * c.d",
+                        new Ast.Expr.Binary("*", new Ast.Expr.Group(new Ast.Expr.Binary("+", a, b)),
+                                new Ast.Expr.Access(Optional.of(c), "d"))
+                )
+        );
+    }
+
+    /**
+     * A long chain of a single operator must not grow the stack. The tree is
+     * checked down its left spine, since comparing it to an expected tree
+     * with {@code equals} would recurse as deeply as the tree.
+     */
+    @Test
+    void testLongChain() {
+        int terms = 100_000;
+        StringBuilder builder = new StringBuilder("0");
+        for (int i = 1; i < terms; i++) {
+            builder.append(i % 2 == 0 ? " + " : " * ").append(i % 10);
+        }
+        Ast.Expr expr = new Parser(new DfaLexer(builder.toString()).lexBuffer()).parseExpression();
+        int count = 0;
+        while (expr instanceof Ast.Expr.Binary && ((Ast.Expr.Binary) expr).getOperator().equals("+")) {
+            Assertions.assertEquals("*", ((Ast.Expr.Binary) ((Ast.Expr.Binary) expr).getRight()).getOperator());
+            expr = ((Ast.Expr.Binary) expr).getLeft();
+            count++;
+        }
+        Assertions.assertEquals(terms / 2 - 1, count);
+        Assertions.assertEquals(new Ast.Expr.Binary("*", new Ast.Expr.Literal(BigInteger.ZERO), new Ast.Expr.Literal(BigInteger.ONE)), expr);
+    }
+
+    @Test
+    void testLazyMethods() {
+        String input = new ProgramGenerator(0).lines(500).methods(20).depth(3).generate();
+        TokenBuffer tokens = new DfaLexer(input).lexBuffer();
+        Ast.Source ast = new Parser(tokens, true).parseSource();
+        Assertions.assertTrue(ast.getMethods().stream().noneMatch(Ast.Method::isParsed));
+        Assertions.assertEquals(
+                new Interpreter(new Scope(null)).visit(new Parser(tokens).parseSource()).getValue(),
+                new Interpreter(new Scope(null)).visit(ast).getValue()
+        );
+        Assertions.assertEquals(List.of("main"), ast.getMethods().stream().filter(Ast.Method::isParsed).map(Ast.Method::getName).collect(Collectors.toList()));
+        Assertions.assertEquals(new Parser(tokens).parseSource(), ast);
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testLazyException(String test, String input) {
+        TokenBuffer tokens = new DfaLexer(input).lexBuffer();
+        ParseException expected = Assertions.assertThrows(ParseException.class, () -> new Parser(tokens).parseSource());
+        Ast.Method method = new Parser(tokens, true).parseSource().getMethods().get(0);
+        ParseException actual = Assertions.assertThrows(ParseException.class, method::getStatements);
+        Assertions.assertEquals(expected.getMessage(), actual.getMessage());
+        Assertions.assertEquals(expected.getIndex(), actual.getIndex());
+    }
+
+    private static Stream<Arguments> testLazyException() {
+        return Stream.of(
+                Arguments.of("Missing Operand", "DEF f() DO RETURN 1 +; END"),
+                Arguments.of("Missing Semicolon", "DEF f() DO IF x DO y() END END")
+        );
+    }
+
     @Test
     void testExample1() {
         List<Token> input = Arrays.asList(
@@ -0,0 +1,163 @@
+package plc.project;
+
+import java.util.Random;
+
+/**
+ * Generates random but valid programs from a seed, for testing how each stage
+ * scales with program size. The shape of a program is set by a few knobs:
+ *
+ *  - {@link #lines(int)}, the approximate number of lines
+ *  - {@link #methods(int)}, the number of methods (including {@code main})
+ *  - {@link #depth(int)}, how deeply {@code IF}/{@code WHILE} blocks nest
+ *  - {@link #terms(int)}, the number of terms in arithmetic chains
+ *
+ * Programs with a single method pass the {@link Analyzer}, which only allows
+ * one method per source, and every program runs in the {@link Interpreter}.
+ * To keep both true, no variable is used outside the statement declaring it
+ * except inside a {@code WHILE}, loops never run, and calls between methods
+ * only appear inside loops.
+ */
+final class ProgramGenerator {
+
+    private final Random random;
+    private int lines = 100;
+    private int methods = 1;
+    private int depth = 2;
+    private int terms = 4;
+
+    private final StringBuilder builder = new StringBuilder();
+    private int line = 0;
+    private int method = 0;
+    private int variable = 0;
+
+    ProgramGenerator(long seed) {
+        random = new Random(seed);
+    }
+
+    ProgramGenerator lines(int lines) {
+        this.lines = lines;
+        return this;
+    }
+
+    ProgramGenerator methods(int methods) {
+        this.methods = methods;
+        return this;
+    }
+
+    ProgramGenerator depth(int depth) {
+        this.depth = depth;
+        return this;
+    }
+
+    ProgramGenerator terms(int terms) {
+        this.terms = terms;
+        return this;
+    }
+
+    String generate() {
+        builder.setLength(0);
+        line = 0;
+        for (method = 0; method < methods; method++) {
+            int end = (int) ((long) lines * (method + 1) / methods) - 2;
+            append(0, "DEF " + (method == methods - 1 ? "main" : "f" + method) + "(): Integer DO");
+            do {
+                block(1, 0);
+            } while (line < end);
+            append(1, "RETURN " + integer() + ";");
+            append(0, "END");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Appends a statement at the given indent which contains {@code depth -
+     * level} nested blocks.
+     */
+    private void block(int indent, int level) {
+        if (level == depth) {
+            statement(indent);
+        } else if (random.nextBoolean()) {
+            append(indent, "IF " + condition() + " DO");
+            statement(indent + 1);
+            block(indent + 1, level + 1);
+            if (random.nextBoolean()) {
+                append(indent, "ELSE");
+                statement(indent + 1);
+            }
+            append(indent, "END");
+        } else {
+            int a = random.nextInt(100);
+            append(indent, "WHILE " + a + " > " + (a + 1 + random.nextInt(100)) + " AND " + atom() + " DO");
+            String name = "v" + variable++;
+            append(indent + 1, "LET " + name + ": Integer = " + integer() + ";");
+            append(indent + 1, name + " = " + name + " + " + integer() + ";");
+            if (method > 0 && random.nextBoolean()) {
+                append(indent + 1, "f" + random.nextInt(method) + "();");
+            }
+            block(indent + 1, level + 1);
+            append(indent, "END");
+        }
+    }
+
+    private void statement(int indent) {
+        String name = "v" + variable++;
+        switch (random.nextInt(4)) {
+            case 0: append(indent, "LET " + name + ": Integer = " + integer() + ";"); break;
+            case 1: append(indent, "LET " + name + ": Boolean = " + condition() + ";"); break;
+            case 2: append(indent, "LET " + name + ": Decimal = " + decimal() + " * " + decimal() + ";"); break;
+            default: append(indent, "LET " + name + ": String = \"" + name + "\\t:\" + " + term() + ";"); break;
+        }
+    }
+
+    /**
+     * Returns a chain of up to {@link #terms} integer terms.
+     */
+    private String integer() {
+        StringBuilder expression = new StringBuilder(term());
+        for (int i = 1 + random.nextInt(terms); i < terms; i++) {
+            expression.append(random.nextBoolean() ? " + " : " - ").append(term());
+        }
+        return expression.toString();
+    }
+
+    private String term() {
+        switch (random.nextInt(4)) {
+            case 0: return random.nextInt(100) + " * " + random.nextInt(100);
+            case 1: return random.nextInt(100) + " / " + (1 + random.nextInt(9));
+            default: return Integer.toString(random.nextInt(1000));
+        }
+    }
+
+    private String decimal() {
+        return (1 + random.nextInt(99)) + "." + random.nextInt(100);
+    }
+
+    private String condition() {
+        switch (random.nextInt(3)) {
+            case 0: return atom();
+            case 1: return atom() + " OR " + atom();
+            default: return atom() + " AND " + atom();
+        }
+    }
+
+    /**
+     * Returns a condition without {@code AND}/{@code OR}, which can be
+     * combined without grouping (the analyzer does not type groups).
+     */
+    private String atom() {
+        switch (random.nextInt(4)) {
+            case 0: return random.nextBoolean() ? "TRUE" : "FALSE";
+            case 1: return "'" + (char) ('a' + random.nextInt(26)) + "' != 'c'";
+            default: return random.nextInt(100) + (random.nextBoolean() ? " < " : " >= ") + random.nextInt(100);
+        }
+    }
+
+    private void append(int indent, String text) {
+        for (int i = 0; i < indent; i++) {
+            builder.append("    ");
+        }
+        builder.append(text).append('\n');
+        line++;
+    }
+
+}
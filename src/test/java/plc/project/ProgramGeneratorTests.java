@@ -0,0 +1,47 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Generated programs must be valid, so the scaling tests measure each stage
+ * rather than its error handling.
+ */
+public class ProgramGeneratorTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testSingleMethod(long seed, int depth, int terms) {
+        String source = new ProgramGenerator(seed).lines(200).depth(depth).terms(terms).generate();
+        Assertions.assertEquals(source, new ProgramGenerator(seed).lines(200).depth(depth).terms(terms).generate());
+
+        Ast.Source ast = new Parser(new Lexer(source).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(ast);
+        Assertions.assertTrue(writer.toString().contains("int main()"), source);
+        Assertions.assertTrue(new Interpreter(new Scope(null)).visit(ast).getValue() instanceof BigInteger, source);
+    }
+
+    private static Stream<Arguments> testSingleMethod() {
+        return IntStream.range(0, 10).mapToObj(seed -> Arguments.of((long) seed, seed % 4, 1 + seed));
+    }
+
+    @ParameterizedTest
+    @MethodSource("testSingleMethod")
+    void testMultipleMethods(long seed, int depth, int terms) {
+        String source = new ProgramGenerator(seed).lines(500).methods(20).depth(depth).terms(terms).generate();
+        Ast.Source ast = new Parser(new DfaLexer(source).lexBuffer()).parseSource();
+        Assertions.assertEquals(20, ast.getMethods().size());
+        Assertions.assertTrue(new Interpreter(new Scope(null)).visit(ast).getValue() instanceof BigInteger, source);
+    }
+
+}
@@ -0,0 +1,127 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+/**
+ * Resolved programs must run as they do when every variable is looked up by
+ * name, except where lookup by name finds a variable left behind in a scope
+ * the interpreter did not exit (such as after a call or assignment), where
+ * they must follow lexical scoping instead.
+ */
+public class ResolverTests {
+
+    @Test
+    void testAddresses() {
+        Ast.Source ast = parse("LET x: Integer = 1;\n" +
+                "LET y: Integer = x;\n" +
+                "DEF f(a: Integer, b: Integer): Integer DO\n" +
+                "    LET c = a;\n" +
+                "    IF c DO LET d = b; print(d); ELSE LET e = y; END\n" +
+                "    FOR i IN list DO LET x = i; print(x); END\n" +
+                "    RETURN z;\n" +
+                "END\n");
+        new Resolver().visit(ast);
+        Assertions.assertEquals(0, ast.getFields().get(0).getSlot());
+        Assertions.assertEquals(1, ast.getFields().get(1).getSlot());
+        Assertions.assertEquals(0, access(ast.getFields().get(1).getValue().get()).getDepth());
+        Assertions.assertEquals(0, access(ast.getFields().get(1).getValue().get()).getSlot());
+
+        Ast.Method method = ast.getMethods().get(0);
+        Assertions.assertEquals(5, method.getFrameSize());
+        Ast.Stmt.Declaration c = (Ast.Stmt.Declaration) method.getStatements().get(0);
+        Assertions.assertEquals(2, c.getSlot());
+        Assertions.assertEquals(0, access(c.getValue().get()).getSlot());
+
+        Ast.Stmt.If branch = (Ast.Stmt.If) method.getStatements().get(1);
+        Assertions.assertEquals(3, ((Ast.Stmt.Declaration) branch.getThenStatements().get(0)).getSlot());
+        Ast.Stmt.Declaration e = (Ast.Stmt.Declaration) branch.getElseStatements().get(0);
+        Assertions.assertEquals(3, e.getSlot());
+        Assertions.assertEquals(1, access(e.getValue().get()).getDepth());
+        Assertions.assertEquals(1, access(e.getValue().get()).getSlot());
+
+        Ast.Stmt.For loop = (Ast.Stmt.For) method.getStatements().get(2);
+        Assertions.assertEquals(3, loop.getSlot());
+        Assertions.assertEquals(-1, access(loop.getValue()).getSlot());
+        Ast.Stmt.Declaration x = (Ast.Stmt.Declaration) loop.getStatements().get(0);
+        Assertions.assertEquals(4, x.getSlot());
+        Assertions.assertEquals(0, access(x.getValue().get()).getDepth());
+        Assertions.assertEquals(3, access(x.getValue().get()).getSlot());
+
+        Ast.Expr.Access z = access(((Ast.Stmt.Return) method.getStatements().get(3)).getValue());
+        Assertions.assertEquals(-1, z.getDepth());
+        Assertions.assertEquals(-1, z.getSlot());
+    }
+
+    @Test
+    void testRedefined() {
+        Assertions.assertThrows(RuntimeException.class, () -> new Resolver().visit(parse("DEF f() DO LET a = 1; LET a = 2; END")));
+        Assertions.assertThrows(RuntimeException.class, () -> new Resolver().visit(parse("DEF f(a: Integer, a: Integer) DO END")));
+        new Resolver().visit(parse("DEF f(a: Integer) DO WHILE a DO LET a = 1; END END"));
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testInterpreter(String test, String input, Object expected) {
+        Ast.Source named = parse(input);
+        Ast.Source resolved = parse(input);
+        new Resolver().visit(resolved);
+        Scope scope = new Scope(null);
+        scope.defineVariable("limit", Environment.create(BigInteger.TEN));
+        Object actual = new Interpreter(scope).visit(resolved).getValue();
+        if (expected == null) {
+            Assertions.assertEquals(new Interpreter(scope).visit(named).getValue(), actual);
+        } else {
+            Assertions.assertEquals(expected, actual);
+        }
+    }
+
+    private static Stream<Arguments> testInterpreter() {
+        return Stream.of(
+                Arguments.of("Recursion", "DEF fib(n: Integer): Integer DO\n" +
+                        "    IF n < 2 DO RETURN n; END\n" +
+                        "    RETURN fib(n - 1) + fib(n - 2);\n" +
+                        "END\n" +
+                        "DEF main(): Integer DO RETURN fib(15); END", BigInteger.valueOf(610)),
+                Arguments.of("Fields", "LET total: Integer = 0;\n" +
+                        "DEF add(n: Integer) DO total = total + n; END\n" +
+                        "DEF main(): Integer DO\n" +
+                        "    LET i = 0;\n" +
+                        "    WHILE i < limit DO add(i); i = i + 1; END\n" +
+                        "    RETURN total;\n" +
+                        "END", null),
+                Arguments.of("Shadowing", "LET x: Integer = 1;\n" +
+                        "DEF main(): Integer DO\n" +
+                        "    LET y = x;\n" +
+                        "    IF TRUE DO LET x = 10; y = y + x; END\n" +
+                        "    RETURN y + x;\n" +
+                        "END", BigInteger.valueOf(12)),
+                Arguments.of("Generated", new ProgramGenerator(0).lines(300).generate(), null),
+                Arguments.of("Generated Methods", new ProgramGenerator(1).lines(300).methods(10).generate(), null),
+                Arguments.of("Generated Nesting", new ProgramGenerator(2).lines(300).depth(8).generate(), null)
+        );
+    }
+
+    @Test
+    void testAnalyzer() {
+        Ast.Source ast = parse("DEF main(): Integer DO LET x: Integer = 1; RETURN 1; END");
+        new Analyzer(new Scope(null)).visit(ast);
+        Assertions.assertEquals(1, ast.getMethods().get(0).getFrameSize());
+        Assertions.assertEquals(0, ((Ast.Stmt.Declaration) ast.getMethods().get(0).getStatements().get(0)).getSlot());
+    }
+
+    private static Ast.Expr.Access access(Ast.Expr expr) {
+        return (Ast.Expr.Access) expr;
+    }
+
+    private static Ast.Source parse(String input) {
+        return new Parser(new DfaLexer(input).lexBuffer()).parseSource();
+    }
+
+}
@@ -0,0 +1,183 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.ref.Reference;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs every stage on generated programs of increasing size and reports the
+ * time and peak heap of each, flagging stages whose time grows faster than
+ * the program. These are slow, so they only run through the {@code
+ * scalingTest} task. The sizes (in lines) are set with {@code
+ * -Dscaling.lines=1000,10000}, and {@code -Dscaling.strict=true} fails the
+ * test when a stage is flagged. Sizes which would not fit in the heap, going
+ * by the peak of the previous size, are skipped. The heap retained by each
+ * AST representation is reported per thousand lines.
+ */
+@Tag("scaling")
+public class ScalingTests {
+
+    /**
+     * The growth exponent (1 being linear) above which a stage is flagged.
+     */
+    private static final double EXPONENT = 1.5;
+
+    /**
+     * Stages faster than this are too noisy to flag.
+     */
+    private static final long MINIMUM_MILLIS = 100;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"statements", "methods", "nesting", "chains"})
+    void testScaling(String shape) {
+        int[] sizes = sizes();
+        List<String> flags = new ArrayList<>();
+        long[] previous = null;
+        long peaks = 0;
+        run(shape, sizes[0], new ArrayList<>());
+        System.out.printf("%-10s %9s %-11s %10s %10s %9s%n", "shape", "lines", "stage", "millis", "peak MB", "exponent");
+        for (int i = 0; i < sizes.length; i++) {
+            if (previous != null) {
+                long predicted = peaks * sizes[i] / sizes[i - 1];
+                if (predicted > Runtime.getRuntime().maxMemory() * 3 / 4) {
+                    System.out.println("Skipping " + sizes[i] + " lines, which would need about " + (predicted >> 20) + " MB of heap.");
+                    break;
+                }
+            }
+            List<long[]> results = new ArrayList<>();
+            List<String> stages;
+            try {
+                stages = run(shape, sizes[i], results);
+            } catch (OutOfMemoryError e) {
+                flags.add(shape + " out of memory at " + sizes[i] + " lines after " + results.size() + " stages");
+                break;
+            }
+            for (int j = 0; j < stages.size(); j++) {
+                long millis = results.get(j)[0];
+                String exponent = "";
+                if (previous != null) {
+                    double growth = Math.log((double) Math.max(millis, 1) / Math.max(previous[j], 1)) / Math.log((double) sizes[i] / sizes[i - 1]);
+                    exponent = String.format("%.2f", growth);
+                    if (growth > EXPONENT && millis > MINIMUM_MILLIS) {
+                        flags.add(shape + " " + stages.get(j) + " at " + sizes[i] + " lines (" + exponent + ")");
+                        exponent += " !";
+                    }
+                }
+                System.out.printf("%-10s %9d %-11s %10d %10d %9s%n", shape, sizes[i], stages.get(j), millis, results.get(j)[1] >> 20, exponent);
+            }
+            previous = results.stream().mapToLong(result -> result[0]).toArray();
+            peaks = results.stream().mapToLong(result -> result[1]).max().orElse(0);
+        }
+        flags.forEach(flag -> System.out.println("Flagged: " + flag));
+        if (Boolean.getBoolean("scaling.strict")) {
+            Assertions.assertEquals(List.of(), flags);
+        }
+    }
+
+    /**
+     * Reports the heap retained by the tree, by the {@link FlatAst}, and by the
+     * tree with constant expressions interned, for the same program, per
+     * thousand lines.
+     */
+    @Test
+    void testRetainedMemory() {
+        TokenBuffer warmup = new DfaLexer(new ProgramGenerator(0).lines(sizes()[0]).generate()).lexBuffer();
+        retained(() -> new Parser(warmup).parseSource());
+        retained(() -> FlatAst.parse(warmup));
+        retained(() -> new Parser(warmup, false, new AstInterner()).parseSource());
+        System.out.printf("%9s %14s %14s %16s%n", "lines", "tree KB/KLOC", "flat KB/KLOC", "interned KB/KLOC");
+        for (int lines : sizes()) {
+            TokenBuffer tokens = new DfaLexer(new ProgramGenerator(0).lines(lines).generate()).lexBuffer();
+            long tree = retained(() -> new Parser(tokens).parseSource());
+            long flat = retained(() -> FlatAst.parse(tokens));
+            long interned = retained(() -> new Parser(tokens, false, new AstInterner()).parseSource());
+            System.out.printf("%9d %14d %14d %16d%n", lines, tree * 1000 / lines >> 10, flat * 1000 / lines >> 10, interned * 1000 / lines >> 10);
+            Assertions.assertTrue(flat < tree, lines + " lines");
+            Assertions.assertTrue(interned < tree, lines + " lines");
+        }
+    }
+
+    private static int[] sizes() {
+        return Arrays.stream(System.getProperty("scaling.lines", "1000,10000,100000,1000000").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+
+    private static long retained(Supplier<Object> stage) {
+        long before = used();
+        Object result = stage.get();
+        long after = used();
+        Reference.reachabilityFence(result);
+        return after - before;
+    }
+
+    private static long used() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Runs each stage on a program of the given shape and size, adding the
+     * time and peak heap of each to the results. Returns the stage names.
+     */
+    private static List<String> run(String shape, int lines, List<long[]> results) {
+        ProgramGenerator generator = new ProgramGenerator(0).lines(lines);
+        switch (shape) {
+            case "methods": generator.methods(Math.max(lines / 25, 1)); break;
+            case "nesting": generator.depth(16); break;
+            case "chains": generator.depth(1).terms(64); break;
+            default: break;
+        }
+        String source = generator.generate();
+
+        List<Token> tokens = measure(() -> new Lexer(source).lex(), results);
+        Ast.Source ast = measure(() -> new Parser(tokens).parseSource(), results);
+        if (ast.getMethods().size() > 1) {
+            measure(() -> new Interpreter(new Scope(null)).visit(ast), results);
+            return List.of("lexer", "parser", "interpreter");
+        }
+        measure(() -> {
+            new Analyzer(new Scope(null)).visit(ast);
+            return null;
+        }, results);
+        measure(() -> {
+            new Generator(new PrintWriter(Writer.nullWriter())).visit(ast);
+            return null;
+        }, results);
+        measure(() -> new Interpreter(new Scope(null)).visit(ast), results);
+        return List.of("lexer", "parser", "analyzer", "generator", "interpreter");
+    }
+
+    private static <T> T measure(Supplier<T> stage, List<long[]> results) {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pools.add(pool);
+            }
+        }
+        System.gc();
+        pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+        T result = stage.get();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        long peak = pools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        results.add(new long[] {millis, peak});
+        return result;
+    }
+
+}
@@ -0,0 +1,54 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class SymbolTableTests {
+
+    @Test
+    void testIntern() {
+        SymbolTable symbols = new SymbolTable();
+        int symbol = symbols.intern("name");
+        Assertions.assertEquals(symbol, symbols.intern(new String("name")));
+        Assertions.assertNotEquals(symbol, symbols.intern("other"));
+        Assertions.assertSame(symbols.getName(symbol), symbols.getName(symbols.intern("name")));
+        Assertions.assertEquals(Token.Kind.IDENTIFIER, symbols.getKind(symbol));
+        Assertions.assertEquals(Token.Kind.WHILE, symbols.getKind(symbols.intern("WHILE")));
+    }
+
+    @Test
+    void testRehash() {
+        SymbolTable symbols = new SymbolTable();
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(symbols.size(), symbols.intern("name" + i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals("name" + i, symbols.getName(symbols.intern("name" + i)));
+        }
+    }
+
+    @Test
+    void testSharedTable() {
+        SymbolTable symbols = new SymbolTable();
+        TokenBuffer first = new DfaLexer("value = 1;", symbols).lexBuffer();
+        TokenBuffer second = new DfaLexer("print(value);", symbols).lexBuffer();
+        Assertions.assertEquals(first.getSymbol(0), second.getSymbol(2));
+        Assertions.assertSame(first.getLiteral(0), second.getLiteral(2));
+    }
+
+    @Test
+    void testKinds() {
+        String input = "LET x = -1; IF x <= 10 AND y != 0.0 DO f(a, \"b\"); ELSE RETURN NIL; END @";
+        List<Token> tokens = new DfaLexer(input).lex();
+        Assertions.assertEquals(new Lexer(input).lex(), tokens);
+        for (Token token : tokens) {
+            Assertions.assertEquals(Token.Kind.of(token.getType(), token.getLiteral()), token.getKind(), token.toString());
+        }
+        Assertions.assertEquals(Token.Kind.LET, tokens.get(0).getKind());
+        Assertions.assertEquals(Token.Kind.LESS_EQUAL, tokens.get(7).getKind());
+        Assertions.assertEquals(Token.Kind.OPERATOR, tokens.get(tokens.size() - 1).getKind());
+    }
+
+}
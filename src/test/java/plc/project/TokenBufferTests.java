@@ -0,0 +1,67 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.stream.Stream;
+
+public class TokenBufferTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testBuffer(String test, String input) {
+        DfaLexerTests.test(input, source -> new ArrayList<>(new DfaLexer(source).lexBuffer().asList()));
+    }
+
+    private static Stream<Arguments> testBuffer() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Example 1", "LET x = 5;"),
+                Arguments.of("Example 2", "print(\"Hello, World!\");"),
+                Arguments.of("Mixed", "one\btwo -1.5 'c' <= \"s\\tx\""),
+                Arguments.of("Error", "x = \"unterminated")
+        );
+    }
+
+    @Test
+    void testAccessors() {
+        TokenBuffer buffer = new DfaLexer("LET x = 5;").lexBuffer();
+        Assertions.assertEquals(5, buffer.size());
+        Assertions.assertEquals(Token.Type.IDENTIFIER, buffer.getType(1));
+        Assertions.assertEquals(4, buffer.getIndex(1));
+        Assertions.assertEquals(1, buffer.getLength(1));
+        Assertions.assertEquals("5", buffer.getLiteral(3));
+        Assertions.assertTrue(buffer.literalEquals(0, "LET"));
+        Assertions.assertFalse(buffer.literalEquals(0, "LE"));
+        Assertions.assertFalse(buffer.literalEquals(0, "DEF"));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> buffer.getType(5));
+    }
+
+    @Test
+    void testParser() {
+        String input = "LET x: Integer = 5;\nDEF main(): Integer DO\n    IF x != 0 DO print(\"x\"); ELSE x = -1; END\n    RETURN x * 2;\nEND";
+        Assertions.assertEquals(
+                new Parser(new Lexer(input).lex()).parseSource(),
+                new Parser(new DfaLexer(input).lexBuffer()).parseSource()
+        );
+    }
+
+    @Test
+    void testParserException() {
+        String input = "LET x: Integer = 5";
+        ParseException expected = Assertions.assertThrows(ParseException.class, () -> new Parser(new Lexer(input).lex()).parseSource());
+        ParseException actual = Assertions.assertThrows(ParseException.class, () -> new Parser(new DfaLexer(input).lexBuffer()).parseSource());
+        Assertions.assertEquals(expected.getIndex(), actual.getIndex());
+    }
+
+    @Test
+    void testStreamingSource() {
+        Assertions.assertThrows(IllegalStateException.class, () -> new DfaLexer(new StringReader("x")).lexBuffer());
+    }
+
+}